@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A class running the benchmarks of the inventory and combat hot paths.
+ * The benchmarks are built by the Maven module in Final3/benchmarks, which compiles them together with
+ * the sources in src and runs the JMH annotation processor; this class is the main class of its benchmarks.jar.
+ * Every benchmark reports its throughput and average time, and the gc profiler adds the
+ * allocation rate (gc.alloc.rate.norm is the number of bytes allocated per operation).
+ * The arguments are the usual JMH command line options, so a regular expression restricts the benchmarks run,
+ * and -rf json -rff file writes results that can be compared against an earlier run.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (commandLine.getIncludes().isEmpty())
+			options.include("Benchmarks\\..*");
+		if (commandLine.getProfilers().isEmpty())
+			options.addProfiler(GCProfiler.class);
+		if (!commandLine.getWarmupIterations().hasValue())
+			options.warmupIterations(5);
+		if (!commandLine.getMeasurementIterations().hasValue())
+			options.measurementIterations(5);
+		if (!commandLine.getForkCount().hasValue())
+			options.forks(1);
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,68 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Exceptions.IllegalHitpointsException;
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.Arena;
+import RPG3.DuelResult;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+/**
+ * Benchmarks of the weight checks of monsters, of single hits and of full duels.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CombatBenchmark {
+
+	private Monster attacker;
+	private Monster opponent;
+	private Weapon weapon;
+	private Arena arena;
+	private SplittableRandomSource random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		attacker = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2, 20, 20), 5, new SplittableRandomSource(1));
+		opponent = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2, 10, 10), 4, new SplittableRandomSource(2));
+		weapon = new Weapon(1, 1);
+		arena = new Arena(42);
+		random = new SplittableRandomSource(42);
+	}
+
+	@Benchmark
+	public boolean isValidTotalWeight() {
+		return attacker.isValidTotalWeight(weapon);
+	}
+
+	//A single hit, after which the opponent is healed so every hit starts from the same hitpoints.
+	@Benchmark
+	public int hit() throws IllegalHitpointsException {
+		attacker.hit(opponent, random);
+		int result = opponent.getHitpoints();
+		opponent.setHitpoints(opponent.getMaxHitpoints());
+		return result;
+	}
+
+	//A full duel on copies of the hitpoints of the monsters.
+	@Benchmark
+	public DuelResult duel() {
+		return arena.duel(attacker, opponent);
+	}
+
+}
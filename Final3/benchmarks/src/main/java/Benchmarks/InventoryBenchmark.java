@@ -0,0 +1,164 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Items.Backpack;
+import Items.Item;
+import Items.Weapon;
+
+/**
+ * Benchmarks of moving items in and out of backpacks of several sizes and of querying their contents.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class InventoryBenchmark {
+
+	/**
+	 * Variable registering the number of items in the backpacks.
+	 */
+	@Param({"10", "1000", "100000"})
+	public int size;
+
+	private Backpack backpack;
+	private Weapon extra;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		backpack = filledBackpack(size);
+		extra = new Weapon(0.5, 1);
+	}
+
+	/**
+	 * Return a new backpack containing the given number of weapons of different weights.
+	 */
+	static Backpack filledBackpack(int size) {
+		Backpack result = new Backpack(1, 1, 1000000);
+		for (int i = 0; i < size; i++)
+			new Weapon((i % 100) / 100.0, 1).addToBackpack(result);
+		return result;
+	}
+
+	/**
+	 * A class of states with a full source and an empty target, filled again before every transfer.
+	 */
+	@State(Scope.Thread)
+	public static class Transfer {
+
+		@Param({"10", "1000", "100000"})
+		public int size;
+
+		Backpack source;
+		Backpack target;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			source = filledBackpack(size);
+			target = new Backpack(1, 1, 1000000);
+		}
+	}
+
+	/**
+	 * A class of states with a weapon in the innermost of a number of nested backpacks.
+	 */
+	@State(Scope.Thread)
+	public static class Nested {
+
+		@Param({"1", "10", "100"})
+		public int depth;
+
+		Backpack outermost;
+		Weapon innermostWeapon;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			outermost = new Backpack(1, 1, 1000000);
+			Backpack inner = outermost;
+			for (int i = 1; i < depth; i++) {
+				Backpack next = new Backpack(1, 1, 1000000);
+				next.addToBackpack(inner);
+				inner = next;
+			}
+			innermostWeapon = new Weapon(1, 1);
+			innermostWeapon.addToBackpack(inner);
+		}
+	}
+
+	/**
+	 * A class of states with a backpack holding the given number of empty backpacks and a single weapon.
+	 */
+	@State(Scope.Thread)
+	public static class Sparse {
+
+		@Param({"10", "1000", "20000"})
+		public int size;
+
+		Backpack outermost;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			outermost = new Backpack(1, 1, 1000000);
+			for (int i = 0; i < size; i++)
+				new Backpack(1, 1, 1).addToBackpack(outermost);
+			new Weapon(1, 1).addToBackpack(outermost);
+		}
+	}
+
+	//Adding an item to a backpack of the given size and removing it again.
+	@Benchmark
+	public Backpack addAndRemove() {
+		extra.addToBackpack(backpack);
+		extra.removeFromBackpack();
+		return backpack;
+	}
+
+	//Moving all items of a backpack of the given size to an empty backpack.
+	@Benchmark
+	public Backpack transferContents(Transfer state) {
+		state.source.transferContents(state.target);
+		return state.target;
+	}
+
+	@Benchmark
+	public Item getLightestItem() {
+		return backpack.getLightestItem();
+	}
+
+	@Benchmark
+	public Item getLightestItem2() {
+		return backpack.getLightestItem2();
+	}
+
+	//Reading the total weight of the outermost of the given number of nested backpacks.
+	@Benchmark
+	public long nestedTotalWeight(Nested state) {
+		return state.outermost.getTotalWeightHundredths();
+	}
+
+	//Finding the heaviest weapon next to the given number of empty backpacks, which are skipped on their bounds.
+	@Benchmark
+	public Item heaviestWeapon(Sparse state) {
+		return state.outermost.getHeaviestItems(Weapon.class, 1).next();
+	}
+
+	//Changing the value of the innermost item, which updates the totals of all backpacks around it.
+	@Benchmark
+	public int nestedValueChange(Nested state) {
+		state.innermostWeapon.setValue(state.innermostWeapon.getValue() ^ 1);
+		return state.outermost.getTotalValue();
+	}
+
+}
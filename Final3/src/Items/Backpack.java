@@ -1,13 +1,15 @@
 package Items;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 
 import be.kuleuven.cs.som.annotate.Basic;
 
 import java.util.*;
 
-import java.math.*;
+import java.math.BigDecimal;
+
+import Monitoring.GameMetrics;
+import RPG3.Monster;
 /**
  * A class of backpacks which can be equipped by monsters or put in backpacks.
  * @invar	The total weight of a backpack should be lower or equal to the carrying capacity.
@@ -33,149 +35,644 @@ public class Backpack extends StoreItem {
 	 */
 	public Backpack(double weight, int value, int capacity) {
 		super(weight, value, capacity);
-		this.carryingCapacity = new BigDecimal(Integer.toString(capacity));
+		this.carryingCapacity = Weight.fromKilograms(capacity);
+	}
+	
+	/**
+	 * Initialize a backpack restored from a snapshot, without generating its ID.
+	 * @param 	id
+	 * 			The ID of the new backpack.
+	 * @param 	weight
+	 * 			The weight of the new backpack, in hundredths of a kilogram.
+	 * @param 	value
+	 * 			The value of the new backpack.
+	 * @param 	capacity
+	 * 			The capacity of the new backpack.
+	 * @effect	| super(id, weight, value, capacity)
+	 * @post	New backpacks don't get the given ID.
+	 * @throws	IllegalArgumentException
+	 * 			The ID isn't the ID of a backpack.
+	 * 			| id % 2 != 1
+	 */
+	Backpack(long id, long weight, int value, int capacity) throws IllegalArgumentException {
+		super(id, weight, value, capacity);
+		ids.reserve(id);
+		this.carryingCapacity = Weight.fromKilograms(capacity);
 	}
 
 	//2.1.1: IDENTIFICATION
 
 	/**
-	 * Variable used in creating the ID.
+	 * Variable referencing the allocator of the odd IDs of backpacks.
 	 */
-	private static long idCounter=0;
+	private final static IdAllocator ids = new IdAllocator(1, 2);
 
 	/**
 	 * Generates the ID of the backpack.
 	 * 
-	 * @return  A generated odd number that has is unique to each backpack.
-	 *          | result == (idCounter + 2)
+	 * @return  A generated odd number that is unique to each backpack, also when backpacks are created in parallel.
+	 *          | result % 2 == 1
 	 */
 	@Override
 	protected long createId() {
-		while (idCounter % 2 == 0)
-			idCounter++;
-		return idCounter++;
+		return ids.next();
+	}
+	
+	/**
+	 * Comparator ordering items on the total weight under which they are indexed, then on their ID.
+	 * Items of different classes can have the same ID, so those are ordered on the name of their class,
+	 * and items restored twice from the same snapshot are ordered on their serial number.
+	 */
+	final static Comparator<Item> WEIGHT_ORDER = new Comparator<Item>() {
+		@Override
+		public int compare(Item item1, Item item2) {
+			int result = Long.compare(item1.indexedWeight, item2.indexedWeight);
+			return (result != 0) ? result : Item.compareIdentities(item1, item2);
+		}
+	};
+	
+	/**
+	 * Comparator ordering items on the total value under which they are indexed, then on their ID.
+	 */
+	final static Comparator<Item> VALUE_ORDER = new Comparator<Item>() {
+		@Override
+		public int compare(Item item1, Item item2) {
+			int result = Integer.compare(item1.indexedValue, item2.indexedValue);
+			return (result != 0) ? result : Item.compareIdentities(item1, item2);
+		}
+	};
+	
+	/**
+	 * Balanced search tree holding the contents of this backpack, ordered from lowest to highest weight.
+	 */
+	private TreeSet<Item> contents = new TreeSet<Item>(WEIGHT_ORDER);
+	
+	//TYPE INDEXES
+	
+	/**
+	 * The concrete types of items that are indexed separately.
+	 */
+	final static Class<?>[] INDEXED_TYPES = { Weapon.class, Purse.class, Backpack.class };
+	
+	/**
+	 * Variable registering the index of backpacks in the indexed types.
+	 */
+	final static int BACKPACK_TYPE = 2;
+	
+	/**
+	 * Return the position of the type of the given item in the indexed types.
+	 */
+	static int typeOf(Item item) {
+		if (item instanceof Weapon)
+			return 0;
+		if (item instanceof Purse)
+			return 1;
+		return BACKPACK_TYPE;
 	}
 	
 	/**
-	 * ArrayList defining the contents of this backpack.
+	 * Balanced search trees holding the contents of this backpack of each indexed type, ordered from lowest
+	 * to highest weight and from lowest to highest value.
+	 * 			|for each type in 0..INDEXED_TYPES.length-1:
+	 * 			|	for each item in weightIndex[type]: typeOf(item) == type && contents.contains(item)
 	 */
-	private ArrayList<Item> contents = new ArrayList<Item>();
+	private TreeSet<Item>[] weightIndex = newIndex(WEIGHT_ORDER);
+	private TreeSet<Item>[] valueIndex = newIndex(VALUE_ORDER);
+	
+	/**
+	 * Return a new empty index for each indexed type, ordered by the given comparator.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static TreeSet<Item>[] newIndex(Comparator<Item> order) {
+		TreeSet<Item>[] index = new TreeSet[INDEXED_TYPES.length];
+		for (int i = 0; i < index.length; i++)
+			index[i] = new TreeSet<Item>(order);
+		return index;
+	}
+	
+	/**
+	 * Return the contents of this backpack of the given indexed type, ordered from lowest to highest weight.
+	 */
+	NavigableSet<Item> getWeightIndex(int type) {
+		materialize();
+		return weightIndex[type];
+	}
+	
+	/**
+	 * Return the contents of this backpack of the given indexed type, ordered from lowest to highest value.
+	 */
+	NavigableSet<Item> getValueIndex(int type) {
+		materialize();
+		return valueIndex[type];
+	}
+	
+	/**
+	 * Add the given item to the weight index and the type indexes of this backpack, under its current totals.
+	 */
+	private void index(Item item) {
+		index(item, contents, weightIndex, valueIndex);
+	}
+	
+	/**
+	 * Add the given item to the given weight index and type indexes, under its current totals.
+	 */
+	private static void index(Item item, TreeSet<Item> contents, TreeSet<Item>[] weightIndex, TreeSet<Item>[] valueIndex) {
+		item.indexedWeight = item.getTotalWeightHundredths();
+		item.indexedValue = item.getTotalValue();
+		contents.add(item);
+		weightIndex[typeOf(item)].add(item);
+		valueIndex[typeOf(item)].add(item);
+	}
+	
+	//SUBTREE BOUNDS
+	
+	/**
+	 * Variable registering, for each indexed type, the lowest and highest total weight and the lowest and highest
+	 * total value under which an item of that type is indexed in this backpack or in a backpack it holds, however deeply.
+	 * For each type t, the bounds are stored at 4*t (lowest weight) up to 4*t+3 (highest value); a type without items
+	 * has Long.MAX_VALUE as lowest and Long.MIN_VALUE as highest bound.
+	 * The bounds are null if they aren't known: if the contents aren't loaded, or if the contents or the totals
+	 * of a nested item changed since the bounds were last computed.
+	 * 			|if (bounds == null && getDirectHolder() instanceof Backpack)
+	 * 			|	then ((Backpack) getDirectHolder()).bounds == null
+	 */
+	private long[] bounds = null;
+	
+	/**
+	 * Variable referencing, for each bound of each indexed type, the backpacks held by this backpack that hold
+	 * items of that type, ordered from lowest to highest lowest bound or from highest to lowest highest bound.
+	 * An order is only built when a query needs it, and is forgotten together with the bounds.
+	 */
+	private Backpack[][] nestedOrders = null;
+	
+	/**
+	 * Forget the bounds of this backpack and of the backpacks holding it.
+	 * The walk stops at the first holder of which the bounds are already unknown, because the bounds of its
+	 * holders are then unknown as well, so a series of changes costs constant time per change.
+	 */
+	private void invalidateBounds() {
+		for (Backpack backpack = this; backpack != null && backpack.bounds != null; backpack = backpack.getHoldingBackpack()) {
+			backpack.bounds = null;
+			backpack.nestedOrders = null;
+		}
+	}
+	
+	/**
+	 * Return the backpack directly holding this backpack, or null if this backpack isn't held by a backpack.
+	 */
+	private Backpack getHoldingBackpack() {
+		Object holder = getDirectHolder();
+		return (holder instanceof Backpack) ? (Backpack) holder : null;
+	}
+	
+	/**
+	 * Return the lowest total weight or value of the items of the given indexed type in this backpack
+	 * and in the backpacks it holds, or Long.MAX_VALUE if there are none.
+	 */
+	long getLowestKey(int type, boolean byWeight) {
+		return getBounds()[4 * type + (byWeight ? 0 : 2)];
+	}
+	
+	/**
+	 * Return the highest total weight or value of the items of the given indexed type in this backpack
+	 * and in the backpacks it holds, or Long.MIN_VALUE if there are none.
+	 */
+	long getHighestKey(int type, boolean byWeight) {
+		return getBounds()[4 * type + (byWeight ? 1 : 3)];
+	}
+	
+	/**
+	 * Return the backpacks directly held by this backpack that hold items of the given indexed type, directly or
+	 * indirectly, ordered from lowest to highest lowest bound, or from highest to lowest highest bound if descending.
+	 */
+	Backpack[] getNestedBackpacks(int type, boolean byWeight, final boolean descending) {
+		getBounds();
+		if (nestedOrders == null)
+			nestedOrders = new Backpack[4 * INDEXED_TYPES.length][];
+		final int slot = 4 * type + (byWeight ? 0 : 2) + (descending ? 1 : 0);
+		if (nestedOrders[slot] == null) {
+			int lowest = slot & ~1;
+			List<Backpack> holding = new ArrayList<Backpack>();
+			for (Item nested : weightIndex[BACKPACK_TYPE])
+				if (((Backpack) nested).bounds[lowest] <= ((Backpack) nested).bounds[lowest + 1])
+					holding.add((Backpack) nested);
+			Collections.sort(holding, new Comparator<Backpack>() {
+				@Override
+				public int compare(Backpack backpack1, Backpack backpack2) {
+					return descending ? Long.compare(backpack2.bounds[slot], backpack1.bounds[slot])
+							: Long.compare(backpack1.bounds[slot], backpack2.bounds[slot]);
+				}
+			});
+			nestedOrders[slot] = holding.toArray(new Backpack[holding.size()]);
+		}
+		return nestedOrders[slot];
+	}
+	
+	/**
+	 * Return the bounds of this backpack, computing the unknown bounds in the tree of backpacks it holds.
+	 * The tree is walked with an explicit stack instead of recursion, so it can be nested arbitrarily deep,
+	 * and only the backpacks of which the bounds are unknown are visited. Their contents are loaded on the way.
+	 */
+	private long[] getBounds() {
+		if (bounds != null)
+			return bounds;
+		Deque<Backpack> pending = new ArrayDeque<Backpack>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			Backpack backpack = pending.peek();
+			backpack.materialize();
+			boolean known = true;
+			for (Item nested : backpack.weightIndex[BACKPACK_TYPE])
+				if (((Backpack) nested).bounds == null) {
+					pending.push((Backpack) nested);
+					known = false;
+				}
+			if (known) {
+				pending.pop();
+				backpack.bounds = backpack.computeBounds();
+			}
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Return the bounds of this backpack, computed from its indexes and the known bounds of the backpacks it holds.
+	 */
+	private long[] computeBounds() {
+		long[] result = new long[4 * INDEXED_TYPES.length];
+		for (int type = 0; type < INDEXED_TYPES.length; type++) {
+			int slot = 4 * type;
+			if (weightIndex[type].isEmpty()) {
+				result[slot] = result[slot + 2] = Long.MAX_VALUE;
+				result[slot + 1] = result[slot + 3] = Long.MIN_VALUE;
+			}
+			else {
+				result[slot] = weightIndex[type].first().indexedWeight;
+				result[slot + 1] = weightIndex[type].last().indexedWeight;
+				result[slot + 2] = valueIndex[type].first().indexedValue;
+				result[slot + 3] = valueIndex[type].last().indexedValue;
+			}
+		}
+		for (Item nested : weightIndex[BACKPACK_TYPE]) {
+			long[] nestedBounds = ((Backpack) nested).bounds;
+			for (int slot = 0; slot < result.length; slot += 2) {
+				result[slot] = Math.min(result[slot], nestedBounds[slot]);
+				result[slot + 1] = Math.max(result[slot + 1], nestedBounds[slot + 1]);
+			}
+		}
+		return result;
+	}
 	
 	/**
 	 * Return the contents of this backpack.
+	 * @return	A list of all items in this backpack, sorted from lowest to highest weight.
+	 * 			|for each index in 0..result.size()-2:
+	 * 			|	result.get(i).getTotalWeightHundredths() <= result.get(i+1).getTotalWeightHundredths()
 	 */
-	@Basic
-	public ArrayList<Item> getContents() {
-		return this.contents;
+	public List<Item> getContents() {
+		materialize();
+		return Collections.unmodifiableList(new ArrayList<Item>(this.contents));
+	}
+	
+	/**
+	 * Return the items of this backpack that are already loaded, without loading its contents.
+	 */
+	Collection<Item> getLoadedContents() {
+		return this.constantContent;
+	}
+	
+	/**
+	 * Return the number of items in this backpack.
+	 */
+	public int getNbItems() {
+		if (this.loader != null)
+			return this.lazyNbItems;
+		return this.contents.size();
+	}
+	
+	//LAZY CONTENTS
+	
+	/**
+	 * Variable referencing the source of the contents of this backpack while they aren't loaded yet,
+	 * or null if the contents are loaded.
+	 * It is volatile and only cleared once the loaded contents are in place, so a thread that finds it cleared
+	 * also sees the loaded contents without locking.
+	 */
+	private volatile ContentLoader loader = null;
+	
+	/**
+	 * Variable registering the number of items in this backpack while its contents aren't loaded yet.
+	 */
+	private int lazyNbItems = 0;
+	
+	/**
+	 * Check whether the contents of this backpack are loaded.
+	 * @return	False if this backpack still has to load its contents on first access.
+	 */
+	public boolean isContentLoaded() {
+		return (this.loader == null);
+	}
+	
+	/**
+	 * Let this backpack load its contents from the given loader on first access.
+	 * Until then, its totals and number of items are the given stored ones.
+	 * @param 	loader
+	 * 			The source of the contents of this backpack.
+	 * @param 	contentsWeight
+	 * 			The stored total weight of the contents, in hundredths of a kilogram.
+	 * @param 	contentsValue
+	 * 			The stored total value of the contents.
+	 * @param 	nbItems
+	 * 			The stored number of items in this backpack.
+	 * @pre		This backpack is empty and isn't held by anything.
+	 * 			| getNbItems() == 0 && getDirectHolder() == null
+	 * @post	| new.getTotalWeightHundredths() == getWeightHundredths() + contentsWeight
+	 * 			| && new.getTotalValue() == getValue() + contentsValue && new.getNbItems() == nbItems
+	 */
+	void setLazyContents(ContentLoader loader, long contentsWeight, int contentsValue, int nbItems) {
+		assert (contents.isEmpty() && getDirectHolder() == null);
+		this.loader = loader;
+		this.contentsWeight = contentsWeight;
+		this.contentsValue = contentsValue;
+		this.lazyNbItems = nbItems;
+	}
+	
+	/**
+	 * Load the contents of this backpack if they aren't loaded yet.
+	 * The loaded items are indexed apart, and only replace the contents and the stored totals once all of them
+	 * are loaded, so if the loader throws an exception, this backpack still has its loader and stored totals
+	 * and the next access tries again. The holder of this backpack is only notified if the totals of the loaded
+	 * contents differ from the stored totals, because the stored totals were already part of the totals of the holder.
+	 * The contents are loaded while holding the lock of this backpack, and the loader is checked again once
+	 * it is held, so readers and moves on several threads load the contents exactly once.
+	 */
+	private void materialize() {
+		if (this.loader == null)
+			return;
+		synchronized (this) {
+			if (this.loader != null)
+				load();
+		}
+	}
+
+	/**
+	 * Load the contents of this backpack from its loader, while holding the lock of this backpack.
+	 */
+	private void load() {
+		List<Item> items = this.loader.loadContents();
+		TreeSet<Item> loadedContents = new TreeSet<Item>(WEIGHT_ORDER);
+		TreeSet<Item>[] loadedWeights = newIndex(WEIGHT_ORDER);
+		TreeSet<Item>[] loadedValues = newIndex(VALUE_ORDER);
+		ArrayList<Item> loadedConstant = new ArrayList<Item>(items.size());
+		long weight = 0;
+		int value = 0;
+		for (Item item : items) {
+			index(item, loadedContents, loadedWeights, loadedValues);
+			item.contentSlot = loadedConstant.size();
+			loadedConstant.add(item);
+			weight += item.indexedWeight;
+			value += item.indexedValue;
+		}
+		for (Item item : items)
+			item.linkHolder(this);
+		this.contents = loadedContents;
+		this.weightIndex = loadedWeights;
+		this.valueIndex = loadedValues;
+		this.constantContent = loadedConstant;
+		this.loader = null;
+		updateTotals(weight - this.contentsWeight, value - this.contentsValue);
+	}
+	
+	/**
+	 * Add the given item to the contents of this backpack.
+	 * @param 	item
+	 * 			The item to be added.
+	 * @post	The item is added to the contents, indexed under its current total weight.
+	 * @effect	The totals of this backpack are increased with the totals of the item.
+	 * 			|updateTotals(item.getTotalWeightHundredths(), item.getTotalValue())
+	 */
+	void addContent(Item item) {
+		materialize();
+		index(item);
+		item.contentSlot = constantContent.size();
+		constantContent.add(item);
+		updateTotals(item.indexedWeight, item.getTotalValue());
+	}
+	
+	/**
+	 * Remove the given item from the contents of this backpack.
+	 * @param 	item
+	 * 			The item to be removed.
+	 * @post	The item is no longer part of the contents. It is removed from the weight index in O(log n),
+	 * 			and from the constant content in O(1) by moving the last item into its slot.
+	 * @effect	The totals of this backpack are decreased with the totals of the item.
+	 * 			|updateTotals(-item.getTotalWeightHundredths(), -item.getTotalValue())
+	 */
+	void removeContent(Item item) {
+		contents.remove(item);
+		weightIndex[typeOf(item)].remove(item);
+		valueIndex[typeOf(item)].remove(item);
+		int slot = item.contentSlot;
+		Item last = constantContent.remove(constantContent.size()-1);
+		if (last != item) {
+			constantContent.set(slot, last);
+			last.contentSlot = slot;
+		}
+		item.contentSlot = -1;
+		updateTotals(-item.getTotalWeightHundredths(), -item.getTotalValue());
+	}
+	
+	/**
+	 * Register that the totals of the given item in this backpack changed.
+	 * @param 	item
+	 * 			The item of which the totals changed.
+	 * @param 	weightDelta
+	 * 			The change of the total weight of the item, in hundredths of a kilogram.
+	 * @param 	valueDelta
+	 * 			The change of the total value of the item.
+	 * @post	If the weight or value changed, the item is indexed under its new total weight or total value.
+	 * @effect	The totals of this backpack are changed with the given changes. The holder of this backpack
+	 * 			isn't notified here, the item passes the change on to all its holders itself.
+	 * 			|changeTotals(weightDelta, valueDelta)
+	 */
+	void contentChanged(Item item, long weightDelta, int valueDelta) {
+		int type = typeOf(item);
+		if (weightDelta != 0) {
+			contents.remove(item);
+			weightIndex[type].remove(item);
+			item.indexedWeight += weightDelta;
+			contents.add(item);
+			weightIndex[type].add(item);
+		}
+		if (valueDelta != 0) {
+			valueIndex[type].remove(item);
+			item.indexedValue += valueDelta;
+			valueIndex[type].add(item);
+		}
+		changeTotals(weightDelta, valueDelta);
+	}
+	
+	/**
+	 * Change the totals of the contents of this backpack and notify the holder of this backpack.
+	 * @param 	weightDelta
+	 * 			The change of the total weight of the contents, in hundredths of a kilogram.
+	 * @param 	valueDelta
+	 * 			The change of the total value of the contents.
+	 * @effect	The totals of this backpack are changed with the given changes.
+	 * 			|changeTotals(weightDelta, valueDelta)
+	 * @effect	The holder of this backpack is notified of the changes.
+	 * 			|fireTotalsChanged(weightDelta, valueDelta)
+	 */
+	private void updateTotals(long weightDelta, int valueDelta) {
+		changeTotals(weightDelta, valueDelta);
+		fireTotalsChanged(weightDelta, valueDelta);
+	}
+	
+	/**
+	 * Change the totals of the contents of this backpack, without notifying its holder.
+	 * @param 	weightDelta
+	 * 			The change of the total weight of the contents, in hundredths of a kilogram.
+	 * @param 	valueDelta
+	 * 			The change of the total value of the contents.
+	 * @post	The total weight and total value of this backpack are changed with the given changes.
+	 * 			|new.getTotalWeightHundredths() == getTotalWeightHundredths() + weightDelta
+	 * 			|new.getTotalValue() == getTotalValue() + valueDelta
+	 * @effect	The bounds of this backpack and its holders are forgotten.
+	 * 			|invalidateBounds()
+	 */
+	private void changeTotals(long weightDelta, int valueDelta) {
+		this.contentsWeight += weightDelta;
+		this.contentsValue += valueDelta;
+		invalidateBounds();
 	}
 	
 	//WEIGHT
 	
 	/**
-	 * Return the total weight.
-	 * @return 	The weights across all items in the backpack.
+	 * Variable registering the total weight of the contents of this backpack, in hundredths of a kilogram.
+	 */
+	private long contentsWeight = 0;
+	
+	/**
+	 * Return the total weight, in hundredths of a kilogram.
+	 * @return 	The weight of this backpack and the weights across all items in the backpack.
 	 * 			|for each index in 0..getContents().size():
 	 * 			|	if (getContents().get(i) != null)
-	 * 			|		then totalWeight += getContents().get(i).getTotalWeight()
+	 * 			|		then totalWeight += getContents().get(i).getTotalWeightHundredths()
 	 */
-	public BigDecimal getTotalWeight() {
-		BigDecimal totalWeight = this.getWeight();
-		for(int i=0;i<getContents().size();i++) {
-			if (getContents().get(i) != null)
-				totalWeight = totalWeight.add(getContents().get(i).getTotalWeight());
-		}
-		return totalWeight;
+	public long getTotalWeightHundredths() {
+		return this.getWeightHundredths() + this.contentsWeight;
 	}
 	
-	//obtain lightest/heaviest item method 1 (non-constant time part is hidden in addToBackpack()).
+	//obtain lightest/heaviest item method 1 (the contents are kept sorted by the weight index in O(log n) per change).
 	
 	/**
-	 * Sort the content on weights.
+	 * Index the contents again on their current weights and values.
+	 * The contents are kept sorted whenever an item or a nested item changes, so this is only needed
+	 * if the weight or value of an item was changed without notifying its holder.
 	 * @post		The contents of this backpack are sorted from lowest to highest weight
 	 * 			|for each index in 0..getContents().size():
-	 * 			|	getContents().get(i).getTotalWeight() < getContents().get(i+1).getTotalWeight()
+	 * 			|	getContents().get(i).getTotalWeightHundredths() <= getContents().get(i+1).getTotalWeightHundredths()
 	 */
 	public void sortContentWeight() {
-		contents.sort((o1, o2) -> o1.getTotalWeight().compareTo(o2.getTotalWeight()));
+		GameMetrics.backpackSorted();
+		materialize();
+		List<Item> items = new ArrayList<Item>(contents);
+		contents = new TreeSet<Item>(WEIGHT_ORDER);
+		weightIndex = newIndex(WEIGHT_ORDER);
+		valueIndex = newIndex(VALUE_ORDER);
+		for (Item item : items)
+			index(item);
+		invalidateBounds();
 	}
 	
 	/**
-	 * Return the lightest item of a sorted backpack.
-	 * @return 	The lightest item of a sorted backpack.
+	 * Return the lightest item of this backpack.
+	 * @return 	The lightest item of this backpack.
 	 * 			|return == (getContents().get(0))
+	 * @throws 	NoSuchElementException
+	 * 			The backpack contains no items.
+	 * 			|getContents().isEmpty()
 	 */
-	public Item getLightestItem() {
-		return getContents().get(0);
+	public Item getLightestItem() throws NoSuchElementException {
+		materialize();
+		return contents.first();
 	}
 	
 	/**
-	 * Return the heaviest item of a sorted backpack.
-	 * @return 	The heaviest item of a sorted backpack.
+	 * Return the heaviest item of this backpack.
+	 * @return 	The heaviest item of this backpack.
 	 * 			|return == (getContents().get(getContents().size()-1)
+	 * @throws 	NoSuchElementException
+	 * 			The backpack contains no items.
+	 * 			|getContents().isEmpty()
 	 */
-	public Item getHeaviestItem() {
-		return getContents().get(getContents().size()-1);
+	public Item getHeaviestItem() throws NoSuchElementException {
+		materialize();
+		return contents.last();
 	}
 	
-	//obtain lightest/heaviest item method 2 (introduce HashSet to iterate over elements in constant time).
+	//obtain lightest/heaviest item method 2 (unordered contents with a slot per item, extremes taken from the weight index).
 	
 	/**
-	 * HashSet defining the contents of this backpack.
+	 * ArrayList defining the contents of this backpack in no particular order.
+	 * Each item in this list registers its own position, so it can be removed in constant time.
+	 * 			|for each index in 0..constantContent.size()-1:
+	 * 			|	constantContent.get(i).contentSlot == i
 	 */
-	private HashSet<Item> constantContent = new HashSet<Item>();
+	private ArrayList<Item> constantContent = new ArrayList<Item>();
 	
 	/**
-	 * Return the contents of this backpack.
+	 * Return the contents of this backpack in no particular order.
 	 */
 	@Basic
-	public HashSet<Item> getConstantContent() {
-		return this.constantContent;
+	public Collection<Item> getConstantContent() {
+		materialize();
+		return Collections.unmodifiableList(this.constantContent);
+	}
+	
+	/**
+	 * Check whether the given item is in this backpack.
+	 * @param 	item
+	 * 			The item to be checked.
+	 * @return	True if the item is part of the contents of this backpack.
+	 * 			|result == getConstantContent().contains(item)
+	 */
+	public boolean hasAsContent(Item item) {
+		return (item != null && item.getDirectHolder() == this && item.contentSlot >= 0
+				&& item.contentSlot < constantContent.size() && constantContent.get(item.contentSlot) == item);
 	}
 	
 	/**
 	 * Return the lightest item of this backpack.
 	 * @return 	The lightest item of this backpack.
 	 * 			|for each item in constantContent;
-	 * 			|	if(item.getTotalWeight() < lightestItem.getTotalWeight())
-	 * 			|		then lightestItem == item
+	 * 			|	result.getTotalWeight() <= item.getTotalWeight()
 	 * @throws 	NoSuchElementException
 	 * 			The backpack contains no lightest item.
-	 * 			|lightestItem == null
+	 * 			|constantContent.isEmpty()
 	 */
 	public Item getLightestItem2() throws NoSuchElementException{
-		Item lightestItem = null;
-		for(Item item : constantContent) {
-			if(lightestItem == null)
-				lightestItem = item;
-			else if(item.getTotalWeight().compareTo(lightestItem.getTotalWeight()) == -1)
-				lightestItem = item;
-		}
-		if(lightestItem == null)
+		materialize();
+		if(contents.isEmpty())
 			throw new NoSuchElementException("Backpack contains no such items.");
-		return lightestItem;
+		return contents.first();
 	}
 	
 	/**
 	 * Return the heaviest item of this backpack.
 	 * @return 	The heaviest item of this backpack.
 	 * 			|for each item in constantContent;
-	 * 			|	if(item.getTotalWeight() > lightestItem.getTotalWeight())
-	 * 			|		then heaviestItem == item
+	 * 			|	result.getTotalWeight() >= item.getTotalWeight()
 	 * @throws 	NoSuchElementException
 	 * 			The backpack contains no heaviest item.
-	 * 			|heaviestItem == null
+	 * 			|constantContent.isEmpty()
 	 */
 	public Item getHeaviestItem2() throws NoSuchElementException{
-		Item heaviestItem = null;
-		for(Item item : constantContent) {
-			if(heaviestItem == null)
-				heaviestItem = item;
-			else if(item.getTotalWeight().compareTo(heaviestItem.getTotalWeight()) ==1)
-				heaviestItem = item;
-		}
-		if(heaviestItem == null)
+		materialize();
+		if(contents.isEmpty())
 			throw new NoSuchElementException("Backpack contains no such items.");
-		return heaviestItem;
+		return contents.last();
 	}
 	
 	/**
@@ -188,44 +685,90 @@ public class Backpack extends StoreItem {
 	 * 			|		then totalValue += getContents().get(i).getTotalValue()
 	 */
 	public int getTotalValue() {
-		int totalValue = this.getValue();
-		for(int i=0;i<getContents().size();i++) {
-			if (getContents().get(i) != null)
-				totalValue += getContents().get(i).getTotalValue();
-		}
-		return totalValue;
+		return this.getValue() + this.contentsValue;
 	}
 	
+	/**
+	 * Variable registering the total value of the contents of this backpack.
+	 */
+	private int contentsValue = 0;
+	
 	//CAPACITY
 	
 	/**
-	 * Variable indicating the carrying capacity.
+	 * Variable indicating the carrying capacity, in hundredths of a kilogram.
 	 */
-	private final BigDecimal carryingCapacity;
+	private final long carryingCapacity;
 	
 	/**
-	 * Return the carrying capacity.
+	 * Return the carrying capacity, in hundredths of a kilogram.
 	 */
 	@Basic
-	public BigDecimal getCarryingCapacity() {
+	public long getCarryingCapacityHundredths() {
 		return this.carryingCapacity;
 	}
 	
+	/**
+	 * Return the carrying capacity.
+	 * @return	The carrying capacity in kilograms.
+	 * 			|result == Weight.toBigDecimal(getCarryingCapacityHundredths())
+	 */
+	public BigDecimal getCarryingCapacity() {
+		return Weight.toBigDecimal(this.carryingCapacity);
+	}
+	
+	//QUERIES
+	
+	/**
+	 * Return the items of the given type held by this backpack, directly or indirectly,
+	 * of which the total weight lies within the given bounds.
+	 * @effect	| ItemQueries.byWeight(this, type, minWeight, maxWeight)
+	 */
+	public <T extends Item> Iterator<T> getItemsByWeight(Class<T> type, long minWeight, long maxWeight) throws IllegalArgumentException {
+		return ItemQueries.byWeight(this, type, minWeight, maxWeight);
+	}
+	
+	/**
+	 * Return the items of the given type held by this backpack, directly or indirectly,
+	 * of which the total value lies within the given bounds.
+	 * @effect	| ItemQueries.byValue(this, type, minValue, maxValue)
+	 */
+	public <T extends Item> Iterator<T> getItemsByValue(Class<T> type, int minValue, int maxValue) throws IllegalArgumentException {
+		return ItemQueries.byValue(this, type, minValue, maxValue);
+	}
+	
+	/**
+	 * Return the given number of heaviest items of the given type held by this backpack, directly or indirectly.
+	 * @effect	| ItemQueries.heaviest(this, type, number)
+	 */
+	public <T extends Item> Iterator<T> getHeaviestItems(Class<T> type, int number) throws IllegalArgumentException {
+		return ItemQueries.heaviest(this, type, number);
+	}
+	
+	/**
+	 * Return the given number of most valuable items of the given type held by this backpack, directly or indirectly.
+	 * @effect	| ItemQueries.mostValuable(this, type, number)
+	 */
+	public <T extends Item> Iterator<T> getMostValuableItems(Class<T> type, int number) throws IllegalArgumentException {
+		return ItemQueries.mostValuable(this, type, number);
+	}
+	
 	/**
 	 * Check if the total weight of the contents of the backpack + an extra item doesn't exceed the carrying capacity.
 	 * @param 	item
 	 * 			The item to be added to the weight.
 	 * @return	True if the total weight doesn't exceed the carrying capacity.
-	 * 			|return (getTotalWeight() - getWeight() <= getCarryingCapacity())
+	 * 			|return (getTotalWeightHundredths() + item.getWeightHundredths() <= getCarryingCapacityHundredths())
 	 */
 	public boolean hasValidTotalWeight(Item item) {
-		BigDecimal totalWeight = getTotalWeight();
-		totalWeight.subtract(getWeight());
-		return(totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == -1 || totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == 0);
+		return(getTotalWeightHundredths() + item.getWeightHundredths() <= getCarryingCapacityHundredths());
 	}
 	
 	/**
 	 * Transfer all items to a given backpack.
+	 * All items are checked and the capacity of the given backpack is checked once before anything moves.
+	 * The items are then moved in one splice: the weight index of this backpack is merged into the index of the
+	 * given backpack in linear time, and both backpacks notify their holders of the change of their totals once.
 	 * @param 	backpack
 	 * 			The backpack to transfer to.
 	 * @post		The given backpack has all items from this backpack added to it.
@@ -235,29 +778,182 @@ public class Backpack extends StoreItem {
 	 * @post		This backpack has all its item removed.
 	 * 			|new.getContents().size() == 0	
 	 * @throws	IllegalArgumentException
-	 * 			The backpack doesn't exist, or is the same as this backpack.
-	 * 			|backpack == null || this == backpack
+	 * 			The backpack doesn't exist, is the same as this backpack, or is held by this backpack.
+	 * 			|backpack == null || this == backpack || (this holds backpack, directly or indirectly)
 	 * @throws	IllegalArgumentException
 	 * 			The item shouldn't be destroyed.
 	 * 			|item.isDestroyed()==true
 	 * @throws	IllegalArgumentException
 	 * 			The new total weight of the backpack should be valid.
-	 * 			|!backpack.hasValidTotalWeight(item)
+	 * 			|backpack.getTotalWeightHundredths() + this.getTotalWeightHundredths() - this.getWeightHundredths()
+	 * 			|	> backpack.getCarryingCapacityHundredths()
 	 */
 	public void transferContents(Backpack backpack) throws IllegalArgumentException{
-		if(backpack == null || this == backpack)
+		long start = GameMetrics.start();
+		if(backpack == null || this == backpack || backpack.isHeldBy(this))
 			throw new IllegalArgumentException();
-		int size = getContents().size();
-		for(int i=0;i<size;i++) {
-			Item item = getContents().get(0);
+		materialize();
+		for (Item item : constantContent)
 			if(item instanceof Weapon)
 				if(((Weapon) item).isDestroyed() == true)
 					throw new IllegalArgumentException("Weapon is destroyed.");
-			if(!backpack.hasValidTotalWeight(item)) 
-				throw new IllegalArgumentException("Exceeds the total weight.");
-			item.removeFromBackpack();
-			item.addToBackpack(backpack);
-		}	
+		long weight = this.contentsWeight;
+		int value = this.contentsValue;
+		// If this backpack is held by the given backpack, its contents are already part of that total weight.
+		long increase = this.isHeldBy(backpack) ? 0 : weight;
+		if(backpack.getTotalWeightHundredths() + increase > backpack.getCarryingCapacityHundredths()) {
+			GameMetrics.weightRejected();
+			throw new IllegalArgumentException("Exceeds the total weight.");
+		}
+		backpack.materialize();
+		for (Item item : constantContent) {
+			item.linkHolder(backpack);
+			item.contentSlot = backpack.constantContent.size();
+			backpack.constantContent.add(item);
+		}
+		backpack.mergeIndexes(this.contents, this.weightIndex, this.valueIndex);
+		this.contents = new TreeSet<Item>(WEIGHT_ORDER);
+		this.weightIndex = newIndex(WEIGHT_ORDER);
+		this.valueIndex = newIndex(VALUE_ORDER);
+		this.constantContent = new ArrayList<Item>();
+		this.updateTotals(-weight, -value);
+		backpack.updateTotals(weight, value);
+		GameMetrics.contentsTransferred(start);
+	}
+	
+	/**
+	 * Check whether this backpack is held by the given backpack, directly or indirectly.
+	 * @param 	backpack
+	 * 			The backpack to be checked.
+	 * @return	True if the given backpack is one of the holders of this backpack.
+	 */
+	private boolean isHeldBy(Backpack backpack) {
+		for (Object holder = getDirectHolder(); holder instanceof Item; holder = ((Item) holder).getDirectHolder())
+			if (holder == backpack)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Add the items of the given weight index and type indexes to the indexes of this backpack.
+	 * The items are indexed under their current totals.
+	 */
+	private void mergeIndexes(TreeSet<Item> addedContents, TreeSet<Item>[] addedWeights, TreeSet<Item>[] addedValues) {
+		contents = merge(contents, addedContents);
+		for (int type = 0; type < INDEXED_TYPES.length; type++) {
+			weightIndex[type] = merge(weightIndex[type], addedWeights[type]);
+			valueIndex[type] = merge(valueIndex[type], addedValues[type]);
+		}
+	}
+	
+	/**
+	 * Return an index holding the items of both given indexes, which are ordered by the same comparator.
+	 * An empty index is built from the sorted items directly, a small batch is inserted item by item,
+	 * and a large batch is merged with the index in one linear pass.
+	 * @param 	index
+	 * 			The index to which the items are added. It is returned if the items are inserted one by one.
+	 * @param 	added
+	 * 			The items to be indexed.
+	 */
+	private static TreeSet<Item> merge(TreeSet<Item> index, SortedSet<Item> added) {
+		if (index.isEmpty() || added.size() < (index.size() >>> 4)) {
+			index.addAll(added);
+			return index;
+		}
+		Comparator<? super Item> order = index.comparator();
+		List<Item> merged = new ArrayList<Item>(index.size() + added.size());
+		Iterator<Item> left = index.iterator();
+		Iterator<Item> right = added.iterator();
+		Item nextLeft = left.hasNext() ? left.next() : null;
+		Item nextRight = right.hasNext() ? right.next() : null;
+		while (nextLeft != null || nextRight != null) {
+			if (nextRight == null || (nextLeft != null && order.compare(nextLeft, nextRight) <= 0)) {
+				merged.add(nextLeft);
+				nextLeft = left.hasNext() ? left.next() : null;
+			}
+			else {
+				merged.add(nextRight);
+				nextRight = right.hasNext() ? right.next() : null;
+			}
+		}
+		TreeSet<Item> result = new TreeSet<Item>(order);
+		result.addAll(new SortedList(merged, order));
+		return result;
+	}
+	
+	/**
+	 * A class of read-only views of a sorted list as a sorted set.
+	 * A tree set adds all items of an empty tree from a sorted set in linear time, using only its comparator,
+	 * size and iterator. Lookups and range views use binary search over the list.
+	 */
+	private static final class SortedList extends AbstractSet<Item> implements SortedSet<Item> {
+
+		private final List<Item> items;
+		private final Comparator<? super Item> order;
+
+		SortedList(List<Item> items, Comparator<? super Item> order) {
+			this.items = items;
+			this.order = order;
+		}
+
+		@Override
+		public Iterator<Item> iterator() {
+			return Collections.unmodifiableList(items).iterator();
+		}
+
+		@Override
+		public int size() {
+			return items.size();
+		}
+
+		@Override
+		public Comparator<? super Item> comparator() {
+			return order;
+		}
+
+		@Override
+		public Item first() {
+			if (items.isEmpty())
+				throw new NoSuchElementException();
+			return items.get(0);
+		}
+
+		@Override
+		public Item last() {
+			if (items.isEmpty())
+				throw new NoSuchElementException();
+			return items.get(items.size() - 1);
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return (object instanceof Item) && Collections.binarySearch(items, (Item) object, order) >= 0;
+		}
+
+		/**
+		 * Return the position of the first item of this view that isn't lower than the given item.
+		 */
+		private int lowerBound(Item bound) {
+			int position = Collections.binarySearch(items, bound, order);
+			return (position >= 0) ? position : -position - 1;
+		}
+
+		@Override
+		public SortedSet<Item> subSet(Item fromElement, Item toElement) {
+			if (order.compare(fromElement, toElement) > 0)
+				throw new IllegalArgumentException("Lower bound is higher than upper bound.");
+			return new SortedList(items.subList(lowerBound(fromElement), lowerBound(toElement)), order);
+		}
+
+		@Override
+		public SortedSet<Item> headSet(Item toElement) {
+			return new SortedList(items.subList(0, lowerBound(toElement)), order);
+		}
+
+		@Override
+		public SortedSet<Item> tailSet(Item fromElement) {
+			return new SortedList(items.subList(lowerBound(fromElement), items.size()), order);
+		}
 	}
 	
 	/**
@@ -276,6 +972,67 @@ public class Backpack extends StoreItem {
 		}
 	}
 	
+	/**
+	 * Add all given items to this backpack at once, or none of them.
+	 * All items are checked before any of them is moved, so a failing check leaves every item where it was.
+	 * The combined total weight of the items is checked once against the carrying capacity, the items are
+	 * detached from the monsters holding them, indexed in one batch, and the holder of this backpack is notified
+	 * of the change of its totals only once.
+	 * @param 	items
+	 * 			The items to be added.
+	 * @post	This backpack contains all given items.
+	 * 			|for each item in items:
+	 * 			|	new.hasAsContent(item) && (new item).getDirectHolder() == this
+	 * @throws	IllegalArgumentException
+	 * 			The items don't exist, or one of them doesn't exist, is this backpack or is given twice.
+	 * 			|items == null || items.contains(null) || items.contains(this)
+	 * @throws	IllegalArgumentException
+	 * 			One of the items is a destroyed weapon, already belongs to a backpack or holds this backpack.
+	 * 			|for some item in items:
+	 * 			|	(item instanceof Weapon && item.isDestroyed()) || item.getDirectHolder() instanceof Backpack
+	 * @throws	IllegalArgumentException
+	 * 			The total weight of this backpack with all items added exceeds the carrying capacity.
+	 * 			|getTotalWeightHundredths() + sum(item.getTotalWeightHundredths() for item in items) > getCarryingCapacityHundredths()
+	 */
+	public void addAllItems(Collection<? extends Item> items) throws IllegalArgumentException {
+		if (items == null)
+			throw new IllegalArgumentException("Items do not exist.");
+		Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+		long weight = 0;
+		int value = 0;
+		for (Item item : items) {
+			if (item == null || item == this || !seen.add(item))
+				throw new IllegalArgumentException("Not a valid item.");
+			if (item instanceof Weapon && ((Weapon) item).isDestroyed())
+				throw new IllegalArgumentException("Weapon is destroyed.");
+			if (item.getDirectHolder() instanceof Backpack)
+				throw new IllegalArgumentException("Cannot add items from backpack.");
+			weight += item.getTotalWeightHundredths();
+			value += item.getTotalValue();
+		}
+		for (Object holder = getDirectHolder(); holder instanceof Item; holder = ((Item) holder).getDirectHolder())
+			if (seen.contains(holder))
+				throw new IllegalArgumentException("Cannot add a holder of this backpack.");
+		if (getTotalWeightHundredths() + weight > getCarryingCapacityHundredths()) {
+			GameMetrics.weightRejected();
+			throw new IllegalArgumentException("Exceeds the total weight.");
+		}
+		materialize();
+		TreeSet<Item> batch = new TreeSet<Item>(WEIGHT_ORDER);
+		TreeSet<Item>[] batchWeights = newIndex(WEIGHT_ORDER);
+		TreeSet<Item>[] batchValues = newIndex(VALUE_ORDER);
+		for (Item item : items) {
+			if (item.getDirectHolder() instanceof Monster)
+				((Monster) item.getDirectHolder()).setItemToNull(item);
+			item.linkHolder(this);
+			item.contentSlot = constantContent.size();
+			constantContent.add(item);
+			index(item, batch, batchWeights, batchValues);
+		}
+		mergeIndexes(batch, batchWeights, batchValues);
+		updateTotals(weight, value);
+	}
+	
 	/**
 	 * Remove the specified items from this backpack.
 	 * @param 	items
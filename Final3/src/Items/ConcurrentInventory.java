@@ -0,0 +1,314 @@
+package Items;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import RPG3.Monster;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of inventories through which several threads can move items between monsters and backpacks at the same time.
+ * Every move locks the roots of the item and of its destination. The root of an object is the monster
+ * holding it directly or indirectly, or else the outermost backpack holding it, or else the object itself.
+ * Roots are mapped onto a fixed number of striped locks, and the locks of a move are always taken in increasing
+ * order of their stripe, so moves touching several roots are atomic and can't deadlock.
+ * Moves on unrelated monsters mostly take different stripes and don't wait for each other.
+ * The totals of a monster can be read at any time without locking.
+ * Items and holders shared between threads must only be changed through the same concurrent inventory,
+ * and purses shared between threads must be registered with it.
+ * @invar	The number of stripes must be valid.
+ * 			| isValidNbStripes(getNbStripes())
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class ConcurrentInventory {
+
+	/**
+	 * Initialize a new concurrent inventory with the given number of stripes.
+	 * @param 	nbStripes
+	 * 			The number of locks over which the roots are spread.
+	 * @post	The number of stripes of this new inventory is the given number.
+	 * 			| new.getNbStripes() == nbStripes
+	 * @throws	IllegalArgumentException
+	 * 			The number of stripes isn't valid.
+	 * 			| !isValidNbStripes(nbStripes)
+	 */
+	public ConcurrentInventory(int nbStripes) throws IllegalArgumentException {
+		if (!isValidNbStripes(nbStripes))
+			throw new IllegalArgumentException("Not a valid number of stripes.");
+		this.stripes = new ReentrantLock[nbStripes];
+		for (int i = 0; i < nbStripes; i++)
+			this.stripes[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Initialize a new concurrent inventory with the default number of stripes.
+	 * @effect	The inventory is initialized with the default number of stripes.
+	 * 			| this(DEFAULT_NB_STRIPES)
+	 */
+	public ConcurrentInventory() {
+		this(DEFAULT_NB_STRIPES);
+	}
+
+	//STRIPES
+
+	/**
+	 * Variable registering the default number of stripes.
+	 */
+	public final static int DEFAULT_NB_STRIPES = 256;
+
+	/**
+	 * List of locks over which the roots are spread.
+	 */
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Return the number of locks over which the roots are spread.
+	 */
+	@Basic
+	public int getNbStripes() {
+		return this.stripes.length;
+	}
+
+	/**
+	 * Check if the given number of stripes is valid.
+	 * @param 	nbStripes
+	 * 			The number of stripes to be checked.
+	 * @return	True if the number of stripes is strictly positive.
+	 * 			| return == (nbStripes > 0)
+	 */
+	public static boolean isValidNbStripes(int nbStripes) {
+		return (nbStripes > 0);
+	}
+
+	/**
+	 * Return the stripe of the given root.
+	 */
+	private int stripeOf(Object root) {
+		int hash = System.identityHashCode(root);
+		hash ^= (hash >>> 16);
+		return (hash & 0x7fffffff) % stripes.length;
+	}
+
+	/**
+	 * Return the root of the given object.
+	 * @return	The monster holding the object directly or indirectly, or else the outermost backpack
+	 * 			holding it, or else the object itself.
+	 */
+	static Object rootOf(Object object) {
+		if (object instanceof Item && ((Item) object).getIndirectHolder() != null)
+			return ((Item) object).getIndirectHolder();
+		while (object instanceof Item && ((Item) object).getDirectHolder() != null)
+			object = ((Item) object).getDirectHolder();
+		return object;
+	}
+
+	//PURSES
+
+	/**
+	 * Variable referencing the inventory through which purses change their content until they are registered
+	 * with another inventory.
+	 */
+	final static ConcurrentInventory DEFAULT = new ConcurrentInventory();
+
+	/**
+	 * Let the given purse change its content and value while holding the lock of its root in this inventory.
+	 * Changes of the content of the purse are then atomic with the moves of this inventory, also when
+	 * they move the monster or the backpacks holding the purse.
+	 * @param 	purse
+	 * 			The purse to be registered.
+	 * @post	| (new purse).getInventory() == this
+	 * @throws	IllegalArgumentException
+	 * 			The purse doesn't exist.
+	 * 			| purse == null
+	 */
+	public void register(Purse purse) throws IllegalArgumentException {
+		if (purse == null)
+			throw new IllegalArgumentException("Purse does not exist.");
+		purse.setInventory(this);
+	}
+
+	//MOVES
+
+	/**
+	 * Run the given move while holding the locks of the roots of the given objects.
+	 * @effect	| locked(first, second, () -> { move.run(); return null; })
+	 */
+	void locked(Object first, Object second, final Runnable move) {
+		locked(first, second, () -> {
+			move.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Run the given action while holding the locks of the roots of the given objects, and return its result.
+	 * The roots are computed again once the locks are held, and the locks are taken again
+	 * if another thread moved one of the objects in the meantime.
+	 * @param	second
+	 * 			The second object, or null if only the root of the first object is locked.
+	 */
+	<T> T locked(Object first, Object second, Supplier<T> action) {
+		return locked(new Object[] {first, second}, action);
+	}
+
+	/**
+	 * Run the given action while holding the locks of the roots of all given objects, and return its result.
+	 * The roots are computed again once the locks are held, and the locks are taken again
+	 * if another thread moved one of the objects in the meantime.
+	 * @param	objects
+	 * 			The objects of which the roots are locked. Null objects are skipped.
+	 */
+	private <T> T locked(Object[] objects, Supplier<T> action) {
+		while (true) {
+			int[] taken = sortedStripes(objects);
+			for (int stripe : taken)
+				stripes[stripe].lock();
+			try {
+				if (Arrays.equals(taken, sortedStripes(objects)))
+					return action.get();
+			}
+			finally {
+				for (int i = taken.length - 1; i >= 0; i--)
+					stripes[taken[i]].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Return the distinct stripes of the roots of the given objects in increasing order, skipping null objects.
+	 */
+	private int[] sortedStripes(Object[] objects) {
+		int[] found = new int[objects.length];
+		int nbFound = 0;
+		for (Object object : objects)
+			if (object != null)
+				found[nbFound++] = stripeOf(rootOf(object));
+		Arrays.sort(found, 0, nbFound);
+		int nbDistinct = 0;
+		for (int i = 0; i < nbFound; i++)
+			if (nbDistinct == 0 || found[i] != found[nbDistinct - 1])
+				found[nbDistinct++] = found[i];
+		return Arrays.copyOf(found, nbDistinct);
+	}
+
+	/**
+	 * Attach the given item to the given monster, as one atomic move.
+	 * @effect	| item.obtain(monster)
+	 */
+	public void obtain(final Item item, final Monster monster) throws IllegalArgumentException {
+		checkExists(item, monster);
+		locked(item, monster, () -> item.obtain(monster));
+	}
+
+	/**
+	 * Attach the given item to the given monster at the given anchor, as one atomic move.
+	 * @effect	| item.obtain(monster, index)
+	 */
+	public void obtain(final Item item, final Monster monster, final int index) throws IllegalArgumentException {
+		checkExists(item, monster);
+		locked(item, monster, () -> item.obtain(monster, index));
+	}
+
+	/**
+	 * Transfer the given item to the given monster, as one atomic move.
+	 * @effect	| item.transfer(monster)
+	 */
+	public void transfer(final Item item, final Monster monster) throws IllegalArgumentException {
+		checkExists(item, monster);
+		locked(item, monster, () -> item.transfer(monster));
+	}
+
+	/**
+	 * Transfer the given item to the given monster at the given anchor, as one atomic move.
+	 * @effect	| item.transfer(monster, index)
+	 */
+	public void transfer(final Item item, final Monster monster, final int index) throws IllegalArgumentException {
+		checkExists(item, monster);
+		locked(item, monster, () -> item.transfer(monster, index));
+	}
+
+	/**
+	 * Add the given item to the given backpack, as one atomic move.
+	 * @effect	| item.addToBackpack(backpack)
+	 */
+	public void addToBackpack(final Item item, final Backpack backpack) throws IllegalArgumentException {
+		checkExists(item, backpack);
+		locked(item, backpack, () -> item.addToBackpack(backpack));
+	}
+
+	/**
+	 * Remove the given item from the backpack holding it, as one atomic move.
+	 * @effect	| item.removeFromBackpack()
+	 */
+	public void removeFromBackpack(final Item item) throws IllegalArgumentException {
+		checkExists(item, item);
+		locked(item, null, () -> item.removeFromBackpack());
+	}
+
+	/**
+	 * Detach the given item from the monster holding it, as one atomic move.
+	 * @effect	| monster.setItemToNull(item)
+	 */
+	public void setItemToNull(final Monster monster, final Item item) throws IllegalArgumentException {
+		checkExists(item, monster);
+		locked(item, monster, () -> monster.setItemToNull(item));
+	}
+
+	/**
+	 * Add all given items to the given backpack at once, or none of them, as one atomic move.
+	 * The roots of the backpack and of every item are locked, so the items can come from any number of holders.
+	 * @effect	| backpack.addAllItems(items)
+	 * @throws	IllegalArgumentException
+	 * 			| backpack == null || items == null
+	 */
+	public void addAllItems(final Backpack backpack, Collection<? extends Item> items) throws IllegalArgumentException {
+		if (backpack == null || items == null)
+			throw new IllegalArgumentException("Backpack or items do not exist.");
+		final Item[] moved = items.toArray(new Item[items.size()]);
+		Object[] objects = Arrays.copyOf(moved, moved.length + 1, Object[].class);
+		objects[moved.length] = backpack;
+		locked(objects, () -> {
+			backpack.addAllItems(Arrays.asList(moved));
+			return null;
+		});
+	}
+
+	/**
+	 * Move all items attached to the given loser into the first backpack of the given winner, as one atomic move.
+	 * @effect	| winner.loot(loser)
+	 * @throws	IllegalArgumentException
+	 * 			| winner == null || loser == null
+	 */
+	public List<Item> loot(final Monster winner, final Monster loser) throws IllegalArgumentException {
+		if (winner == null || loser == null)
+			throw new IllegalArgumentException("Monster does not exist.");
+		return locked(winner, loser, () -> winner.loot(loser));
+	}
+
+	/**
+	 * Transfer all items of the given source to the given target, as one atomic move.
+	 * @effect	| source.transferContents(target)
+	 */
+	public void transferContents(final Backpack source, final Backpack target) throws IllegalArgumentException {
+		checkExists(source, target);
+		locked(source, target, () -> source.transferContents(target));
+	}
+
+	/**
+	 * Check that the given item and holder exist.
+	 * @throws	IllegalArgumentException
+	 * 			| item == null || holder == null
+	 */
+	private static void checkExists(Item item, Object holder) throws IllegalArgumentException {
+		if (item == null)
+			throw new IllegalArgumentException("Item does not exist.");
+		if (holder == null)
+			throw new IllegalArgumentException("Holder does not exist.");
+	}
+
+}
@@ -0,0 +1,22 @@
+package Items;
+
+import java.util.List;
+
+/**
+ * An interface for sources from which the contents of a lazily loaded backpack are materialized.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+interface ContentLoader {
+
+	/**
+	 * Return new items with the state of the stored contents of a backpack.
+	 * The items don't have a holder yet: the backpack only attaches them once all of them are loaded,
+	 * so a loader that fails leaves the backpack unchanged.
+	 * @return	A new item for every stored item, without a holder.
+	 * 			| for each item in result: item.getDirectHolder() == null
+	 */
+	List<Item> loadContents();
+
+}
@@ -0,0 +1,102 @@
+package Items;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class of allocators handing out the IDs of a sequence first, first + step, first + 2*step, ...
+ * Every thread reserves a block of consecutive positions in the sequence with a single atomic
+ * increment and hands out the IDs of that block without any further synchronization, so items
+ * can be created in parallel without contention and without duplicate IDs.
+ * IDs are unique, but IDs handed out by different threads are not ordered on the time they were created.
+ * @invar	The step must be strictly positive.
+ * 			| step > 0
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+final class IdAllocator {
+
+	/**
+	 * Variable registering the number of IDs a thread reserves at once.
+	 */
+	final static int BLOCK_SIZE = 1024;
+
+	/**
+	 * Initialize a new allocator for the sequence starting at the given ID with the given step.
+	 * @param 	first
+	 * 			The first ID of the sequence.
+	 * @param 	step
+	 * 			The difference between two consecutive IDs of the sequence.
+	 * @throws	IllegalArgumentException
+	 * 			The step isn't strictly positive.
+	 * 			| step <= 0
+	 */
+	IdAllocator(long first, long step) throws IllegalArgumentException {
+		if (step <= 0)
+			throw new IllegalArgumentException("Not a valid step.");
+		this.first = first;
+		this.step = step;
+	}
+
+	/**
+	 * Variables registering the first ID and the step of the sequence.
+	 */
+	private final long first;
+	private final long step;
+
+	/**
+	 * Variable registering the position in the sequence of the next block to be reserved.
+	 */
+	private final AtomicLong nextBlock = new AtomicLong();
+
+	/**
+	 * Variable referencing, for every thread, the next position and the end of the block it reserved.
+	 */
+	private final ThreadLocal<long[]> block = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[2];
+		}
+	};
+
+	/**
+	 * Return a new ID of the sequence.
+	 * @return	An ID of the sequence that hasn't been returned before.
+	 * 			| for some k >= 0: result == first + k*step
+	 * @throws	ArithmeticException
+	 * 			The sequence has run out of IDs that fit in a long.
+	 */
+	long next() throws ArithmeticException {
+		long[] range = block.get();
+		if (range[0] == range[1]) {
+			long start = nextBlock.getAndAdd(BLOCK_SIZE);
+			Math.addExact(first, Math.multiplyExact(start + BLOCK_SIZE, step));
+			range[0] = start;
+			range[1] = start + BLOCK_SIZE;
+		}
+		return first + step * range[0]++;
+	}
+
+	/**
+	 * Make sure the given ID of the sequence is never handed out by a block reserved after this call.
+	 * An ID restored from a snapshot is reserved so new items don't get the same ID.
+	 * IDs in blocks reserved before this call aren't affected, so an ID of an item created earlier in the same run
+	 * may be restored next to it.
+	 * @param 	id
+	 * 			The ID to be reserved.
+	 * @throws	IllegalArgumentException
+	 * 			The ID isn't part of the sequence.
+	 * 			| for each k >= 0: id != first + k*step
+	 */
+	void reserve(long id) throws IllegalArgumentException {
+		if (id < first || (id - first) % step != 0)
+			throw new IllegalArgumentException("Not an ID of this sequence.");
+		long position = (id - first) / step;
+		long end = (position / BLOCK_SIZE + 1) * BLOCK_SIZE;
+		long next;
+		do {
+			next = nextBlock.get();
+		} while (next < end && !nextBlock.compareAndSet(next, end));
+	}
+
+}
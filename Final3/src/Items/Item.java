@@ -1,7 +1,9 @@
 package Items;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
 
+import Monitoring.GameMetrics;
 import RPG3.Monster;
 import be.kuleuven.cs.som.annotate.Basic;
 /**
@@ -28,19 +30,43 @@ public abstract class Item {
 	 * 			Value of the new item.
 	 * @post		The ID of this new item is equal to the generated ID.
 	 * 			|new.getId() == createId()
-	 * @post		The weight of this new item is equal to the given weight.
-	 * 			|new.getWeight() == weight
+	 * @post		The weight of this new item is equal to the given weight, in hundredths of a kilogram.
+	 * 			|new.getWeightHundredths() == Weight.fromKilograms(weight)
 	 * @post		The value of this new item is equal to the given value.
 	 * 			|new.getValue() == value
 	 * @throws 	IllegalArgumentException
 	 * 			The weight of the new item isn't valid.
 	 * 			|!isValidWeight(weight)
+	 * @throws	ArithmeticException
+	 * 			The weight has more than two decimals.
 	 */
 	public Item (double weight, int value) throws IllegalArgumentException {
 		this.id = createId();
 		if(!isValidWeight(weight))
 			throw new IllegalArgumentException("Not a valid weight");
-		this.weight = new BigDecimal(String.valueOf(weight)).setScale(2);
+		this.weight = Weight.fromKilograms(weight);
+		setValue(value);
+	}
+
+	/**
+	 * Initialize a new item restored from a snapshot, with the given ID, weight and value.
+	 * The ID isn't created, so it must be reserved by the allocator of the subclass.
+	 * @param 	id
+	 * 			The ID of the new item.
+	 * @param 	weight
+	 * 			The weight of the new item, in hundredths of a kilogram.
+	 * @param 	value
+	 * 			The value of the new item.
+	 * @post	| new.getId() == id && new.getWeightHundredths() == weight && new.getValue() == value
+	 * @throws 	IllegalArgumentException
+	 * 			The weight or value of the new item isn't valid.
+	 * 			| weight < 0 || !isValidValue(value)
+	 */
+	Item(long id, long weight, int value) throws IllegalArgumentException {
+		this.id = id;
+		if (weight < 0)
+			throw new IllegalArgumentException("Not a valid weight");
+		this.weight = weight;
 		setValue(value);
 	}
 
@@ -51,6 +77,31 @@ public abstract class Item {
 	 */
 	private final long id; 
 	
+	/**
+	 * Variable referencing the allocator of the serial numbers of items.
+	 */
+	private final static IdAllocator serials = new IdAllocator(0, 1);
+	
+	/**
+	 * Variable registering the serial number of this item, which is unique to every item created in this run.
+	 * Items restored from a snapshot keep their ID, so two items can have the same ID and class if the same
+	 * snapshot is loaded twice. The indexes order such items on their serial number.
+	 */
+	final long serial = serials.next();
+	
+	/**
+	 * Compare the given items on their ID, then on the name of their class, then on their serial number.
+	 * @return	0 if and only if both items are the same item.
+	 */
+	static int compareIdentities(Item item1, Item item2) {
+		int result = Long.compare(item1.getId(), item2.getId());
+		if (result == 0 && item1.getClass() != item2.getClass())
+			result = item1.getClass().getName().compareTo(item2.getClass().getName());
+		if (result == 0)
+			result = Long.compare(item1.serial, item2.serial);
+		return result;
+	}
+	
 	/**
 	 * Create the ID of this item.
 	 * @return The ID of this item.
@@ -66,23 +117,58 @@ public abstract class Item {
 	}
 	
 	/**
-	 * Variable indicating the weight of this item.
+	 * Variable indicating the weight of this item, in hundredths of a kilogram.
 	 */
-	protected final BigDecimal weight;
+	protected final long weight;
 	
 	/**
-	 * Return the weight of this item.
+	 * Return the weight of this item, in hundredths of a kilogram.
 	 */
 	@Basic
-	public BigDecimal getWeight() {
+	public long getWeightHundredths() {
 		return this.weight;
 	}
 	
 	/**
-	 * Return the total weight of this item.
+	 * Return the weight of this item.
+	 * @return	The weight of this item in kilograms.
+	 * 			|result == Weight.toBigDecimal(getWeightHundredths())
+	 */
+	public BigDecimal getWeight() {
+		return Weight.toBigDecimal(this.weight);
+	}
+	
+	/**
+	 * Variable registering the total weight under which this item is indexed by the backpack holding it,
+	 * in hundredths of a kilogram.
+	 */
+	long indexedWeight;
+	
+	/**
+	 * Variable registering the total value under which this item is indexed by the backpack holding it.
+	 */
+	int indexedValue;
+	
+	/**
+	 * Variable registering the position of this item in the constant content of the backpack holding it,
+	 * or -1 if this item isn't held by a backpack.
+	 */
+	int contentSlot = -1;
+	
+	/**
+	 * Return the total weight of this item, in hundredths of a kilogram.
 	 */
 	@Basic
-	public abstract BigDecimal getTotalWeight();
+	public abstract long getTotalWeightHundredths();
+	
+	/**
+	 * Return the total weight of this item.
+	 * @return	The total weight of this item in kilograms.
+	 * 			|result == Weight.toBigDecimal(getTotalWeightHundredths())
+	 */
+	public BigDecimal getTotalWeight() {
+		return Weight.toBigDecimal(getTotalWeightHundredths());
+	}
 	
 	/**
 	 * Check if the weight of this item is valid.
@@ -121,7 +207,9 @@ public abstract class Item {
 	public void setValue(int newValue) throws IllegalArgumentException{
 		if(!isValidValue(newValue)) 
 			throw new IllegalArgumentException("Not a valid value");
+		int valueDelta = newValue - this.value;
 		this.value = newValue;
+		fireTotalsChanged(0, valueDelta);
 	}
 	
 	/**
@@ -141,11 +229,47 @@ public abstract class Item {
 	@Basic
 	public abstract int getTotalValue();
 	
+	/**
+	 * Notify the direct holder of this item that the total weight or total value of this item changed.
+	 * @param 	weightDelta
+	 * 			The change of the total weight of this item, in hundredths of a kilogram.
+	 * @param 	valueDelta
+	 * 			The change of the total value of this item.
+	 * The change is passed up the chain of holding backpacks in a loop rather than by recursion,
+	 * so backpacks can be nested arbitrarily deep.
+	 * @effect	Every backpack holding this item, directly or indirectly, updates its totals.
+	 * 			|for each backpack holding this item, with item the content of backpack holding this item:
+	 * 			|	backpack.contentChanged(item, weightDelta, valueDelta)
+	 * @effect	If a monster holds this item, directly or through backpacks, the monster updates its totals.
+	 * 			|if (getIndirectHolder() instanceof Monster)
+	 * 			|	then monster.itemChanged(weightDelta, valueDelta)
+	 */
+	protected void fireTotalsChanged(long weightDelta, int valueDelta) {
+		if (weightDelta == 0 && valueDelta == 0)
+			return;
+		Item item = this;
+		while (item.directHolder instanceof Backpack) {
+			Backpack backpack = (Backpack) item.directHolder;
+			backpack.contentChanged(item, weightDelta, valueDelta);
+			item = backpack;
+		}
+		if (item.directHolder instanceof Monster)
+			((Monster) item.directHolder).itemChanged(weightDelta, valueDelta);
+	}
+	
 	/**
 	 * Object indicating the direct holder of this item.
 	 */
 	protected Object directHolder = null;
 	
+	/**
+	 * Variable referencing the monster holding this item, directly or through nested backpacks,
+	 * or null if this item isn't held by a monster.
+	 * 			|owner == (getDirectHolder() instanceof Monster ? getDirectHolder()
+	 * 			|	: getDirectHolder() instanceof Item ? ((Item) getDirectHolder()).owner : null)
+	 */
+	private Monster owner = null;
+	
 	/**
 	 * Return the direct holder of this item.
 	 */
@@ -177,12 +301,52 @@ public abstract class Item {
 			throw new IllegalArgumentException();
 		if (!canHaveDirectHolder())
 			throw new IllegalArgumentException();
-		this.directHolder = object;
-			
+		linkHolder(object);
+	}
+	
+	/**
+	 * Make the given object the direct holder of this item, without any checks, and update the monster
+	 * holding this item and everything in it.
+	 * @param 	holder
+	 * 			The new direct holder of this item, or null.
+	 * @post	| new.getDirectHolder() == holder
+	 * @effect	| updateOwner(holder instanceof Monster ? holder : holder instanceof Item ? ((Item) holder).owner : null)
+	 */
+	void linkHolder(Object holder) {
+		this.directHolder = holder;
+		if (holder instanceof Monster)
+			updateOwner((Monster) holder);
+		else if (holder instanceof Item)
+			updateOwner(((Item) holder).owner);
+		else
+			updateOwner(null);
+	}
+	
+	/**
+	 * Make the given monster the owner of this item and of all items held by it, directly or indirectly.
+	 * The owner of every item in a subtree is the same, so nothing is done if this item already has the given owner.
+	 * The subtree is walked without recursion, so deep nesting can't overflow the stack.
+	 * @param 	newOwner
+	 * 			The monster now holding this item, or null.
+	 */
+	private void updateOwner(Monster newOwner) {
+		if (this.owner == newOwner)
+			return;
+		ArrayDeque<Item> pending = new ArrayDeque<Item>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			Item item = pending.pop();
+			item.owner = newOwner;
+			if (item instanceof Backpack)
+				for (Item content : ((Backpack) item).getLoadedContents())
+					pending.push(content);
+		}
 	}
 	
 	/**
 	 * Get the indirect holder of the given object.
+	 * The monster holding every item is kept up to date whenever an item or a backpack holding it moves,
+	 * so this takes constant time however deeply the item is nested.
 	 * @param 	object
 	 * 			The item of which the indirect holder will be returned.
 	 * @return	Null if the item doesn't have a direct holder.
@@ -195,11 +359,17 @@ public abstract class Item {
 	 * 			|return == getIndirectHolder(object.getDirectHolder())
 	 */
 	public Monster getIndirectHolder(Item object) {
-		if(object == null || ! (object.getDirectHolder() instanceof Backpack) && ! (object.getDirectHolder() instanceof Monster))
+		if(object == null)
 			return null;
-		if(object.getDirectHolder().getClass().isAssignableFrom(Monster.class))
-			return ((Monster) object.getDirectHolder());
-		return getIndirectHolder((Item) (object.getDirectHolder()));
+		return object.owner;
+	}
+	
+	/**
+	 * Return the monster holding this item, directly or through nested backpacks.
+	 * @return	| result == getIndirectHolder(this)
+	 */
+	public Monster getIndirectHolder() {
+		return this.owner;
 	}
 	
 	/**
@@ -222,13 +392,19 @@ public abstract class Item {
 	 * 			|isDestroyed() == true
 	 */
 	public void obtain(Monster monster) {
-		if (monster == null || !canHaveDirectHolder() || !monster.canHaveItem() || !monster.isValidTotalWeight(this))
+		long start = GameMetrics.start();
+		if (monster == null || !canHaveDirectHolder() || !monster.canHaveItem())
+			throw new IllegalArgumentException();
+		if (!monster.isValidTotalWeight(this)) {
+			GameMetrics.weightRejected();
 			throw new IllegalArgumentException();
+		}
 		if(this instanceof Weapon)
 			if(((Weapon) this).isDestroyed() == true)
 				throw new IllegalArgumentException();
 		setDirectHolder(monster);
 		monster.setItem(this);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -251,13 +427,19 @@ public abstract class Item {
 	 * 			|isDestroyed() == true
 	 */
 	public void obtain(Monster monster, int index) {
-		if (monster == null || !canHaveDirectHolder() || !monster.canHaveItem(index) || !monster.isValidTotalWeight(this))
+		long start = GameMetrics.start();
+		if (monster == null || !canHaveDirectHolder() || !monster.canHaveItem(index))
 			throw new IllegalArgumentException();
+		if (!monster.isValidTotalWeight(this)) {
+			GameMetrics.weightRejected();
+			throw new IllegalArgumentException();
+		}
 		if(this instanceof Weapon)
 			if(((Weapon) this).isDestroyed() == true)
 				throw new IllegalArgumentException();
 		setDirectHolder(monster);
 		monster.setItem(this, index);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -275,11 +457,13 @@ public abstract class Item {
 	 * 			|monster == null || !monster.canHaveItem() || !canBeTransferred(this)
 	 */
 	public void transfer(Monster monster) throws IllegalArgumentException{
+		long start = GameMetrics.start();
 		if(monster == null || !monster.canHaveItem() || !canBeTransferred())
 			throw new IllegalArgumentException();
 		((Monster) getDirectHolder()).setItemToNull(this);
 		setDirectHolder(monster);
 		monster.setItem(this);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -297,11 +481,13 @@ public abstract class Item {
 	 * 			|monster == null || !monster.canHaveItem(index) || !canBeTransferred(this)
 	 */
 	public void transfer(Monster monster, int index) throws IllegalArgumentException{
+		long start = GameMetrics.start();
 		if(monster == null || !monster.canHaveItem(index) || !canBeTransferred())
 			throw new IllegalArgumentException();
 		((Monster) getDirectHolder()).setItemToNull(this);
 		setDirectHolder(monster);
 		monster.setItem(this, index);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -326,7 +512,7 @@ public abstract class Item {
 	 * 			|	backpack.getContents().get(i) == item
 	 * @post		The contents of the backpack are sorted from lowest to highest weight.
 	 * 			|for each index in 0..backpack.getContents().size()-2:
-	 * 			|	backpack.getContents().get(i).getTotalWeight() < backpack.getContents().get(i+1).getTotalWeight()
+	 * 			|	backpack.getContents().get(i).getTotalWeightHundredths() <= backpack.getContents().get(i+1).getTotalWeightHundredths()
 	 * @throws 	IllegalArgumentException
 	 * 			This item is destroyed.
 	 * 			|this.isDestroyed() == true
@@ -341,24 +527,26 @@ public abstract class Item {
 	 * 			|backpack == null
 	 */
 	public void addToBackpack(Backpack backpack) throws IllegalArgumentException{
+		long start = GameMetrics.start();
 		if(backpack == null)
 			throw new IllegalArgumentException("Backpack does not exist.");
 		if(this instanceof Weapon)
 			if(((Weapon) this).isDestroyed() == true)
 				throw new IllegalArgumentException("Weapon is destroyed.");
-		if(!backpack.hasValidTotalWeight(this)) 
+		if(!backpack.hasValidTotalWeight(this)) {
+			GameMetrics.weightRejected();
 			throw new IllegalArgumentException("Exceeds the total weight.");
+		}
 		if(this.directHolder instanceof Backpack)
 			throw new IllegalArgumentException("Cannot add items from backpack.");
 		if(this.directHolder instanceof Monster) {
 			((Monster) this.directHolder).setItemToNull(this);
 			if(this.directHolder != null)
-				this.directHolder = null;
+				linkHolder(null);
 		}	
 		setDirectHolder(backpack);
-		((Backpack) getDirectHolder()).getContents().add(this);
-		backpack.sortContentWeight();
-		((Backpack) getDirectHolder()).getConstantContent().add(this);
+		backpack.addContent(this);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -373,14 +561,12 @@ public abstract class Item {
 	 * 			|!(this.getDirectHolder() instanceof Backpack)
 	 */
 	public void removeFromBackpack() throws IllegalArgumentException{
+		long start = GameMetrics.start();
 		if(! (this.directHolder instanceof Backpack))
 			throw new IllegalArgumentException("Item is not contained in this backpack.");
-		for(int i=0; i<((Backpack)this.directHolder).getContents().size();i++) {
-			if (((Backpack)this.directHolder).getContents().get(i) == this)
-				((Backpack)this.directHolder).getContents().remove(i);
-		}	
-		((Backpack) getDirectHolder()).getConstantContent().remove(this);
-		this.directHolder = null;
+		((Backpack) getDirectHolder()).removeContent(this);
+		linkHolder(null);
+		GameMetrics.itemMoved(start);
 	}
 	
 	/**
@@ -409,6 +595,6 @@ public abstract class Item {
 	 * 			|this.getDirectHolder() == null
 	 */
 	public void setHolderToNull() {
-		this.directHolder = null;
+		linkHolder(null);
 	}
 }
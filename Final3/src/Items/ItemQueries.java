@@ -0,0 +1,423 @@
+package Items;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A class of static methods querying items on their total weight, total value and type.
+ * A query covers the given items and everything held by the backpacks among them, however deeply nested.
+ * It is answered from the indexes every backpack keeps of its contents per type, and from the bounds every backpack
+ * keeps on the total weights and values of the items it holds, however deeply. The backpacks are searched best first
+ * while the resulting iterator is consumed: a backpack is only entered once its bounds show it can hold the next
+ * item, subtrees without matching items are skipped, and the ranges of the indexes of the entered backpacks, found in
+ * logarithmic time, are merged lazily, so no list of results is ever copied.
+ * The resulting iterators don't support removal, and shouldn't be used after the queried items change.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class ItemQueries {
+
+	/**
+	 * This class can't be instantiated.
+	 */
+	private ItemQueries() {
+	}
+
+	/**
+	 * Comparator ordering items from lowest to highest total weight, then on their ID.
+	 * Items held by a backpack are indexed under their total weight, so this order agrees with the weight indexes.
+	 */
+	private final static Comparator<Item> BY_WEIGHT = new Comparator<Item>() {
+		@Override
+		public int compare(Item item1, Item item2) {
+			int result = Long.compare(item1.getTotalWeightHundredths(), item2.getTotalWeightHundredths());
+			return (result != 0) ? result : compareIds(item1, item2);
+		}
+	};
+
+	/**
+	 * Comparator ordering items from lowest to highest total value, then on their ID.
+	 * Items held by a backpack are indexed under their total value, so this order agrees with the value indexes.
+	 */
+	private final static Comparator<Item> BY_VALUE = new Comparator<Item>() {
+		@Override
+		public int compare(Item item1, Item item2) {
+			int result = Integer.compare(item1.getTotalValue(), item2.getTotalValue());
+			return (result != 0) ? result : compareIds(item1, item2);
+		}
+	};
+
+	/**
+	 * Compare the given items on their ID, the name of their class and their serial number.
+	 */
+	private static int compareIds(Item item1, Item item2) {
+		return Item.compareIdentities(item1, item2);
+	}
+
+	//RANGE QUERIES
+
+	/**
+	 * Return the items of the given type among the given items and in the backpacks among them,
+	 * of which the total weight lies within the given bounds.
+	 * @param 	roots
+	 * 			The items to be queried, for example the anchors of a monster. Null elements are ignored.
+	 * @param 	type
+	 * 			The type of the items to be returned, for example Item.class, Weapon.class or StoreItem.class.
+	 * @param 	minWeight
+	 * 			The lowest total weight, in hundredths of a kilogram.
+	 * @param 	maxWeight
+	 * 			The highest total weight, in hundredths of a kilogram.
+	 * @return	An iterator over all matching items, from lowest to highest total weight.
+	 * 			| for each item in result:
+	 * 			|	type.isInstance(item) && minWeight <= item.getTotalWeightHundredths() <= maxWeight
+	 * @throws	IllegalArgumentException
+	 * 			The roots or the type don't exist.
+	 * 			| roots == null || type == null
+	 */
+	public static <T extends Item> Iterator<T> byWeight(Item[] roots, Class<T> type, long minWeight, long maxWeight)
+			throws IllegalArgumentException {
+		if (roots == null || type == null)
+			throw new IllegalArgumentException("Nothing to query.");
+		return search(roots, null, type, true, false, minWeight, maxWeight, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Return the items of the given type in the given backpack, of which the total weight lies within the given bounds.
+	 * @return	An iterator over all matching items held by the backpack, directly or indirectly,
+	 * 			from lowest to highest total weight.
+	 * @throws	IllegalArgumentException
+	 * 			The backpack or the type don't exist.
+	 * 			| backpack == null || type == null
+	 */
+	public static <T extends Item> Iterator<T> byWeight(Backpack backpack, Class<T> type, long minWeight, long maxWeight)
+			throws IllegalArgumentException {
+		if (backpack == null || type == null)
+			throw new IllegalArgumentException("Nothing to query.");
+		return search(null, backpack, type, true, false, minWeight, maxWeight, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Return the items of the given type among the given items and in the backpacks among them,
+	 * of which the total value lies within the given bounds.
+	 * @return	An iterator over all matching items, from lowest to highest total value.
+	 * 			| for each item in result:
+	 * 			|	type.isInstance(item) && minValue <= item.getTotalValue() <= maxValue
+	 * @throws	IllegalArgumentException
+	 * 			The roots or the type don't exist.
+	 * 			| roots == null || type == null
+	 */
+	public static <T extends Item> Iterator<T> byValue(Item[] roots, Class<T> type, int minValue, int maxValue)
+			throws IllegalArgumentException {
+		if (roots == null || type == null)
+			throw new IllegalArgumentException("Nothing to query.");
+		return search(roots, null, type, false, false, minValue, maxValue, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Return the items of the given type in the given backpack, of which the total value lies within the given bounds.
+	 * @return	An iterator over all matching items held by the backpack, directly or indirectly,
+	 * 			from lowest to highest total value.
+	 * @throws	IllegalArgumentException
+	 * 			The backpack or the type don't exist.
+	 * 			| backpack == null || type == null
+	 */
+	public static <T extends Item> Iterator<T> byValue(Backpack backpack, Class<T> type, int minValue, int maxValue)
+			throws IllegalArgumentException {
+		if (backpack == null || type == null)
+			throw new IllegalArgumentException("Nothing to query.");
+		return search(null, backpack, type, false, false, minValue, maxValue, Long.MAX_VALUE);
+	}
+
+	//TOP-N QUERIES
+
+	/**
+	 * Return the given number of heaviest items of the given type among the given items and in the backpacks among them.
+	 * @return	An iterator over at most the given number of items, from highest to lowest total weight.
+	 * @throws	IllegalArgumentException
+	 * 			The roots or the type don't exist, or the number is negative.
+	 * 			| roots == null || type == null || number < 0
+	 */
+	public static <T extends Item> Iterator<T> heaviest(Item[] roots, Class<T> type, int number) throws IllegalArgumentException {
+		return top(roots, null, type, number, true);
+	}
+
+	/**
+	 * Return the given number of heaviest items of the given type in the given backpack.
+	 * @return	An iterator over at most the given number of items held by the backpack, directly or indirectly,
+	 * 			from highest to lowest total weight.
+	 * @throws	IllegalArgumentException
+	 * 			The backpack or the type don't exist, or the number is negative.
+	 * 			| backpack == null || type == null || number < 0
+	 */
+	public static <T extends Item> Iterator<T> heaviest(Backpack backpack, Class<T> type, int number) throws IllegalArgumentException {
+		return top(null, backpack, type, number, true);
+	}
+
+	/**
+	 * Return the given number of most valuable items of the given type among the given items and in the backpacks among them.
+	 * @return	An iterator over at most the given number of items, from highest to lowest total value.
+	 * @throws	IllegalArgumentException
+	 * 			The roots or the type don't exist, or the number is negative.
+	 * 			| roots == null || type == null || number < 0
+	 */
+	public static <T extends Item> Iterator<T> mostValuable(Item[] roots, Class<T> type, int number) throws IllegalArgumentException {
+		return top(roots, null, type, number, false);
+	}
+
+	/**
+	 * Return the given number of most valuable items of the given type in the given backpack.
+	 * @return	An iterator over at most the given number of items held by the backpack, directly or indirectly,
+	 * 			from highest to lowest total value.
+	 * @throws	IllegalArgumentException
+	 * 			The backpack or the type don't exist, or the number is negative.
+	 * 			| backpack == null || type == null || number < 0
+	 */
+	public static <T extends Item> Iterator<T> mostValuable(Backpack backpack, Class<T> type, int number) throws IllegalArgumentException {
+		return top(null, backpack, type, number, false);
+	}
+
+	/**
+	 * Return the given number of items of the given type with the highest total weight or value, among the given
+	 * roots or in the given backpack, from highest to lowest.
+	 */
+	private static <T extends Item> Iterator<T> top(Item[] roots, Backpack backpack, Class<T> type, int number, boolean byWeight)
+			throws IllegalArgumentException {
+		if ((roots == null && backpack == null) || type == null)
+			throw new IllegalArgumentException("Nothing to query.");
+		if (number < 0)
+			throw new IllegalArgumentException("Not a valid number of items.");
+		return search(roots, backpack, type, byWeight, true, Long.MIN_VALUE, Long.MAX_VALUE, number);
+	}
+
+	//SEARCH
+
+	/**
+	 * Return an iterator over the items of the given type among the given roots or in the given backpack,
+	 * of which the total weight or value lies within the given bounds, in ascending or descending order,
+	 * stopping after the given number of items.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Item> Iterator<T> search(Item[] roots, Backpack backpack, Class<?> type,
+			boolean byWeight, boolean descending, long min, long max, long limit) {
+		Search search = new Search(byWeight, descending, min, max, limit);
+		if (min > max)
+			return (Iterator<T>) search;
+		if (backpack != null)
+			search.addBackpack(backpack, type);
+		else {
+			List<Item> matches = new ArrayList<Item>();
+			for (Item root : roots) {
+				if (root == null)
+					continue;
+				if (type.isInstance(root) && search.covers(search.keyOf(root)))
+					matches.add(root);
+				if (root instanceof Backpack)
+					search.addBackpack((Backpack) root, type);
+			}
+			Collections.sort(matches, search.order);
+			search.addItems(matches.iterator());
+		}
+		return (Iterator<T>) search;
+	}
+
+	/**
+	 * A class of iterators searching a tree of backpacks best first, for the items of which the total weight or value
+	 * lies within given bounds.
+	 * The search keeps a queue of sources ordered on the next key they can produce: sorted ranges of the indexes
+	 * of backpacks, and backpacks of which the indexes haven't been searched yet, under the lowest or highest key
+	 * they hold. A backpack is only searched once it is at the head of the queue, and the backpacks it holds are
+	 * only queued if their bounds overlap the searched bounds, so subtrees without matching items are skipped.
+	 * The tree is never walked recursively, so it can be nested arbitrarily deep.
+	 */
+	private static final class Search implements Iterator<Item> {
+
+		private final boolean byWeight;
+		private final boolean descending;
+		private final long min;
+		private final long max;
+		private final Comparator<Item> order;
+		private final PriorityQueue<Source> queue;
+		private long remaining;
+
+		Search(boolean byWeight, final boolean descending, long min, long max, long limit) {
+			this.byWeight = byWeight;
+			this.descending = descending;
+			this.min = min;
+			this.max = max;
+			Comparator<Item> ascending = byWeight ? BY_WEIGHT : BY_VALUE;
+			this.order = descending ? Collections.reverseOrder(ascending) : ascending;
+			this.queue = new PriorityQueue<Source>(11, new Comparator<Source>() {
+				@Override
+				public int compare(Source source1, Source source2) {
+					int result = descending ? Long.compare(source2.key, source1.key) : Long.compare(source1.key, source2.key);
+					if (result != 0)
+						return result;
+					// A backpack can hold items with the same key as the head of a range, so it is searched first.
+					if (source1.backpacks != null || source2.backpacks != null)
+						return (source1.backpacks != null ? 0 : 1) - (source2.backpacks != null ? 0 : 1);
+					return order.compare(source1.head, source2.head);
+				}
+			});
+			this.remaining = limit;
+		}
+
+		/**
+		 * Return the total weight or the total value of the given item, depending on what is searched.
+		 */
+		long keyOf(Item item) {
+			return byWeight ? item.getTotalWeightHundredths() : item.getTotalValue();
+		}
+
+		/**
+		 * Check whether the given key lies within the searched bounds.
+		 */
+		boolean covers(long key) {
+			return key >= min && key <= max;
+		}
+
+		/**
+		 * Queue the given items, which are sorted in the order of this search.
+		 */
+		void addItems(Iterator<Item> items) {
+			if (items.hasNext()) {
+				Item head = items.next();
+				queue.add(new Source(keyOf(head), head, items, null, 0, 0));
+			}
+		}
+
+		/**
+		 * Queue the given backpack for each of the indexed types that are subtypes of the given type.
+		 */
+		void addBackpack(Backpack backpack, Class<?> type) {
+			for (int i = 0; i < Backpack.INDEXED_TYPES.length; i++)
+				if (type.isAssignableFrom(Backpack.INDEXED_TYPES[i]))
+					addBackpacks(new Backpack[] { backpack }, 0, i);
+		}
+
+		/**
+		 * Queue the first of the given backpacks, from the given position on, that holds items of the given indexed
+		 * type within the searched bounds. The backpacks are ordered on their bound in the order of this search,
+		 * so the rest of them is only looked at once that backpack is searched.
+		 */
+		private void addBackpacks(Backpack[] backpacks, int position, int type) {
+			for (; position < backpacks.length; position++) {
+				long lowest = backpacks[position].getLowestKey(type, byWeight);
+				long highest = backpacks[position].getHighestKey(type, byWeight);
+				if (!descending && lowest > max)
+					return;
+				if (lowest <= highest && lowest <= max && highest >= min) {
+					queue.add(new Source(descending ? highest : lowest, null, null, backpacks, position, type));
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Return a bound coming before every item indexed under the given key.
+		 */
+		private Bound bound(long key) {
+			return byWeight ? new Bound(key, 0) : new Bound(0, (int) key);
+		}
+
+		/**
+		 * Search the indexes of the given backpack for the given indexed type, and queue the backpacks it holds.
+		 */
+		private void expand(Backpack backpack, int type) {
+			NavigableSet<Item> index = byWeight ? backpack.getWeightIndex(type) : backpack.getValueIndex(type);
+			if (descending)
+				addItems(index.descendingIterator());
+			else {
+				Bound from = bound(min);
+				if (max == (byWeight ? Long.MAX_VALUE : Integer.MAX_VALUE))
+					addItems(index.tailSet(from, true).iterator());
+				else
+					addItems(index.subSet(from, true, bound(max + 1), false).iterator());
+			}
+			addBackpacks(backpack.getNestedBackpacks(type, byWeight, descending), 0, type);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!queue.isEmpty() && queue.peek().backpacks != null) {
+				Source source = queue.poll();
+				addBackpacks(source.backpacks, source.position + 1, source.type);
+				expand(source.backpacks[source.position], source.type);
+			}
+			return remaining > 0 && !queue.isEmpty();
+		}
+
+		@Override
+		public Item next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Source source = queue.poll();
+			Item result = source.head;
+			if (source.items.hasNext()) {
+				source.head = source.items.next();
+				source.key = keyOf(source.head);
+				queue.add(source);
+			}
+			remaining--;
+			return result;
+		}
+	}
+
+	/**
+	 * A class of sources of a search: either sorted items with their next item,
+	 * or ordered backpacks with the position of the next backpack to be searched for an indexed type.
+	 */
+	private static final class Source {
+
+		private long key;
+		private Item head;
+		private final Iterator<Item> items;
+		private final Backpack[] backpacks;
+		private final int position;
+		private final int type;
+
+		Source(long key, Item head, Iterator<Item> items, Backpack[] backpacks, int position, int type) {
+			this.key = key;
+			this.head = head;
+			this.items = items;
+			this.backpacks = backpacks;
+			this.position = position;
+			this.type = type;
+		}
+	}
+
+	/**
+	 * A class of items only used as bounds when searching the indexes of a backpack.
+	 * A bound has ID 0, so it comes before every real item with the same indexed weight or value.
+	 */
+	private static final class Bound extends Item {
+
+		Bound(long weight, int value) {
+			super(0, 0);
+			this.indexedWeight = weight;
+			this.indexedValue = value;
+		}
+
+		@Override
+		protected long createId() {
+			return 0;
+		}
+
+		@Override
+		public long getTotalWeightHundredths() {
+			return indexedWeight;
+		}
+
+		@Override
+		public int getTotalValue() {
+			return indexedValue;
+		}
+	}
+
+}
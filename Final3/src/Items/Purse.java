@@ -1,10 +1,11 @@
 package Items;
 
-import java.math.BigDecimal;
-
 import be.kuleuven.cs.som.annotate.Basic;
 /**
  * A class of purses which can be equipped by monsters or put in backpacks.
+ * The content and value of a purse are only changed while holding the lock of its root in its inventory,
+ * so changes of purses are atomic with the moves of that inventory and with the totals of their holders.
+ * Their content can be read at any time without locking.
  * @invar	The amount of dukats removed should be valid.
  * 			|isValidRemovalAmount(dukats)
  * @author Robin and Ramon
@@ -30,45 +31,118 @@ public class Purse extends StoreItem {
 	 */
 	public Purse(double weight, int value, int capacity, int content) {
 		super(weight, value, capacity);
-		addDukats(content);
+		assert (content >= 0);
+		if (content > getCapacity()) {
+			this.value = 0;
+			this.state = newState(0, true);
+		}
+		else
+			this.state = newState(content, false);
+	}
+	
+	/**
+	 * Initialize a purse restored from a snapshot, without generating its ID.
+	 * @param 	id
+	 * 			The ID of the new purse.
+	 * @param 	weight
+	 * 			The weight of the new purse, in hundredths of a kilogram.
+	 * @param 	value
+	 * 			The value of the new purse.
+	 * @param 	capacity
+	 * 			The capacity of the new purse.
+	 * @param 	content
+	 * 			The number of dukats in the new purse.
+	 * @param 	torn
+	 * 			Whether the new purse is torn.
+	 * @effect	| super(id, weight, value, capacity)
+	 * @post	| new.getContent() == content && new.isTorn() == torn
+	 * @post	New purses don't get the given ID.
+	 * @throws	IllegalArgumentException
+	 * 			The ID isn't the ID of a purse, or the content doesn't fit in the purse.
+	 * 			| id <= 0 || id % 2 != 0 || content < 0 || content > capacity || (torn && content != 0)
+	 */
+	Purse(long id, long weight, int value, int capacity, int content, boolean torn) throws IllegalArgumentException {
+		super(id, weight, value, capacity);
+		if (content < 0 || content > capacity || (torn && content != 0))
+			throw new IllegalArgumentException("Not a valid content.");
+		ids.reserve(id);
+		this.state = newState(content, torn);
 	}
 
 	//2.3.1 IDENTIFICATION
 
 	/**
-	 * Variable used in creating the ID.
+	 * Variable referencing the allocator of the even IDs of purses.
 	 */
-	private static long idCounter1=1;
-	private static long idCounter2=0;
+	private final static IdAllocator ids = new IdAllocator(2, 2);
 
 	/**
 	 * Generates the id of the purse.
 	 * 
-	 * @return  A generated number that is a part of the Fibbonaci series  
-	 * 			and is unique to each purse.
+	 * @return  A generated strictly positive even number that is unique to each purse, also when purses are
+	 * 			created in parallel, so purses can't be mistaken for weapons or backpacks.
+	 * 			| result > 0 && result % 2 == 0
 	 */
 	@Override
 	public long createId() {
-		long result;
-		result = idCounter2 + idCounter1;
-		idCounter2 = idCounter1;
-		idCounter1 = result;
-		return result;
+		return ids.next();
 	}
 
 	//2.3.2 CONTENT
 
 	/**
-	 * Variable indicating the content of this purse.
+	 * Variable registering the weight of one dukat, in hundredths of a kilogram.
 	 */
-	private int content;
-	
+	public final static long DUKAT_WEIGHT_HUNDREDTHS = 5;
+
+	/**
+	 * Variable referencing the state of this purse, holding its content and whether it is torn.
+	 * The state is only replaced while holding the lock of the root of this purse in its inventory, so a change
+	 * and the notification of the holders are atomic with moves of this purse and its holders.
+	 * Every state is immutable, so a thread reading it without locking sees a content, a torn flag and
+	 * a total weight that belong together.
+	 * It is null while the constructor of an item initializes this purse, before any other thread can see it.
+	 */
+	private volatile State state;
+
+	/**
+	 * Return a new state of this purse with the given content, and the total weight of this purse with that content.
+	 * @return	| result.content == content && result.torn == torn
+	 * 			| && result.totalWeight == getWeightHundredths() + DUKAT_WEIGHT_HUNDREDTHS * content
+	 */
+	private State newState(int content, boolean torn) {
+		return new State(content, torn, getWeightHundredths() + DUKAT_WEIGHT_HUNDREDTHS * content);
+	}
+
+	/**
+	 * Variable referencing the inventory in which this purse locks its root while changing its content or value,
+	 * or null if this purse isn't registered with an inventory.
+	 * It isn't initialized here, because the constructor of an item already sets the value of this purse.
+	 */
+	private volatile ConcurrentInventory inventory;
+
+	/**
+	 * Return the inventory in which this purse locks its root while changing its content or value.
+	 * @return	The inventory this purse is registered with, or else the default inventory.
+	 */
+	public ConcurrentInventory getInventory() {
+		ConcurrentInventory result = this.inventory;
+		return (result != null) ? result : ConcurrentInventory.DEFAULT;
+	}
+
+	/**
+	 * Set the inventory in which this purse locks its root while changing its content or value.
+	 */
+	void setInventory(ConcurrentInventory inventory) {
+		this.inventory = inventory;
+	}
+
 	/**
 	 * Return the content of this purse.
 	 */
 	@Basic
 	public int getContent() {
-		return this.content;
+		return state.content;
 	}
 
 	/**
@@ -83,13 +157,50 @@ public class Purse extends StoreItem {
 	 * @post		If the total amount of dukats exceeds the capacity of the purse, the purse tears.
 	 * 			|if(getContent() + dukats > getCapacity())
 	 * 			|	then new.isTorn() == true
+	 * @effect	| tryAddDukats(dukats)
 	 */
 	public void addDukats(int dukats){
-		assert (this.torn == false && dukats >= 0);
-		if(getContent() + dukats > getCapacity())
-			this.tear();
+		assert (isTorn() == false && dukats >= 0);
+		tryAddDukats(dukats);
+	}
+	
+	/**
+	 * Add the specified amount of dukats to the purse, if it isn't torn.
+	 * The dukats are added while holding the lock of the root of this purse in its inventory, so the capacity
+	 * is checked against the content at the moment the dukats are added, also when other threads change
+	 * this purse at the same time, and a purse always tears when its capacity is exceeded.
+	 * @param 	dukats
+	 * 			The amount of dukats to be added
+	 * @return	False if this purse was already torn, true otherwise.
+	 * @post	| if (result && getContent() + dukats <= getCapacity())
+	 * 			|	then new.getContent() == this.getContent() + dukats
+	 * @post	| if (result && getContent() + dukats > getCapacity())
+	 * 			|	then new.isTorn() == true
+	 * @throws	IllegalArgumentException
+	 * 			The amount is negative.
+	 * 			| dukats < 0
+	 */
+	public boolean tryAddDukats(final int dukats) throws IllegalArgumentException {
+		if (dukats < 0)
+			throw new IllegalArgumentException("Not a valid amount of dukats.");
+		return getInventory().locked(this, null, () -> addDukatsLocked(dukats));
+	}
+
+	/**
+	 * Add the specified amount of dukats to the purse, if it isn't torn, while holding the lock of its root.
+	 */
+	private boolean addDukatsLocked(int dukats) {
+		State current = state;
+		if (current.torn)
+			return false;
+		long content = (long) current.content + dukats;
+		State next = (content > getCapacity()) ? newState(0, true) : newState((int) content, false);
+		state = next;
+		if (next.torn)
+			torn(current.content);
 		else
-			this.content = getContent() + dukats;
+			fireTotalsChanged(DUKAT_WEIGHT_HUNDREDTHS * dukats, dukats);
+		return true;
 	}
 
 	/**
@@ -103,7 +214,36 @@ public class Purse extends StoreItem {
 	 */
 	public void removeDukats(int dukats) {
 		assert isValidRemovalAmount(dukats);
-		this.content = getContent() - dukats;
+		tryRemoveDukats(dukats);
+	}
+	
+	/**
+	 * Remove a given amount of dukats from the purse, if it still holds them.
+	 * @param 	dukats
+	 * 			The amount of dukats to be removed.
+	 * @return	True if the dukats were removed, false if this purse is torn or holds fewer dukats
+	 * 			at the moment they would be removed.
+	 * @post	| if (result) then new.getContent() == this.getContent() - dukats
+	 * @throws	IllegalArgumentException
+	 * 			The amount is negative.
+	 * 			| dukats < 0
+	 */
+	public boolean tryRemoveDukats(final int dukats) throws IllegalArgumentException {
+		if (dukats < 0)
+			throw new IllegalArgumentException("Not a valid amount of dukats.");
+		return getInventory().locked(this, null, () -> removeDukatsLocked(dukats));
+	}
+
+	/**
+	 * Remove the specified amount of dukats from the purse, if it still holds them, while holding the lock of its root.
+	 */
+	private boolean removeDukatsLocked(int dukats) {
+		State current = state;
+		if (current.torn || dukats > current.content)
+			return false;
+		state = newState(current.content - dukats, false);
+		fireTotalsChanged(-DUKAT_WEIGHT_HUNDREDTHS * dukats, -dukats);
+		return true;
 	}
 	
 	/**
@@ -129,13 +269,88 @@ public class Purse extends StoreItem {
 	 * 			|assert (purse.isTorn() == false)
 	 * @pre		The amount of dukats removed from the purse is a legal amount.
 	 * 			|assert(isValidRemovalAmount(dukats))
+	 * @effect	| tryTransferDukats(amount, purse)
 	 */
 	public void transferDukats(int amount, Purse purse){
 		assert (purse != null && this != purse);
-		assert (purse.torn == false);
+		assert (purse.isTorn() == false);
 		assert isValidRemovalAmount(amount);
-		this.removeDukats(amount);
-		purse.addDukats(amount);
+		tryTransferDukats(amount, purse);
+	}
+	
+	/**
+	 * Transfer an amount of dukats from this purse to a specified purse, as one atomic step.
+	 * The transfer is made while holding the locks of the roots of both purses in the inventory of this purse,
+	 * so it is atomic with other changes of the purses, with the moves of the purses and with the notification
+	 * of their holders. A thread reading both purses without locking may read one of them before the transfer
+	 * and the other one after it.
+	 * @param 	amount
+	 * 			The amount of dukats to be transferred.
+	 * @param 	purse
+	 * 			The purse to which the dukats should be transferred.
+	 * @return	False if one of the purses is torn or this purse holds fewer dukats at the moment of the transfer,
+	 * 			true if the dukats were transferred.
+	 * @post	If the dukats were transferred and the other purse can hold them, they are added to it.
+	 * 			| if (result && purse.getContent() + amount <= purse.getCapacity())
+	 * 			|	then (new purse).getContent() == purse.getContent() + amount
+	 * @post	If the dukats were transferred and the other purse can't hold them, it tears.
+	 * 			| if (result && purse.getContent() + amount > purse.getCapacity())
+	 * 			|	then (new purse).isTorn()
+	 * @throws	IllegalArgumentException
+	 * 			The other purse doesn't exist or is this purse, or the amount is negative.
+	 * 			| purse == null || purse == this || amount < 0
+	 */
+	public boolean tryTransferDukats(final int amount, final Purse purse) throws IllegalArgumentException {
+		if (purse == null || purse == this || amount < 0)
+			throw new IllegalArgumentException("Not a valid transfer.");
+		return getInventory().locked(this, purse, () -> transferDukatsLocked(amount, purse));
+	}
+
+	/**
+	 * Transfer an amount of dukats from this purse to a specified purse, while holding the locks of their roots.
+	 */
+	private boolean transferDukatsLocked(int amount, Purse purse) {
+		State from = this.state;
+		State to = purse.state;
+		if (from.torn || to.torn || amount > from.content)
+			return false;
+		long content = (long) to.content + amount;
+		State toNext = (content > purse.getCapacity()) ? purse.newState(0, true) : purse.newState((int) content, false);
+		this.state = newState(from.content - amount, false);
+		purse.state = toNext;
+		fireTotalsChanged(-DUKAT_WEIGHT_HUNDREDTHS * amount, -amount);
+		if (toNext.torn)
+			purse.torn(to.content);
+		else
+			purse.fireTotalsChanged(DUKAT_WEIGHT_HUNDREDTHS * amount, amount);
+		return true;
+	}
+	
+	/**
+	 * Register that this purse was torn while holding the given number of dukats.
+	 * Only the thread that tore this purse calls this, while holding the lock of the root of this purse,
+	 * so its value is reset atomically with other changes of its value and its holder is notified exactly once.
+	 */
+	private void torn(int content) {
+		int valueDelta = -(this.value + content);
+		this.value = 0;
+		fireTotalsChanged(-DUKAT_WEIGHT_HUNDREDTHS * content, valueDelta);
+	}
+
+	/**
+	 * A class of immutable states of a purse, with the total weight of the purse in that state.
+	 */
+	private static final class State {
+
+		private final int content;
+		private final boolean torn;
+		private final long totalWeight;
+
+		State(int content, boolean torn, long totalWeight) {
+			this.content = content;
+			this.torn = torn;
+			this.totalWeight = totalWeight;
+		}
 	}
 
 	//2.3.3 VALUE
@@ -149,11 +364,22 @@ public class Purse extends StoreItem {
 	 * 			|!isValidValue(newValue)
 	 * @post		The value of this purse is equal to the given value.
 	 * 			|new.getValue() == newValue
+	 * @note	The value is changed while holding the lock of the root of this purse in its inventory,
+	 * 			so it can't be lost to a thread tearing this purse at the same time. Only while the constructor
+	 * 			of an item sets the first value, before any other thread or holder can see this purse, no lock is taken.
 	 */
-	public void setValue(int newValue) throws IllegalArgumentException{
+	public void setValue(final int newValue) throws IllegalArgumentException{
 		if (!isValidValue(newValue))
 			throw new IllegalArgumentException("Not valid value for purse");
-		value = newValue;
+		if (state == null) {
+			value = newValue;
+			return;
+		}
+		getInventory().locked(this, null, () -> {
+			int valueDelta = newValue - value;
+			value = newValue;
+			fireTotalsChanged(0, valueDelta);
+		});
 	}
 	
 	/**
@@ -183,17 +409,12 @@ public class Purse extends StoreItem {
 		capacity = newCapacity;
 	}
 	
-	/**
-	 * Variable indicating the state of this purse.
-	 */
-	private boolean torn = false;
-	
 	/**
 	 * Returns the state of this purse.
 	 */
 	@Basic
 	public boolean isTorn() {
-		return(this.torn);
+		return state.torn;
 	}
 	
 	/**
@@ -206,22 +427,27 @@ public class Purse extends StoreItem {
 	 * 			|new.getContent() == 0.
 	 */
 	public void tear() {
-		this.torn = true;
-		this.value = 0;
-		this.content = 0;
+		getInventory().locked(this, null, () -> {
+			State current = state;
+			if (!current.torn) {
+				state = newState(0, true);
+				torn(current.content);
+			}
+		});
 	}
 	
 	//2.3.4 WEIGHT
 	
 	/**
-	 * Return the total weight of this purse.
-	 * @Return 	the weight of the purse together with the weight of the dukats in the purse.
-	 * 			|return == (getWeight() + 0.05*getContent())
+	 * Return the total weight of this purse, in hundredths of a kilogram.
+	 * The total weight is computed once for every change of the content, and kept with the content,
+	 * so weighing a purse doesn't compute or allocate anything.
+	 * @Return 	the weight of the purse together with the weight of the dukats in the purse, 
+	 * 			each dukat weighing 0.05 kg.
+	 * 			|return == (getWeightHundredths() + DUKAT_WEIGHT_HUNDREDTHS*getContent())
 	 */
-	public BigDecimal getTotalWeight() {
-		BigDecimal weightCoins;
-		weightCoins = new BigDecimal(String.valueOf(0.05 * getContent()));
-		return getWeight().add(weightCoins).setScale(2, 2);
+	public long getTotalWeightHundredths() {
+		return state.totalWeight;
 	}
 	
 }
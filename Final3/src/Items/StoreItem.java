@@ -34,6 +34,20 @@ public abstract class StoreItem extends Item {
 		this.capacity = capacity;
 	}
 	
+	/**
+	 * Initialize a new item with a capacity restored from a snapshot.
+	 * @effect	| super(id, weight, value)
+	 * @post	| new.getCapacity() == capacity
+	 * @throws	IllegalArgumentException
+	 * 			| !isValidCapacity(capacity)
+	 */
+	StoreItem(long id, long weight, int value, int capacity) throws IllegalArgumentException {
+		super(id, weight, value);
+		if(!isValidCapacity(capacity))
+			throw new IllegalArgumentException("Not valid capacity");
+		this.capacity = capacity;
+	}
+	
 	/**
 	 * Variable indicating the carrying capacity of this store item.
 	 */
@@ -1,9 +1,7 @@
 package Items;
 
-import java.math.BigDecimal;
-import java.util.Random;
-
 import RPG3.Monster;
+import RPG3.RandomSource;
 import be.kuleuven.cs.som.annotate.Basic;
 
 /**
@@ -29,28 +27,77 @@ public class Weapon extends Item {
 	 *          | new.getDamage() == generateDamage()
 	 */
 	public Weapon (double weight, int value) throws IllegalArgumentException{
-		super(weight, value);	
-		this.damage = generateDamage();
+		this(weight, value, RandomSource.current());
+	}
+	
+	/**
+	 * Initialize a new weapon with its damage generated by the given random source.
+	 * @param 	weight
+	 * 			The weight of the new weapon.
+	 * @param 	value
+	 * 			The value of the new weapon.
+	 * @param	randomSource
+	 * 			The random source used to generate the damage of the new weapon.
+	 * @effect	The weight and value are initialized.
+	 * 			|super(weight, value)
+	 * @post		The damage of this new weapon is equal to
+	 *		    the damage generated by the given random source.
+	 *          | new.getDamage() == generateDamage(randomSource)
+	 * @throws	IllegalArgumentException
+	 * 			The random source doesn't exist.
+	 * 			| randomSource == null
+	 */
+	public Weapon (double weight, int value, RandomSource randomSource) throws IllegalArgumentException{
+		super(weight, value);
+		if(randomSource == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		this.damage = generateDamage(randomSource);
+	}
+	
+	/**
+	 * Initialize a weapon restored from a snapshot, without generating its ID or damage.
+	 * @param 	id
+	 * 			The ID of the new weapon.
+	 * @param 	weight
+	 * 			The weight of the new weapon, in hundredths of a kilogram.
+	 * @param 	value
+	 * 			The value of the new weapon.
+	 * @param 	damage
+	 * 			The damage of the new weapon.
+	 * @param 	destroyed
+	 * 			Whether the new weapon is destroyed.
+	 * @effect	| super(id, weight, value)
+	 * @post	| new.getDamage() == damage && new.isDestroyed() == destroyed
+	 * @post	New weapons don't get the given ID.
+	 * @throws	IllegalArgumentException
+	 * 			The ID isn't the ID of a weapon, or the damage can't be generated for a weapon.
+	 * 			| id % 2 != 1 || damage < 0 || damage >= getMaxDamage() + MIN_DAMAGE
+	 */
+	Weapon(long id, long weight, int value, int damage, boolean destroyed) throws IllegalArgumentException {
+		super(id, weight, value);
+		if (damage < 0 || damage >= getMaxDamage() + MIN_DAMAGE)
+			throw new IllegalArgumentException("Not a valid damage.");
+		ids.reserve(id);
+		this.damage = damage;
+		this.destroyed = destroyed;
 	}
 
 	//2.1.1: IDENTIFICATION
 
 	/**
-	 * Variable used in creating the ID.
+	 * Variable referencing the allocator of the odd IDs of weapons.
 	 */
-	private static long idCounter=0;
+	private final static IdAllocator ids = new IdAllocator(1, 2);
 
 	/**
 	 * Generates the id of the weapon.
 	 * 
-	 * @return  A generated odd number that has is unique to each purse.
-	 *          | result == (idCounter + 2)
+	 * @return  A generated odd number that is unique to each weapon, also when weapons are created in parallel.
+	 *          | result % 2 == 1
 	 */
 	@Override
 	protected long createId() {
-		while (idCounter % 2 == 0)
-			idCounter++;
-		return idCounter++;
+		return ids.next();
 	}
 
 	/**
@@ -69,10 +116,10 @@ public class Weapon extends Item {
 	//2.1.2: WEIGHT
 	
 	/**
-	* Return the total weight of this weapon.
+	* Return the total weight of this weapon, in hundredths of a kilogram.
 	*/
 	@Basic @Override
-	public BigDecimal getTotalWeight() {
+	public long getTotalWeightHundredths() {
 		return weight;
 	}
 	
@@ -105,10 +152,21 @@ public class Weapon extends Item {
 	 * 
 	 * @return  A generated number between the minimum damage and the
 	 * 			maximum damage
-	 *          | result == (random.nextInt(getMaxDamage()+MIN_DAMAGE))
+	 *          | result == (generateDamage(RandomSource.current()))
 	 */
 	public int generateDamage() {
-		Random  random = new Random();
+		return generateDamage(RandomSource.current());
+	}
+	
+	/**
+	 * Generates the damage of this weapon with the given random source.
+	 * @param	random
+	 * 			The random source used to generate the damage.
+	 * @return  A generated number between the minimum damage and the
+	 * 			maximum damage
+	 *          | result == (random.nextInt(getMaxDamage()+MIN_DAMAGE))
+	 */
+	public static int generateDamage(RandomSource random) {
 		return random.nextInt(getMaxDamage()+MIN_DAMAGE);
 	}
 
@@ -180,7 +238,7 @@ public class Weapon extends Item {
 		if(!(this.getDirectHolder() instanceof Monster))
 			throw new IllegalArgumentException("The weapon is not held by a monster");
 		((Monster) this.getDirectHolder()).setItemToNull(this);
-		this.directHolder= null;
+		linkHolder(null);
 		this.destroyed = true;
 	}
 	
@@ -0,0 +1,65 @@
+package Items;
+
+import java.math.BigDecimal;
+
+/**
+ * A class of static methods for weights expressed as a whole number of hundredths of a kilogram.
+ * Weights in this representation are added and compared as plain longs, without rounding and without
+ * creating any objects.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class Weight {
+
+	/**
+	 * This class can't be instantiated.
+	 */
+	private Weight() {
+	}
+
+	/**
+	 * Variable registering the number of hundredths in a kilogram.
+	 */
+	public final static long HUNDREDTHS_PER_KILOGRAM = 100;
+
+	/**
+	 * Return the given number of kilograms in hundredths of a kilogram.
+	 * @param 	kilograms
+	 * 			The weight in kilograms.
+	 * @return	The weight in hundredths of a kilogram.
+	 * 			| result == kilograms * 100
+	 * @throws	ArithmeticException
+	 * 			The weight can't be expressed in a whole number of hundredths of a kilogram.
+	 * 			| kilograms * 100 != Math.round(kilograms * 100)
+	 */
+	public static long fromKilograms(double kilograms) throws ArithmeticException {
+		long hundredths = Math.round(kilograms * HUNDREDTHS_PER_KILOGRAM);
+		if (hundredths / (double) HUNDREDTHS_PER_KILOGRAM != kilograms)
+			throw new ArithmeticException("Rounding necessary");
+		return hundredths;
+	}
+
+	/**
+	 * Return the given whole number of kilograms in hundredths of a kilogram.
+	 * @param 	kilograms
+	 * 			The weight in kilograms.
+	 * @return	The weight in hundredths of a kilogram.
+	 * 			| result == kilograms * 100
+	 */
+	public static long fromKilograms(long kilograms) {
+		return kilograms * HUNDREDTHS_PER_KILOGRAM;
+	}
+
+	/**
+	 * Return the given weight as a number of kilograms with two decimals.
+	 * @param 	hundredths
+	 * 			The weight in hundredths of a kilogram.
+	 * @return	The weight in kilograms, with a scale of 2.
+	 * 			| result.equals(BigDecimal.valueOf(hundredths, 2))
+	 */
+	public static BigDecimal toBigDecimal(long hundredths) {
+		return BigDecimal.valueOf(hundredths, 2);
+	}
+
+}
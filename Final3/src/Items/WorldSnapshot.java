@@ -0,0 +1,524 @@
+package Items;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import RPG3.Monster;
+import RPG3.RandomSource;
+
+/**
+ * A class of static methods writing worlds of monsters, with all items they hold, to binary snapshot files
+ * and loading them again.
+ *
+ * A snapshot consists of a header, a table of fixed-width monster records, a table of fixed-width item records
+ * and a table of the distinct names. Records refer to names and holders by their index in these tables.
+ * The items of a monster are stored as one contiguous range, breadth first: first the items at its anchors,
+ * then for every backpack in that range the items in it, so the contents of a backpack are always a contiguous
+ * range of records following the backpack. Every backpack record also stores the total weight and value of the
+ * backpack, so the contents of a backpack can be skipped without reading them.
+ *
+ * Because the items of every monster take a range that is known in advance, ranges of monsters are written
+ * in parallel with positional writes to the same channel. Snapshots are loaded from a read-only memory map
+ * of the file. Restored items keep their IDs, weights in hundredths and the damage of weapons, without drawing
+ * from any random source; new items created after a load never get a restored ID.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class WorldSnapshot {
+
+	/**
+	 * This class can't be instantiated.
+	 */
+	private WorldSnapshot() {
+	}
+
+	//FORMAT
+
+	/**
+	 * Variable registering the first four bytes of every snapshot.
+	 */
+	final static int MAGIC = 0x52504753;
+
+	/**
+	 * Variable registering the version of the format.
+	 */
+	final static int VERSION = 2;
+
+	/**
+	 * Variables registering the size in bytes of the header, of a monster record and of an item record.
+	 */
+	final static int HEADER_SIZE = 48;
+	final static int MONSTER_RECORD_SIZE = 32;
+	final static int ITEM_RECORD_SIZE = 64;
+
+	/**
+	 * Variables registering the types of item records.
+	 */
+	final static byte WEAPON = 1;
+	final static byte BACKPACK = 2;
+	final static byte PURSE = 3;
+
+	/**
+	 * Variables registering the flags of item records.
+	 */
+	final static byte DESTROYED = 1;
+	final static byte TORN = 2;
+
+	/**
+	 * Variable registering the number of monsters below which a range of monsters is no longer split.
+	 */
+	private final static int SPLIT_THRESHOLD = 1024;
+
+	//WRITING
+
+	/**
+	 * Write the given monsters and all items they hold to the given file, in the common pool.
+	 * @effect	| write(monsters, file, ForkJoinPool.commonPool())
+	 */
+	public static void write(Monster[] monsters, Path file) throws IOException, IllegalArgumentException {
+		write(monsters, file, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Write the given monsters and all items they hold to the given file, writing ranges of monsters in parallel.
+	 * The monsters and their items must not be changed while they are written.
+	 * The snapshot is written to a new file next to the given file, which then replaces the given file in one move.
+	 * Backpacks loaded lazily from an earlier snapshot in the given file keep reading the file they were loaded from,
+	 * so writing never changes or truncates the data they map. Where the file system doesn't allow replacing
+	 * a file that is still mapped, writing fails with an IOException instead.
+	 * @param 	monsters
+	 * 			The monsters to be written.
+	 * @param 	file
+	 * 			The file to which the snapshot is written. An existing file is replaced.
+	 * @param 	pool
+	 * 			The pool in which the ranges of monsters are written.
+	 * @throws	IOException
+	 * 			The file couldn't be written.
+	 * @throws	IllegalArgumentException
+	 * 			The list of monsters, the file or the pool doesn't exist, or the list contains a monster that doesn't exist.
+	 * 			| monsters == null || file == null || pool == null
+	 * 			| || for some index in 0..monsters.length-1: monsters[i] == null
+	 */
+	public static void write(Monster[] monsters, Path file, ForkJoinPool pool) throws IOException, IllegalArgumentException {
+		if (monsters == null || file == null || pool == null)
+			throw new IllegalArgumentException("Monsters, file or pool do not exist.");
+		int[] firstItems = new int[monsters.length + 1];
+		HashMap<String, Integer> nameIndices = new HashMap<String, Integer>();
+		ArrayList<byte[]> names = new ArrayList<byte[]>();
+		int[] nameIndex = new int[monsters.length];
+		for (int m = 0; m < monsters.length; m++) {
+			if (monsters[m] == null)
+				throw new IllegalArgumentException("Monster does not exist.");
+			Integer index = nameIndices.get(monsters[m].getName());
+			if (index == null) {
+				index = names.size();
+				nameIndices.put(monsters[m].getName(), index);
+				names.add(monsters[m].getName().getBytes(StandardCharsets.UTF_8));
+			}
+			nameIndex[m] = index;
+			firstItems[m + 1] = Math.addExact(firstItems[m], countItems(monsters[m]));
+		}
+		Path absolute = file.toAbsolutePath();
+		Path written = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		boolean moved = false;
+		try {
+			try (FileChannel channel = FileChannel.open(written, StandardOpenOption.WRITE)) {
+				writeRecords(channel, monsters, nameIndex, names, firstItems, pool);
+			}
+			try {
+				Files.move(written, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(written, absolute, StandardCopyOption.REPLACE_EXISTING);
+			}
+			moved = true;
+		}
+		finally {
+			if (!moved)
+				Files.deleteIfExists(written);
+		}
+	}
+
+	/**
+	 * Write the header, the records and the names of a snapshot of the given monsters to the given channel.
+	 */
+	private static void writeRecords(FileChannel channel, Monster[] monsters, int[] nameIndex, ArrayList<byte[]> names,
+			int[] firstItems, ForkJoinPool pool) throws IOException {
+		int nbItems = firstItems[monsters.length];
+		long monstersOffset = HEADER_SIZE;
+		long itemsOffset = monstersOffset + (long) MONSTER_RECORD_SIZE * monsters.length;
+		long namesOffset = itemsOffset + (long) ITEM_RECORD_SIZE * nbItems;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(monsters.length).putInt(nbItems).putInt(names.size()).putInt(0);
+		header.putLong(monstersOffset).putLong(itemsOffset).putLong(namesOffset);
+		header.flip();
+		writeFully(channel, header, 0);
+		try {
+			pool.invoke(new WriteTask(channel, monsters, nameIndex, firstItems, monstersOffset, itemsOffset, 0, monsters.length));
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		long position = namesOffset;
+		for (byte[] name : names) {
+			ByteBuffer record = ByteBuffer.allocate(4 + name.length);
+			record.putInt(name.length).put(name).flip();
+			writeFully(channel, record, position);
+			position += 4 + name.length;
+		}
+	}
+
+	/**
+	 * Return the number of items the given monster holds directly or indirectly.
+	 */
+	private static int countItems(Monster monster) {
+		int result = 0;
+		ArrayList<Backpack> backpacks = new ArrayList<Backpack>();
+		for (Item item : monster.getAnchors()) {
+			if (item != null) {
+				result++;
+				if (item instanceof Backpack)
+					backpacks.add((Backpack) item);
+			}
+		}
+		for (int i = 0; i < backpacks.size(); i++) {
+			for (Item item : backpacks.get(i).getConstantContent()) {
+				result++;
+				if (item instanceof Backpack)
+					backpacks.add((Backpack) item);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Write all bytes remaining in the given buffer to the given channel, starting at the given position.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	/**
+	 * A class of tasks writing the records of a range of monsters and their items, splitting the range while it is large.
+	 */
+	private static final class WriteTask extends RecursiveAction {
+
+		private final FileChannel channel;
+		private final Monster[] monsters;
+		private final int[] nameIndex;
+		private final int[] firstItems;
+		private final long monstersOffset;
+		private final long itemsOffset;
+		private final int from;
+		private final int to;
+
+		WriteTask(FileChannel channel, Monster[] monsters, int[] nameIndex, int[] firstItems, long monstersOffset,
+				long itemsOffset, int from, int to) {
+			this.channel = channel;
+			this.monsters = monsters;
+			this.nameIndex = nameIndex;
+			this.firstItems = firstItems;
+			this.monstersOffset = monstersOffset;
+			this.itemsOffset = itemsOffset;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > SPLIT_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new WriteTask(channel, monsters, nameIndex, firstItems, monstersOffset, itemsOffset, from, middle),
+						new WriteTask(channel, monsters, nameIndex, firstItems, monstersOffset, itemsOffset, middle, to));
+				return;
+			}
+			ByteBuffer monsterRecords = ByteBuffer.allocate(MONSTER_RECORD_SIZE * (to - from));
+			ByteBuffer itemRecords = ByteBuffer.allocate(ITEM_RECORD_SIZE * (firstItems[to] - firstItems[from]));
+			ArrayList<Item> queue = new ArrayList<Item>();
+			int[] holders = new int[16];
+			for (int m = from; m < to; m++) {
+				Monster monster = monsters[m];
+				monsterRecords.putInt(nameIndex[m]).putInt(monster.getProtection()).putInt(monster.getHitpoints())
+						.putInt(monster.getMaxHitpoints()).putInt(monster.getDamage()).putInt(monster.getStrength())
+						.putInt(monster.getAnchors().length).putInt(firstItems[m]);
+				queue.clear();
+				Item[] anchors = monster.getAnchors();
+				for (int a = 0; a < anchors.length; a++) {
+					if (anchors[a] != null) {
+						holders = add(holders, queue.size(), -1 - a);
+						queue.add(anchors[a]);
+					}
+				}
+				for (int i = 0; i < queue.size(); i++) {
+					Item item = queue.get(i);
+					int firstChild = -1;
+					int childCount = 0;
+					if (item instanceof Backpack) {
+						firstChild = firstItems[m] + queue.size();
+						for (Item child : ((Backpack) item).getConstantContent()) {
+							holders = add(holders, queue.size(), firstItems[m] + i);
+							queue.add(child);
+							childCount++;
+						}
+					}
+					if (holders[i] < 0)
+						putItem(itemRecords, item, m, -1 - holders[i], firstChild, childCount);
+					else
+						putItem(itemRecords, item, holders[i], -1, firstChild, childCount);
+				}
+			}
+			monsterRecords.flip();
+			itemRecords.flip();
+			try {
+				writeFully(channel, monsterRecords, monstersOffset + (long) MONSTER_RECORD_SIZE * from);
+				writeFully(channel, itemRecords, itemsOffset + (long) ITEM_RECORD_SIZE * firstItems[from]);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Return the given list with the given value at the given index, growing the list if it is too short.
+		 */
+		private static int[] add(int[] list, int index, int value) {
+			if (index == list.length)
+				list = Arrays.copyOf(list, 2 * list.length);
+			list[index] = value;
+			return list;
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Put the record of the given item into the given buffer.
+	 */
+	private static void putItem(ByteBuffer buffer, Item item, int holder, int anchor, int firstChild, int childCount) {
+		byte type;
+		byte flags = 0;
+		int capacity = 0;
+		int extra = 0;
+		if (item instanceof Weapon) {
+			type = WEAPON;
+			extra = ((Weapon) item).getDamage();
+			if (((Weapon) item).isDestroyed())
+				flags |= DESTROYED;
+		}
+		else if (item instanceof Purse) {
+			type = PURSE;
+			capacity = ((Purse) item).getCapacity();
+			extra = ((Purse) item).getContent();
+			if (((Purse) item).isTorn())
+				flags |= TORN;
+		}
+		else {
+			type = BACKPACK;
+			capacity = ((Backpack) item).getCapacity();
+		}
+		buffer.put(type).put(flags).putShort((short) 0).putInt(holder).putInt(anchor).putInt(item.getValue())
+				.putLong(item.getWeightHundredths()).putInt(capacity).putInt(extra).putInt(firstChild).putInt(childCount)
+				.putLong(item.getTotalWeightHundredths()).putInt(item.getTotalValue()).putInt(0).putLong(item.getId());
+	}
+
+	//LOADING
+
+	/**
+	 * Load the monsters of the snapshot in the given file, with all items they hold.
+	 * @effect	| read(file, false)
+	 */
+	public static Monster[] read(Path file) throws IOException, IllegalArgumentException {
+		return read(file, false);
+	}
+
+	/**
+	 * Load the monsters of the snapshot in the given file, with all items they hold.
+	 * If the contents of backpacks are loaded lazily, only the items at the anchors of the monsters are created.
+	 * Every backpack then answers its totals and number of items from its record, and creates its own contents
+	 * from the memory map the first time they are accessed. The map stays valid when the file is replaced by write,
+	 * but not when the file is changed in place or truncated by other means: a backpack that then fails to load its
+	 * contents throws an UncheckedIOException and keeps its stored totals, and a truncated map may crash the virtual machine.
+	 * @param 	file
+	 * 			The file from which the snapshot is loaded.
+	 * @param	lazy
+	 * 			Whether the contents of backpacks are loaded on first access.
+	 * @return	The monsters of the snapshot, in the order in which they were written. Every monster gets a
+	 * 			random source split from the random source of the current thread.
+	 * @throws	IOException
+	 * 			The file couldn't be read, or isn't a valid snapshot.
+	 * @throws	IllegalArgumentException
+	 * 			The file doesn't exist.
+	 * 			| file == null
+	 */
+	public static Monster[] read(Path file, boolean lazy) throws IOException, IllegalArgumentException {
+		if (file == null)
+			throw new IllegalArgumentException("File does not exist.");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshot is too large to be mapped at once.");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer, lazy);
+		}
+		catch (RuntimeException e) {
+			throw new IOException("Not a valid snapshot.", e);
+		}
+	}
+
+	/**
+	 * Load the monsters of the snapshot in the given buffer.
+	 */
+	private static Monster[] read(ByteBuffer buffer, boolean lazy) throws IOException {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not a valid snapshot.");
+		int nbMonsters = buffer.getInt(8);
+		int nbItems = buffer.getInt(12);
+		int nbNames = buffer.getInt(16);
+		int monstersOffset = (int) buffer.getLong(24);
+		int itemsOffset = (int) buffer.getLong(32);
+		int namesOffset = (int) buffer.getLong(40);
+		String[] names = new String[nbNames];
+		int position = namesOffset;
+		for (int i = 0; i < nbNames; i++) {
+			int length = buffer.getInt(position);
+			byte[] bytes = new byte[length];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position + 4);
+			view.get(bytes);
+			names[i] = new String(bytes, StandardCharsets.UTF_8);
+			position += 4 + length;
+		}
+		Item[] items = new Item[nbItems];
+		if (lazy)
+			readAnchorsLazily(buffer, items, monstersOffset, itemsOffset, nbMonsters);
+		else
+			readItems(buffer, items, itemsOffset);
+		Monster[] monsters = new Monster[nbMonsters];
+		for (int m = 0; m < nbMonsters; m++) {
+			int record = monstersOffset + MONSTER_RECORD_SIZE * m;
+			Item[] anchors = new Item[buffer.getInt(record + 24)];
+			for (int i = buffer.getInt(record + 28); i < nbItems; i++) {
+				int itemRecord = itemsOffset + ITEM_RECORD_SIZE * i;
+				int anchor = buffer.getInt(itemRecord + 8);
+				if (anchor < 0 || buffer.getInt(itemRecord + 4) != m)
+					break;
+				anchors[anchor] = items[i];
+			}
+			monsters[m] = Monster.restore(names[buffer.getInt(record)], buffer.getInt(record + 4), buffer.getInt(record + 8),
+					buffer.getInt(record + 12), buffer.getInt(record + 16), buffer.getInt(record + 20), anchors,
+					RandomSource.current().split());
+		}
+		return monsters;
+	}
+
+	/**
+	 * Create all items of the snapshot in the given buffer and put every item that isn't at an anchor in its backpack.
+	 */
+	private static void readItems(ByteBuffer buffer, Item[] items, int itemsOffset) throws IOException {
+		for (int i = 0; i < items.length; i++)
+			items[i] = readItem(buffer, itemsOffset + ITEM_RECORD_SIZE * i);
+		for (int i = items.length - 1; i >= 0; i--) {
+			int record = itemsOffset + ITEM_RECORD_SIZE * i;
+			if (items[i] instanceof Backpack)
+				checkTotals(buffer, record, items[i]);
+			if (buffer.getInt(record + 8) < 0) {
+				Backpack backpack = (Backpack) items[buffer.getInt(record + 4)];
+				items[i].setDirectHolder(backpack);
+				backpack.addContent(items[i]);
+			}
+		}
+	}
+
+	/**
+	 * Create only the items at the anchors of the monsters of the snapshot in the given buffer,
+	 * letting every backpack among them load its contents on first access.
+	 */
+	private static void readAnchorsLazily(ByteBuffer buffer, Item[] items, int monstersOffset, int itemsOffset, int nbMonsters)
+			throws IOException {
+		for (int m = 0; m < nbMonsters; m++) {
+			for (int i = buffer.getInt(monstersOffset + MONSTER_RECORD_SIZE * m + 28); i < items.length; i++) {
+				int record = itemsOffset + ITEM_RECORD_SIZE * i;
+				if (buffer.getInt(record + 8) < 0 || buffer.getInt(record + 4) != m)
+					break;
+				items[i] = readLazily(buffer, itemsOffset, record);
+			}
+		}
+	}
+
+	/**
+	 * Return a new item with the state of the item record at the given position, without a holder.
+	 * If the item is a backpack, it loads its contents from the given buffer on first access.
+	 */
+	private static Item readLazily(final ByteBuffer buffer, final int itemsOffset, int record) throws IOException {
+		Item item = readItem(buffer, record);
+		if (item instanceof Backpack) {
+			final int firstChild = buffer.getInt(record + 32);
+			final int childCount = buffer.getInt(record + 36);
+			((Backpack) item).setLazyContents(new ContentLoader() {
+				@Override
+				public List<Item> loadContents() {
+					try {
+						List<Item> children = new ArrayList<Item>(childCount);
+						for (int i = firstChild; i < firstChild + childCount; i++)
+							children.add(readLazily(buffer, itemsOffset, itemsOffset + ITEM_RECORD_SIZE * i));
+						return children;
+					}
+					catch (IOException | RuntimeException e) {
+						throw new UncheckedIOException(e instanceof IOException ? (IOException) e
+								: new IOException("Not a valid snapshot.", e));
+					}
+				}
+			}, buffer.getLong(record + 40) - item.getWeightHundredths(), buffer.getInt(record + 48) - item.getValue(), childCount);
+		}
+		return item;
+	}
+
+	/**
+	 * Return a new item with the state of the item record at the given position, without a holder.
+	 */
+	private static Item readItem(ByteBuffer buffer, int record) throws IOException {
+		byte type = buffer.get(record);
+		byte flags = buffer.get(record + 1);
+		int value = buffer.getInt(record + 12);
+		long weight = buffer.getLong(record + 16);
+		int capacity = buffer.getInt(record + 24);
+		int extra = buffer.getInt(record + 28);
+		long id = buffer.getLong(record + 56);
+		switch (type) {
+		case WEAPON:
+			return new Weapon(id, weight, value, extra, (flags & DESTROYED) != 0);
+		case PURSE:
+			return new Purse(id, weight, value, capacity, extra, (flags & TORN) != 0);
+		case BACKPACK:
+			return new Backpack(id, weight, value, capacity);
+		default:
+			throw new IOException("Not a valid item type: " + type);
+		}
+	}
+
+	/**
+	 * Check that the totals of the given backpack are the totals stored in its record.
+	 * Items are attached from the last record to the first, so the whole contents of a backpack are restored by then.
+	 */
+	private static void checkTotals(ByteBuffer buffer, int record, Item backpack) throws IOException {
+		if (backpack.getTotalWeightHundredths() != buffer.getLong(record + 40) || backpack.getTotalValue() != buffer.getInt(record + 48))
+			throw new IOException("Totals of a backpack do not match its contents.");
+	}
+
+}
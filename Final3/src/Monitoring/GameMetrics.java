@@ -0,0 +1,333 @@
+package Monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A class of counters and latency histograms of combat and inventory operations, published over JMX.
+ * The metrics are only recorded if the system property rpg3.metrics is true when this class is loaded.
+ * Whether metrics are recorded is a constant, so the checks of disabled metrics are removed by the compiler
+ * of the virtual machine and cost nothing. Enabled metrics are striped counters, so threads recording
+ * metrics at the same time don't contend on a shared field.
+ * Operations call start() before they begin, and pass the result to the matching method once they succeed.
+ * Those static methods record into the instance returned by getInstance(). Other instances are never recorded
+ * by the game, but record whatever is passed to their own recording methods, whether the metrics are enabled or not.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+	/**
+	 * Initialize new game metrics without any recorded operations.
+	 * Only the metrics returned by getInstance() are recorded by the game and published.
+	 * @post	No operations are recorded in the new metrics.
+	 * 			| new.getHits() == 0 && new.getMisses() == 0 && new.getKills() == 0 && new.getItemMoves() == 0
+	 * 			| && new.getWeightRejections() == 0 && new.getBackpackSorts() == 0 && new.getContentTransfers() == 0
+	 */
+	public GameMetrics() {
+	}
+
+	/**
+	 * Variable registering whether the game metrics are recorded.
+	 */
+	public final static boolean ENABLED = Boolean.getBoolean("rpg3.metrics");
+
+	/**
+	 * Variable registering the name under which the game metrics are published.
+	 */
+	public final static String OBJECT_NAME = "RPG3:type=GameMetrics";
+
+	/**
+	 * Variable referencing the instance through which the metrics are published.
+	 */
+	private final static GameMetrics INSTANCE = new GameMetrics();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder kills = new LongAdder();
+	private final LongAdder itemMoves = new LongAdder();
+	private final LongAdder weightRejections = new LongAdder();
+	private final LongAdder backpackSorts = new LongAdder();
+	private final LongAdder contentTransfers = new LongAdder();
+
+	private final LatencyHistogram hitLatency = new LatencyHistogram();
+	private final LatencyHistogram itemMoveLatency = new LatencyHistogram();
+	private final LatencyHistogram contentTransferLatency = new LatencyHistogram();
+
+	static {
+		if (ENABLED)
+			register();
+	}
+
+	//SECTION: RECORDING
+
+	/**
+	 * Return the start time of an operation.
+	 * @return	The current time in nanoseconds if the metrics are enabled, or else 0.
+	 * 			| if (!ENABLED)
+	 * 			|	then result == 0
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record an attack that started at the given time.
+	 * @param 	start
+	 * 			The start time of the attack, as returned by start().
+	 * @param 	hit
+	 * 			True if the attack hit its defender.
+	 * @param 	killed
+	 * 			True if the attack killed its defender.
+	 * @effect	If the metrics are enabled, the attack is recorded in the published metrics.
+	 * 			| if (ENABLED)
+	 * 			|	then getInstance().recordAttack(System.nanoTime() - start, hit, killed)
+	 */
+	public static void attacked(long start, boolean hit, boolean killed) {
+		if (ENABLED)
+			INSTANCE.recordAttack(System.nanoTime() - start, hit, killed);
+	}
+
+	/**
+	 * Record a move of an item that started at the given time.
+	 * @param 	start
+	 * 			The start time of the move, as returned by start().
+	 * @effect	If the metrics are enabled, the move is recorded in the published metrics.
+	 * 			| if (ENABLED)
+	 * 			|	then getInstance().recordItemMove(System.nanoTime() - start)
+	 */
+	public static void itemMoved(long start) {
+		if (ENABLED)
+			INSTANCE.recordItemMove(System.nanoTime() - start);
+	}
+
+	/**
+	 * Record a transfer of all contents of a backpack that started at the given time.
+	 * @param 	start
+	 * 			The start time of the transfer, as returned by start().
+	 * @effect	If the metrics are enabled, the transfer is recorded in the published metrics.
+	 * 			| if (ENABLED)
+	 * 			|	then getInstance().recordContentTransfer(System.nanoTime() - start)
+	 */
+	public static void contentsTransferred(long start) {
+		if (ENABLED)
+			INSTANCE.recordContentTransfer(System.nanoTime() - start);
+	}
+
+	/**
+	 * Record a move rejected because the new total weight wasn't valid.
+	 * @effect	| if (ENABLED)
+	 * 			|	then getInstance().recordWeightRejection()
+	 */
+	public static void weightRejected() {
+		if (ENABLED)
+			INSTANCE.recordWeightRejection();
+	}
+
+	/**
+	 * Record a new sort of the contents of a backpack.
+	 * @effect	| if (ENABLED)
+	 * 			|	then getInstance().recordBackpackSort()
+	 */
+	public static void backpackSorted() {
+		if (ENABLED)
+			INSTANCE.recordBackpackSort();
+	}
+
+	/**
+	 * Record an attack with the given latency in these metrics.
+	 * @param 	latencyNanos
+	 * 			The latency of the attack in nanoseconds.
+	 * @param 	hit
+	 * 			True if the attack hit its defender.
+	 * @param 	killed
+	 * 			True if the attack killed its defender.
+	 * @effect	The hits or misses, the kills and the latency of attacks are updated.
+	 * 			| getHitLatency().record(latencyNanos)
+	 * @post	| if (hit)
+	 * 			|	then new.getHits() == getHits() + 1
+	 * 			|	else new.getMisses() == getMisses() + 1
+	 * @post	| if (killed)
+	 * 			|	then new.getKills() == getKills() + 1
+	 */
+	public void recordAttack(long latencyNanos, boolean hit, boolean killed) {
+		hitLatency.record(latencyNanos);
+		if (hit)
+			hits.increment();
+		else
+			misses.increment();
+		if (killed)
+			kills.increment();
+	}
+
+	/**
+	 * Record a move of an item with the given latency in these metrics.
+	 * @effect	| getItemMoveLatency().record(latencyNanos)
+	 * @post	| new.getItemMoves() == getItemMoves() + 1
+	 */
+	public void recordItemMove(long latencyNanos) {
+		itemMoveLatency.record(latencyNanos);
+		itemMoves.increment();
+	}
+
+	/**
+	 * Record a transfer of all contents of a backpack with the given latency in these metrics.
+	 * @effect	| getContentTransferLatency().record(latencyNanos)
+	 * @post	| new.getContentTransfers() == getContentTransfers() + 1
+	 */
+	public void recordContentTransfer(long latencyNanos) {
+		contentTransferLatency.record(latencyNanos);
+		contentTransfers.increment();
+	}
+
+	/**
+	 * Record a move rejected on its weight in these metrics.
+	 * @post	| new.getWeightRejections() == getWeightRejections() + 1
+	 */
+	public void recordWeightRejection() {
+		weightRejections.increment();
+	}
+
+	/**
+	 * Record a new sort of the contents of a backpack in these metrics.
+	 * @post	| new.getBackpackSorts() == getBackpackSorts() + 1
+	 */
+	public void recordBackpackSort() {
+		backpackSorts.increment();
+	}
+
+	//SECTION: PUBLISHING
+
+	/**
+	 * Return the instance through which the game metrics are published.
+	 */
+	public static GameMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Publish the game metrics on the platform MBean server, under OBJECT_NAME.
+	 * The metrics are published when this class is loaded if they are enabled.
+	 * @return	True if the metrics are published after this call.
+	 */
+	public static synchronized boolean register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(INSTANCE, name);
+			return true;
+		}
+		catch (JMException exc) {
+			return false;
+		}
+	}
+
+	//SECTION: READING
+
+	@Override
+	public boolean isEnabled() {
+		return ENABLED;
+	}
+
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public long getKills() {
+		return kills.sum();
+	}
+
+	@Override
+	public long getItemMoves() {
+		return itemMoves.sum();
+	}
+
+	@Override
+	public long getWeightRejections() {
+		return weightRejections.sum();
+	}
+
+	@Override
+	public long getBackpackSorts() {
+		return backpackSorts.sum();
+	}
+
+	@Override
+	public long getContentTransfers() {
+		return contentTransfers.sum();
+	}
+
+	/**
+	 * Return the histogram of the latencies of attacks.
+	 */
+	public LatencyHistogram getHitLatency() {
+		return hitLatency;
+	}
+
+	/**
+	 * Return the histogram of the latencies of item moves.
+	 */
+	public LatencyHistogram getItemMoveLatency() {
+		return itemMoveLatency;
+	}
+
+	/**
+	 * Return the histogram of the latencies of transfers of all contents of a backpack.
+	 */
+	public LatencyHistogram getContentTransferLatency() {
+		return contentTransferLatency;
+	}
+
+	@Override
+	public long getHitLatencyP50Nanos() {
+		return hitLatency.getPercentileNanos(50);
+	}
+
+	@Override
+	public long getHitLatencyP99Nanos() {
+		return hitLatency.getPercentileNanos(99);
+	}
+
+	@Override
+	public long getItemMoveLatencyP50Nanos() {
+		return itemMoveLatency.getPercentileNanos(50);
+	}
+
+	@Override
+	public long getItemMoveLatencyP99Nanos() {
+		return itemMoveLatency.getPercentileNanos(99);
+	}
+
+	@Override
+	public long getContentTransferLatencyP50Nanos() {
+		return contentTransferLatency.getPercentileNanos(50);
+	}
+
+	@Override
+	public long getContentTransferLatencyP99Nanos() {
+		return contentTransferLatency.getPercentileNanos(99);
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder counter : new LongAdder[] {hits, misses, kills, itemMoves, weightRejections, backpackSorts, contentTransfers})
+			counter.reset();
+		hitLatency.reset();
+		itemMoveLatency.reset();
+		contentTransferLatency.reset();
+	}
+
+}
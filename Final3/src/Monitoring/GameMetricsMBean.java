@@ -0,0 +1,87 @@
+package Monitoring;
+
+/**
+ * The management interface through which the game metrics are published over JMX.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public interface GameMetricsMBean {
+
+	/**
+	 * Return whether the game metrics are recorded.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Return the number of attacks that hit their defender.
+	 */
+	long getHits();
+
+	/**
+	 * Return the number of attacks that missed their defender.
+	 */
+	long getMisses();
+
+	/**
+	 * Return the number of attacks that killed their defender.
+	 */
+	long getKills();
+
+	/**
+	 * Return the number of items obtained, transferred, added to a backpack or removed from a backpack.
+	 */
+	long getItemMoves();
+
+	/**
+	 * Return the number of moves rejected because the new total weight wasn't valid.
+	 */
+	long getWeightRejections();
+
+	/**
+	 * Return the number of times the contents of a backpack were sorted again.
+	 */
+	long getBackpackSorts();
+
+	/**
+	 * Return the number of times all contents of a backpack were transferred to another backpack.
+	 */
+	long getContentTransfers();
+
+	/**
+	 * Return the median latency of an attack, in nanoseconds, as an upper bound from its histogram.
+	 */
+	long getHitLatencyP50Nanos();
+
+	/**
+	 * Return the 99th percentile of the latency of an attack, in nanoseconds, as an upper bound from its histogram.
+	 */
+	long getHitLatencyP99Nanos();
+
+	/**
+	 * Return the median latency of an item move, in nanoseconds, as an upper bound from its histogram.
+	 */
+	long getItemMoveLatencyP50Nanos();
+
+	/**
+	 * Return the 99th percentile of the latency of an item move, in nanoseconds, as an upper bound from its histogram.
+	 */
+	long getItemMoveLatencyP99Nanos();
+
+	/**
+	 * Return the median latency of a transfer of all contents of a backpack, in nanoseconds, as an upper bound from its histogram.
+	 */
+	long getContentTransferLatencyP50Nanos();
+
+	/**
+	 * Return the 99th percentile of the latency of a transfer of all contents of a backpack, in nanoseconds,
+	 * as an upper bound from its histogram.
+	 */
+	long getContentTransferLatencyP99Nanos();
+
+	/**
+	 * Reset all counters and histograms.
+	 */
+	void reset();
+
+}
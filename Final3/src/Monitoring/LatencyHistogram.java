@@ -0,0 +1,140 @@
+package Monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class of histograms of latencies in nanoseconds, with a bucket for every power of two.
+ * Bucket 0 counts latencies of 0 nanoseconds, and bucket b counts latencies from 2^(b-1) up to 2^b - 1 nanoseconds.
+ * Every bucket is a striped counter, so threads recording latencies at the same time don't contend
+ * on a shared field. Reading a histogram while latencies are recorded gives a view that is accurate up
+ * to the latencies recorded during the read.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * Variable registering the number of buckets of every histogram.
+	 */
+	public final static int NB_BUCKETS = 64;
+
+	/**
+	 * Initialize a new histogram without any recorded latencies.
+	 * @post	No latencies are recorded in this new histogram.
+	 * 			| new.getCount() == 0
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < NB_BUCKETS; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Variable referencing the counters of the buckets of this histogram.
+	 */
+	private final LongAdder[] buckets = new LongAdder[NB_BUCKETS];
+
+	/**
+	 * Variable referencing the sum of all latencies recorded in this histogram.
+	 */
+	private final LongAdder totalNanos = new LongAdder();
+
+	/**
+	 * Return the bucket of the given latency.
+	 * @param 	nanos
+	 * 			The latency in nanoseconds.
+	 * @return	0 if the latency isn't positive, or else the number of bits needed for the latency.
+	 * 			| if (nanos <= 0)
+	 * 			|	then result == 0
+	 * 			|	else result == 64 - Long.numberOfLeadingZeros(nanos)
+	 */
+	public static int bucketOf(long nanos) {
+		if (nanos <= 0)
+			return 0;
+		return Math.min(NB_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/**
+	 * Record the given latency in this histogram.
+	 * @param 	nanos
+	 * 			The latency in nanoseconds.
+	 * @effect	The counter of the bucket of the latency is incremented, and the latency is added to the total.
+	 * 			| new.getBucketCounts()[bucketOf(nanos)] == getBucketCounts()[bucketOf(nanos)] + 1
+	 * 			| && new.getTotalNanos() == getTotalNanos() + Math.max(0, nanos)
+	 */
+	public void record(long nanos) {
+		buckets[bucketOf(nanos)].increment();
+		if (nanos > 0)
+			totalNanos.add(nanos);
+	}
+
+	/**
+	 * Return the number of latencies recorded in this histogram.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets)
+			count += bucket.sum();
+		return count;
+	}
+
+	/**
+	 * Return the sum of all latencies recorded in this histogram, in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * Return the number of recorded latencies in every bucket of this histogram.
+	 * @return	An array with the count of every bucket, indexed by bucket.
+	 * 			| result.length == NB_BUCKETS
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[NB_BUCKETS];
+		for (int i = 0; i < NB_BUCKETS; i++)
+			counts[i] = buckets[i].sum();
+		return counts;
+	}
+
+	/**
+	 * Return an upper bound of the given percentile of the recorded latencies.
+	 * @param 	percentile
+	 * 			The percentile, between 0 and 100.
+	 * @return	0 if no latencies are recorded, or else the highest latency of the first bucket
+	 * 			up to which at least the given percentage of the latencies is recorded.
+	 * @throws	IllegalArgumentException
+	 * 			The percentile isn't between 0 and 100.
+	 * 			| percentile < 0 || percentile > 100
+	 */
+	public long getPercentileNanos(double percentile) throws IllegalArgumentException {
+		if (!(percentile >= 0 && percentile <= 100))
+			throw new IllegalArgumentException("Not a valid percentile.");
+		long[] counts = getBucketCounts();
+		long count = 0;
+		for (long bucketCount : counts)
+			count += bucketCount;
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < NB_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return (i == 0) ? 0 : (i == NB_BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Remove all recorded latencies from this histogram.
+	 * Latencies recorded during the reset may be kept.
+	 * @post	No latencies are recorded in this histogram, unless latencies were recorded during the reset.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets)
+			bucket.reset();
+		totalNanos.reset();
+	}
+
+}
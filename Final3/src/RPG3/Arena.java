@@ -0,0 +1,331 @@
+package RPG3;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of arenas in which large batches of duels between monsters are fought in parallel.
+ * The duels are fought on copies of the hitpoints of the monsters, so the monsters themselves
+ * are never changed and the same monster can take part in many duels at once.
+ * Each batch gets its own random source split from the random source of the arena, and that
+ * random source is split again for every duel, so an arena created with a given seed fights
+ * the same duels with the same results, however the batches are spread over the threads of the pool.
+ * The combat listener of an arena is notified of every attack in its duels, with the hitpoints in the duel.
+ * @invar	The maximum number of rounds of a duel must be valid.
+ * 			| isValidMaxRounds(getMaxRounds())
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class Arena {
+
+	/**
+	 * Initialize a new arena with given pool, maximum number of rounds and random source.
+	 * @param 	pool
+	 * 			The fork/join pool in which the duels are fought.
+	 * @param 	maxRounds
+	 * 			The maximum number of rounds of a duel.
+	 * @param	randomSource
+	 * 			The random source from which the random sources of the duels are split.
+	 * @post	The pool of this new arena is equal to the given pool.
+	 * 			| new.getPool() == pool
+	 * @post	The maximum number of rounds of this new arena is equal to the given number.
+	 * 			| new.getMaxRounds() == maxRounds
+	 * @throws 	IllegalArgumentException
+	 * 			The pool or random source doesn't exist or the maximum number of rounds isn't valid.
+	 * 			| pool == null || randomSource == null || !isValidMaxRounds(maxRounds)
+	 */
+	public Arena(ForkJoinPool pool, int maxRounds, RandomSource randomSource) throws IllegalArgumentException {
+		if (pool == null)
+			throw new IllegalArgumentException("Pool does not exist.");
+		if (randomSource == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		if (!isValidMaxRounds(maxRounds))
+			throw new IllegalArgumentException("Not a valid number of rounds.");
+		this.pool = pool;
+		this.maxRounds = maxRounds;
+		this.randomSource = randomSource;
+	}
+
+	/**
+	 * Initialize a new arena with given pool and maximum number of rounds, fighting duels from the given seed.
+	 * @effect	The arena is initialized with a random source created from the given seed.
+	 * 			| this(pool, maxRounds, new SplittableRandomSource(seed))
+	 */
+	public Arena(ForkJoinPool pool, int maxRounds, long seed) throws IllegalArgumentException {
+		this(pool, maxRounds, new SplittableRandomSource(seed));
+	}
+
+	/**
+	 * Initialize a new arena with given pool and maximum number of rounds.
+	 * @effect	The arena is initialized with a random source split from the random source of the current thread.
+	 * 			| this(pool, maxRounds, RandomSource.current().split())
+	 */
+	public Arena(ForkJoinPool pool, int maxRounds) throws IllegalArgumentException {
+		this(pool, maxRounds, RandomSource.current().split());
+	}
+
+	/**
+	 * Initialize a new arena fighting in the common pool.
+	 * @effect	The arena is initialized with the common pool and the default maximum number of rounds.
+	 * 			| this(ForkJoinPool.commonPool(), DEFAULT_MAX_ROUNDS)
+	 */
+	public Arena() {
+		this(ForkJoinPool.commonPool(), DEFAULT_MAX_ROUNDS);
+	}
+
+	/**
+	 * Initialize a new arena fighting in the common pool, fighting duels from the given seed.
+	 * @effect	The arena is initialized with the common pool, the default maximum number of rounds and the given seed.
+	 * 			| this(ForkJoinPool.commonPool(), DEFAULT_MAX_ROUNDS, seed)
+	 */
+	public Arena(long seed) {
+		this(ForkJoinPool.commonPool(), DEFAULT_MAX_ROUNDS, seed);
+	}
+
+	//POOL
+
+	/**
+	 * Variable referencing the pool in which the duels are fought.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Return the pool in which the duels are fought.
+	 */
+	@Basic
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	//RANDOM SOURCE
+
+	/**
+	 * Variable referencing the random source from which the random sources of the duels are split.
+	 */
+	private final RandomSource randomSource;
+
+	/**
+	 * Return a new random source split from the random source of this arena.
+	 */
+	private RandomSource splitRandomSource() {
+		synchronized (randomSource) {
+			return randomSource.split();
+		}
+	}
+
+	//ROUNDS
+
+	/**
+	 * Variable registering the default maximum number of rounds of a duel.
+	 */
+	public final static int DEFAULT_MAX_ROUNDS = 1000;
+
+	/**
+	 * Variable registering the maximum number of rounds of a duel.
+	 */
+	private final int maxRounds;
+
+	/**
+	 * Return the maximum number of rounds of a duel.
+	 * A duel that isn't decided after this number of rounds is a draw.
+	 */
+	@Basic
+	public int getMaxRounds() {
+		return this.maxRounds;
+	}
+
+	/**
+	 * Check if the given maximum number of rounds is valid.
+	 * @param 	maxRounds
+	 * 			The number of rounds to be checked.
+	 * @return	True if the number of rounds is strictly positive.
+	 * 			| return == (maxRounds > 0)
+	 */
+	public static boolean isValidMaxRounds(int maxRounds) {
+		return (maxRounds > 0);
+	}
+
+	//LISTENER
+
+	/**
+	 * Variable referencing the listener notified of every attack in the duels of this arena.
+	 */
+	private volatile CombatListener combatListener = CombatListener.NONE;
+
+	/**
+	 * Return the listener notified of every attack in the duels of this arena.
+	 */
+	@Basic
+	public CombatListener getCombatListener() {
+		return this.combatListener;
+	}
+
+	/**
+	 * Set the listener notified of every attack in the duels of this arena.
+	 * The listener is called from the threads of the pool, so it must be thread-safe.
+	 * @param 	combatListener
+	 * 			The new listener of this arena.
+	 * @post	The listener of this arena is the given listener.
+	 * 			| new.getCombatListener() == combatListener
+	 * @throws	IllegalArgumentException
+	 * 			The listener doesn't exist.
+	 * 			| combatListener == null
+	 */
+	public void setCombatListener(CombatListener combatListener) throws IllegalArgumentException {
+		if (combatListener == null)
+			throw new IllegalArgumentException("Listener does not exist.");
+		this.combatListener = combatListener;
+	}
+
+	//FIGHTING
+
+	/**
+	 * Variable registering the number of duels below which a batch is no longer split.
+	 */
+	private final static int SPLIT_THRESHOLD = 128;
+
+	/**
+	 * Let each attacker fight a duel against the opponent at the same index.
+	 * @param 	attackers
+	 * 			The monsters attacking first in each duel.
+	 * @param 	opponents
+	 * 			The monsters attacked in each duel.
+	 * @return	The result of the duel between attackers[i] and opponents[i] at index i.
+	 * 			| for each index in 0..attackers.length-1:
+	 * 			|	result[i] == duel(attackers[i], opponents[i])
+	 * @effect	The duels are fought with a random source split from the random source of this arena.
+	 * 			| fight(attackers, opponents, splitRandomSource())
+	 */
+	public DuelResult[] fight(Monster[] attackers, Monster[] opponents) throws IllegalArgumentException {
+		return fight(attackers, opponents, splitRandomSource());
+	}
+
+	/**
+	 * Let each attacker fight a duel against the opponent at the same index, rolling with the given random source.
+	 * Fighting the same monsters with random sources created from the same seed gives the same results.
+	 * @param 	attackers
+	 * 			The monsters attacking first in each duel.
+	 * @param 	opponents
+	 * 			The monsters attacked in each duel.
+	 * @param	random
+	 * 			The random source from which the random sources of the duels are split.
+	 * @return	The result of the duel between attackers[i] and opponents[i] at index i.
+	 * @throws 	IllegalArgumentException
+	 * 			The arrays or random source don't exist, the arrays don't have the same length
+	 * 			or contain a monster that doesn't exist.
+	 * 			| attackers == null || opponents == null || random == null || attackers.length != opponents.length
+	 * 			| || for some index in 0..attackers.length-1:
+	 * 			|		attackers[i] == null || opponents[i] == null
+	 */
+	public DuelResult[] fight(Monster[] attackers, Monster[] opponents, RandomSource random) throws IllegalArgumentException {
+		if (attackers == null || opponents == null || attackers.length != opponents.length)
+			throw new IllegalArgumentException("Not a valid list of pairs.");
+		if (random == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		for (int i = 0; i < attackers.length; i++)
+			if (attackers[i] == null || opponents[i] == null)
+				throw new IllegalArgumentException("Monster does not exist.");
+		DuelResult[] results = new DuelResult[attackers.length];
+		pool.invoke(new DuelTask(attackers, opponents, results, 0, attackers.length, random, getCombatListener()));
+		return results;
+	}
+
+	/**
+	 * Let the given attacker fight a duel against the given opponent.
+	 * @param 	attacker
+	 * 			The monster attacking first.
+	 * @param 	opponent
+	 * 			The monster attacked.
+	 * @return	The result of a duel in which both monsters hit each other in turn, starting
+	 * 			from their current hitpoints, until one of them dies or the maximum number of rounds is reached.
+	 */
+	public DuelResult duel(Monster attacker, Monster opponent) {
+		return duel(attacker, opponent, getMaxRounds(), splitRandomSource(), getCombatListener());
+	}
+
+	/**
+	 * Fight a duel between the given monsters on copies of their hitpoints.
+	 * @param 	attacker
+	 * 			The monster attacking first.
+	 * @param 	opponent
+	 * 			The monster attacked.
+	 * @param 	maxRounds
+	 * 			The maximum number of rounds of the duel.
+	 * @param 	random
+	 * 			The random source used for the attacks.
+	 * @param 	listener
+	 * 			The listener notified of every attack of the duel, with the hitpoints in the duel.
+	 * @return	The result of the duel.
+	 */
+	static DuelResult duel(Monster attacker, Monster opponent, int maxRounds, RandomSource random, CombatListener listener) {
+		int attackerHitpoints = attacker.getHitpoints();
+		int opponentHitpoints = opponent.getHitpoints();
+		int attackerDamage = attacker.getAttackDamage();
+		int opponentDamage = opponent.getAttackDamage();
+		int rounds = 0;
+		while (attackerHitpoints > 0 && opponentHitpoints > 0 && rounds < maxRounds) {
+			rounds++;
+			int roll = attacker.rollAttack(attackerHitpoints, random);
+			boolean hit = roll > opponent.getProtection();
+			if (hit)
+				opponentHitpoints = Monster.hitpointsAfterHit(opponentHitpoints, opponent.getMaxHitpoints(), attackerDamage);
+			listener.attacked(attacker, opponent, roll, hit ? attackerDamage : 0, hit, attackerHitpoints, opponentHitpoints);
+			if (opponentHitpoints > 0) {
+				roll = opponent.rollAttack(opponentHitpoints, random);
+				hit = roll > attacker.getProtection();
+				if (hit)
+					attackerHitpoints = Monster.hitpointsAfterHit(attackerHitpoints, attacker.getMaxHitpoints(), opponentDamage);
+				listener.attacked(opponent, attacker, roll, hit ? opponentDamage : 0, hit, opponentHitpoints, attackerHitpoints);
+			}
+		}
+		int winner = DuelResult.DRAW;
+		if (attackerHitpoints > 0 && opponentHitpoints <= 0)
+			winner = DuelResult.ATTACKER;
+		else if (opponentHitpoints > 0 && attackerHitpoints <= 0)
+			winner = DuelResult.OPPONENT;
+		return new DuelResult(winner, rounds, attackerHitpoints, opponentHitpoints);
+	}
+
+	/**
+	 * A class of tasks fighting the duels in a range of indices, splitting the range while it is large.
+	 */
+	private final class DuelTask extends RecursiveAction {
+
+		private final Monster[] attackers;
+		private final Monster[] opponents;
+		private final DuelResult[] results;
+		private final int from;
+		private final int to;
+		private final RandomSource random;
+		private final CombatListener listener;
+
+		DuelTask(Monster[] attackers, Monster[] opponents, DuelResult[] results, int from, int to, RandomSource random,
+				CombatListener listener) {
+			this.attackers = attackers;
+			this.opponents = opponents;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.random = random;
+			this.listener = listener;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SPLIT_THRESHOLD) {
+				for (int i = from; i < to; i++)
+					results[i] = duel(attackers[i], opponents[i], getMaxRounds(), random.split(), listener);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			DuelTask left = new DuelTask(attackers, opponents, results, from, middle, random.split(), listener);
+			invokeAll(left, new DuelTask(attackers, opponents, results, middle, to, random, listener));
+		}
+
+		private static final long serialVersionUID = 5552229L;
+	}
+
+}
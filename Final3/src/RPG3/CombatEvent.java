@@ -0,0 +1,117 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of events recording a single attack of a monster.
+ * Combat events are reused by the sink that collects them, so an event is only valid
+ * while it is being handed out by that sink.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class CombatEvent {
+
+	/**
+	 * Initialize a new, empty combat event.
+	 */
+	CombatEvent() {
+	}
+
+	/**
+	 * Set the fields of this event to the given attack.
+	 * @param 	attacker
+	 * 			The monster that attacked.
+	 * @param 	defender
+	 * 			The monster that was attacked.
+	 * @param 	roll
+	 * 			The roll of the attack.
+	 * @param 	damage
+	 * 			The damage dealt to the defender.
+	 * @param 	hit
+	 * 			True if the attack hit the defender.
+	 */
+	void set(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+		this.attacker = attacker;
+		this.defender = defender;
+		this.roll = roll;
+		this.damage = damage;
+		this.hit = hit;
+	}
+
+	/**
+	 * Variable referencing the monster that attacked.
+	 */
+	private Monster attacker;
+
+	/**
+	 * Return the monster that attacked.
+	 */
+	@Basic
+	public Monster getAttacker() {
+		return this.attacker;
+	}
+
+	/**
+	 * Variable referencing the monster that was attacked.
+	 */
+	private Monster defender;
+
+	/**
+	 * Return the monster that was attacked.
+	 */
+	@Basic
+	public Monster getDefender() {
+		return this.defender;
+	}
+
+	/**
+	 * Variable registering the roll of the attack.
+	 */
+	private int roll;
+
+	/**
+	 * Return the roll of the attack.
+	 */
+	@Basic
+	public int getRoll() {
+		return this.roll;
+	}
+
+	/**
+	 * Variable registering the damage dealt to the defender.
+	 */
+	private int damage;
+
+	/**
+	 * Return the damage dealt to the defender.
+	 */
+	@Basic
+	public int getDamage() {
+		return this.damage;
+	}
+
+	/**
+	 * Variable registering whether the attack hit the defender.
+	 */
+	private boolean hit;
+
+	/**
+	 * Return whether the attack hit the defender.
+	 */
+	@Basic
+	public boolean isHit() {
+		return this.hit;
+	}
+
+	/**
+	 * Return a textual representation of this event.
+	 */
+	@Override
+	public String toString() {
+		if (hit)
+			return attacker.getName() + " attacks " + defender.getName() + " (roll " + roll + ", damage " + damage + ")";
+		return attacker.getName() + " attack missed. (roll " + roll + ")";
+	}
+
+}
@@ -0,0 +1,641 @@
+package RPG3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of combat listeners appending every attack as a fixed-width record to a memory-mapped journal file,
+ * from which a combat replayer rebuilds the hitpoints of the monsters at any round.
+ * Attacking threads only claim a slot in a lock-free ring buffer and fill it in, like a ring buffer combat sink,
+ * so attacks from any number of threads don't wait for each other. A background thread drains the ring buffer
+ * in the order of the slots and is the only thread writing the file. An attacking thread only waits when the
+ * background thread is a full ring buffer behind, so no attack is ever dropped.
+ * The rounds of a journal are numbered from 0, in the order in which the attacks claimed their slots.
+ * Every monster gets a number in the journal when it first shows up, and a state record with its hitpoints.
+ * Every checkpoint interval, before the attack of that round, a checkpoint is appended. Every FULL_CHECKPOINTS-th
+ * checkpoint is full and holds the hitpoints of all monsters; the checkpoints in between hold the hitpoints
+ * of the monsters active since the last full checkpoint. A replayer seeking to a checkpoint therefore reads
+ * at most one full checkpoint, that checkpoint and the attacks since.
+ * Attacks in duels are journaled with the hitpoints in the duel, so a monster fighting several duels
+ * gets a state record whenever it enters a duel with other hitpoints than it was last journaled with.
+ * The journal only holds weak references to its monsters, so monsters that are no longer used elsewhere are collected.
+ * <p>
+ * The file starts with a header of RECORD_SIZE bytes, followed by the records. Every record starts with
+ * the round (long) and the type (int) of the record, followed by:
+ * <ul>
+ * <li>ATTACK: the attacker, the defender, the roll, the damage and the hitpoints of the defender after the attack (ints).
+ * <li>STATE: the monster (int), 8 unused bytes and the hitpoints of the monster (int).
+ * <li>CHECKPOINT: the number of states (int), the record of the previous checkpoint (long), 4 unused bytes
+ * and the record of the full checkpoint it builds on (long), -1 if there is none or it is full itself,
+ * followed by its STATE records.
+ * </ul>
+ * The file is mapped in segments, so appending a record only writes to memory. The header is updated after
+ * every drained attack, so a journal that isn't closed still holds every attack drained before.
+ * Only the header and the segment being written are mapped: a segment is written to the file and released
+ * as soon as the journal moves on to the next one, and unmapped once it is collected.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class CombatJournal implements CombatListener, Closeable {
+
+	/**
+	 * Initialize a new journal writing to the given file, with the given checkpoint interval.
+	 * @param 	fileName
+	 * 			The name of the file to which the journal is written. An existing file is overwritten.
+	 * @param 	checkpointInterval
+	 * 			The number of rounds between two checkpoints.
+	 * @post	The new journal has no rounds and no monsters.
+	 * 			| new.getNbRounds() == 0 && new.getNbMonsters() == 0
+	 * @post	The checkpoint interval of the new journal is the given interval.
+	 * 			| new.getCheckpointInterval() == checkpointInterval
+	 * @post	A background thread drains the ring buffer of the new journal until it is closed.
+	 * @throws	IllegalArgumentException
+	 * 			The file name doesn't exist or the checkpoint interval isn't valid.
+	 * 			| fileName == null || !isValidCheckpointInterval(checkpointInterval)
+	 * @throws	IOException
+	 * 			The file can't be opened for writing.
+	 */
+	public CombatJournal(String fileName, int checkpointInterval) throws IllegalArgumentException, IOException {
+		if (fileName == null)
+			throw new IllegalArgumentException("File does not exist.");
+		if (!isValidCheckpointInterval(checkpointInterval))
+			throw new IllegalArgumentException("Not a valid checkpoint interval.");
+		this.checkpointInterval = checkpointInterval;
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+		file.setLength(0);
+		this.channel = file.getChannel();
+		try {
+			this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+		}
+		catch (IOException exc) {
+			channel.close();
+			throw exc;
+		}
+		this.current = header;
+		header.putInt(HEADER_MAGIC, MAGIC);
+		header.putInt(HEADER_VERSION, VERSION);
+		writeHeader();
+		for (int i = 0; i < RING_SIZE; i++)
+			this.slots[i] = new Slot();
+		this.drainer = new Thread(this::drainUntilClosed, "combat-journal");
+		this.drainer.setDaemon(true);
+		this.drainer.start();
+	}
+
+	/**
+	 * Initialize a new journal writing to the given file, with the default checkpoint interval.
+	 * @effect	| this(fileName, DEFAULT_CHECKPOINT_INTERVAL)
+	 */
+	public CombatJournal(String fileName) throws IllegalArgumentException, IOException {
+		this(fileName, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	//SECTION: FORMAT
+
+	/**
+	 * Variable registering the number of bytes of the header and of every record.
+	 */
+	public final static int RECORD_SIZE = 32;
+
+	/**
+	 * Variable registering the number of bytes mapped at once. It is a multiple of the record size,
+	 * so a record never spans two segments.
+	 */
+	final static int SEGMENT_SIZE = RECORD_SIZE << 15;
+
+	final static int MAGIC = 0x52504733;
+	final static int VERSION = 3;
+
+	final static int HEADER_MAGIC = 0;
+	final static int HEADER_VERSION = 4;
+	final static int HEADER_NB_RECORDS = 8;
+	final static int HEADER_LAST_CHECKPOINT = 16;
+	final static int HEADER_NB_ROUNDS = 24;
+
+	final static int ATTACK = 1;
+	final static int STATE = 2;
+	final static int CHECKPOINT = 3;
+
+	final static int FIELD_ROUND = 0;
+	final static int FIELD_TYPE = 8;
+	final static int FIELD_MONSTER = 12;
+	final static int FIELD_DEFENDER = 16;
+	final static int FIELD_PREVIOUS = 16;
+	final static int FIELD_ROLL = 20;
+	final static int FIELD_DAMAGE = 24;
+	final static int FIELD_BASE = 24;
+	final static int FIELD_HITPOINTS = 28;
+
+	/**
+	 * Return the position in the file of the record with the given number.
+	 */
+	static long positionOf(long record) {
+		return RECORD_SIZE + record * RECORD_SIZE;
+	}
+
+	//SECTION: CHECKPOINTS
+
+	/**
+	 * Variable registering the default number of rounds between two checkpoints.
+	 */
+	public final static int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+
+	/**
+	 * Variable registering how many checkpoints there are from one full checkpoint to the next.
+	 */
+	public final static int FULL_CHECKPOINTS = 16;
+
+	/**
+	 * Check whether the given checkpoint interval is valid.
+	 * @return	True if the interval is strictly positive.
+	 * 			| return == (checkpointInterval > 0)
+	 */
+	public static boolean isValidCheckpointInterval(int checkpointInterval) {
+		return checkpointInterval > 0;
+	}
+
+	/**
+	 * Variable registering the number of rounds between two checkpoints of this journal.
+	 */
+	private final int checkpointInterval;
+
+	/**
+	 * Return the number of rounds between two checkpoints of this journal.
+	 */
+	@Basic
+	public int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+
+	/**
+	 * Variables registering the record of the last checkpoint and of the last full checkpoint, -1 if there is none,
+	 * and the number of checkpoints.
+	 */
+	private long lastCheckpoint = -1;
+	private long lastFullCheckpoint = -1;
+	private long nbCheckpoints = 0;
+
+	/**
+	 * Variable referencing the numbers of the monsters with a state or attack record since the last full checkpoint.
+	 */
+	private final BitSet active = new BitSet();
+
+	/**
+	 * Append a checkpoint: a full checkpoint with the hitpoints of all monsters every FULL_CHECKPOINTS checkpoints,
+	 * and else a checkpoint with the hitpoints of the monsters active since the last full checkpoint.
+	 */
+	private void checkpoint() throws IOException {
+		boolean full = (nbCheckpoints % FULL_CHECKPOINTS == 0);
+		long record = nbRecords;
+		MappedByteBuffer buffer = append(CHECKPOINT);
+		int position = (int) (positionOf(record) % SEGMENT_SIZE);
+		buffer.putInt(position + FIELD_MONSTER, full ? nbMonsters : active.cardinality());
+		buffer.putLong(position + FIELD_PREVIOUS, lastCheckpoint);
+		buffer.putLong(position + FIELD_BASE, full ? -1 : lastFullCheckpoint);
+		lastCheckpoint = record;
+		nbCheckpoints++;
+		if (full) {
+			lastFullCheckpoint = record;
+			active.clear();
+			for (int monster = 0; monster < nbMonsters; monster++)
+				putState(monster, hitpoints[monster]);
+		}
+		else
+			for (int monster = active.nextSetBit(0); monster >= 0; monster = active.nextSetBit(monster + 1))
+				putState(monster, hitpoints[monster]);
+	}
+
+	//SECTION: MONSTERS
+
+	/**
+	 * Variable referencing the numbers of the monsters of this journal.
+	 * Monsters don't override equals, so they are looked up by identity.
+	 * It is only changed by the background thread, while holding its own lock.
+	 */
+	private final Map<Monster, Integer> numbers = new WeakHashMap<Monster, Integer>();
+
+	/**
+	 * Variable registering the number of monsters of this journal.
+	 */
+	private volatile int nbMonsters = 0;
+
+	/**
+	 * Variable referencing the last journaled hitpoints of every monster of this journal.
+	 */
+	private int[] hitpoints = new int[16];
+
+	/**
+	 * Return the number of monsters journaled so far.
+	 */
+	public int getNbMonsters() {
+		return this.nbMonsters;
+	}
+
+	/**
+	 * Return the number of the given monster in this journal.
+	 * @param 	monster
+	 * 			The monster to be looked up.
+	 * @return	The number of the monster, or -1 if it isn't journaled yet.
+	 */
+	public int getNumber(Monster monster) {
+		synchronized (numbers) {
+			Integer number = numbers.get(monster);
+			return (number == null) ? -1 : number;
+		}
+	}
+
+	/**
+	 * Add the given monster to this journal, with its current hitpoints, and wait until it is added.
+	 * A monster is added when it first attacks or is attacked, but a monster that is attacked before it is added
+	 * is added with its hitpoints after that attack, so monsters should be added before their fight.
+	 * @param 	monster
+	 * 			The monster to be added.
+	 * @return	The number of the monster in this journal.
+	 * @throws	IllegalArgumentException
+	 * 			The monster doesn't exist.
+	 * 			| monster == null
+	 * @throws	IllegalStateException
+	 * 			This journal is closed or couldn't write a record.
+	 */
+	public int register(Monster monster) throws IllegalArgumentException, IllegalStateException {
+		if (monster == null)
+			throw new IllegalArgumentException("Monster does not exist.");
+		checkOpen();
+		long sequence = publish(monster, null, 0, 0, monster.getHitpoints(), 0);
+		while (head <= sequence) {
+			checkOpen();
+			LockSupport.unpark(drainer);
+			LockSupport.parkNanos(this, PARK_NANOS);
+		}
+		checkOpen();
+		return getNumber(monster);
+	}
+
+	/**
+	 * Return the number of the given monster, adding it with the given hitpoints if it isn't journaled yet.
+	 */
+	private int numberOf(Monster monster, int currentHitpoints) throws IOException {
+		Integer number;
+		synchronized (numbers) {
+			number = numbers.get(monster);
+			if (number == null)
+				numbers.put(monster, nbMonsters);
+		}
+		if (number != null)
+			return number;
+		int added = nbMonsters;
+		if (added == hitpoints.length)
+			hitpoints = Arrays.copyOf(hitpoints, 2 * added);
+		nbMonsters = added + 1;
+		appendState(added, currentHitpoints);
+		return added;
+	}
+
+	//SECTION: RING BUFFER
+
+	/**
+	 * Variable registering the number of slots of the ring buffer, a power of two.
+	 */
+	final static int RING_SIZE = 1 << 12;
+
+	/**
+	 * A class of slots of the ring buffer, holding one attack or registration until it is drained.
+	 * A slot without defender holds the registration of its monster.
+	 */
+	private static final class Slot {
+
+		private Monster monster;
+		private Monster defender;
+		private int roll;
+		private int damage;
+		private int monsterHitpoints;
+		private int defenderHitpoints;
+	}
+
+	/**
+	 * Array holding the slots of the ring buffer, reused for every round of the buffer.
+	 */
+	private final Slot[] slots = new Slot[RING_SIZE];
+
+	/**
+	 * Array registering, for every slot, the sequence number after the last event published in it.
+	 */
+	private final AtomicLongArray published = new AtomicLongArray(RING_SIZE);
+
+	/**
+	 * Variable registering the sequence number of the next event to be claimed by an attacking thread.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Variable registering the sequence number of the next event to be drained by the background thread.
+	 */
+	private volatile long head = 0;
+
+	/**
+	 * Claim the next slot of the ring buffer, fill it with the given event and publish it.
+	 * Waits while the ring buffer is full, unless this journal is closed or failed.
+	 * @return	The sequence number of the event, or -1 if the event was ignored.
+	 */
+	private long publish(Monster monster, Monster defender, int roll, int damage, int monsterHitpoints, int defenderHitpoints) {
+		long sequence;
+		while (true) {
+			if (closed || failure != null)
+				return -1;
+			sequence = tail.get();
+			if (sequence - head >= RING_SIZE) {
+				LockSupport.unpark(drainer);
+				LockSupport.parkNanos(this, PARK_NANOS);
+			}
+			else if (tail.compareAndSet(sequence, sequence + 1))
+				break;
+		}
+		int index = (int) (sequence & (RING_SIZE - 1));
+		Slot slot = slots[index];
+		slot.monster = monster;
+		slot.defender = defender;
+		slot.roll = roll;
+		slot.damage = damage;
+		slot.monsterHitpoints = monsterHitpoints;
+		slot.defenderHitpoints = defenderHitpoints;
+		published.lazySet(index, sequence + 1);
+		return sequence;
+	}
+
+	//SECTION: JOURNALING
+
+	/**
+	 * Variable registering the number of attacks in this journal.
+	 */
+	private volatile long nbRounds = 0;
+
+	/**
+	 * Variable registering the number of records in this journal.
+	 */
+	private long nbRecords = 0;
+
+	/**
+	 * Return the number of attacks written to this journal so far.
+	 */
+	public long getNbRounds() {
+		return this.nbRounds;
+	}
+
+	/**
+	 * Append the given attack to this journal, with the current hitpoints of the monsters.
+	 * @effect	| attacked(attacker, defender, roll, damage, hit, attacker.getHitpoints(), defender.getHitpoints())
+	 */
+	@Override
+	public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+		attacked(attacker, defender, roll, damage, hit, attacker.getHitpoints(), defender.getHitpoints());
+	}
+
+	/**
+	 * Append the given attack to this journal.
+	 * The attack is only put in the ring buffer; the background thread writes it to the file.
+	 * If the hitpoints of the attacker, or the hitpoints of the defender before a blow that didn't kill it,
+	 * differ from the hitpoints with which it was last journaled, its new hitpoints are appended first.
+	 * If the round of the attack is a multiple of the checkpoint interval, a checkpoint is appended before the attack.
+	 * Attacks after this journal is closed or failed are ignored.
+	 * @post	Unless this journal is closed or failed, the attack will be the next round of this journal
+	 * 			once the attacks put in the ring buffer before it are written.
+	 */
+	@Override
+	public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit,
+			int attackerHitpoints, int defenderHitpoints) {
+		publish(attacker, defender, roll, damage, attackerHitpoints, defenderHitpoints);
+	}
+
+	/**
+	 * Write the given attack to the file, with the state records and the checkpoint before it.
+	 */
+	private void write(Monster attacker, Monster defender, int roll, int damage, int attackerHitpoints,
+			int defenderHitpoints) throws IOException {
+		int attackerNumber = numberOf(attacker, attackerHitpoints);
+		int defenderNumber = numberOf(defender, defenderHitpoints + damage);
+		if (hitpoints[attackerNumber] != attackerHitpoints)
+			appendState(attackerNumber, attackerHitpoints);
+		if (defenderHitpoints > 0 && hitpoints[defenderNumber] != defenderHitpoints + damage)
+			appendState(defenderNumber, defenderHitpoints + damage);
+		if (nbRounds % checkpointInterval == 0)
+			checkpoint();
+		long record = nbRecords;
+		MappedByteBuffer buffer = append(ATTACK);
+		int position = (int) (positionOf(record) % SEGMENT_SIZE);
+		buffer.putInt(position + FIELD_MONSTER, attackerNumber);
+		buffer.putInt(position + FIELD_DEFENDER, defenderNumber);
+		buffer.putInt(position + FIELD_ROLL, roll);
+		buffer.putInt(position + FIELD_DAMAGE, damage);
+		buffer.putInt(position + FIELD_HITPOINTS, defenderHitpoints);
+		hitpoints[defenderNumber] = defenderHitpoints;
+		active.set(defenderNumber);
+		nbRounds++;
+		writeHeader();
+	}
+
+	/**
+	 * Append a state record with the given hitpoints of the given monster, and mark the monster active.
+	 */
+	private void appendState(int monster, int monsterHitpoints) throws IOException {
+		putState(monster, monsterHitpoints);
+		active.set(monster);
+	}
+
+	/**
+	 * Append a state record with the given hitpoints of the given monster.
+	 */
+	private void putState(int monster, int monsterHitpoints) throws IOException {
+		long record = nbRecords;
+		MappedByteBuffer buffer = append(STATE);
+		int position = (int) (positionOf(record) % SEGMENT_SIZE);
+		buffer.putInt(position + FIELD_MONSTER, monster);
+		buffer.putInt(position + FIELD_HITPOINTS, monsterHitpoints);
+		hitpoints[monster] = monsterHitpoints;
+	}
+
+	/**
+	 * Append a record of the given type in the current round, and return the segment holding it.
+	 */
+	private MappedByteBuffer append(int type) throws IOException {
+		long position = positionOf(nbRecords);
+		MappedByteBuffer buffer = segment((int) (position / SEGMENT_SIZE));
+		int offset = (int) (position % SEGMENT_SIZE);
+		buffer.putLong(offset + FIELD_ROUND, nbRounds);
+		buffer.putInt(offset + FIELD_TYPE, type);
+		nbRecords++;
+		return buffer;
+	}
+
+	/**
+	 * Write the number of records, the last checkpoint and the number of rounds to the header.
+	 * The number of records is written last, so a reader never sees a record that isn't complete.
+	 */
+	private void writeHeader() {
+		header.putLong(HEADER_LAST_CHECKPOINT, lastCheckpoint);
+		header.putLong(HEADER_NB_ROUNDS, nbRounds);
+		header.putLong(HEADER_NB_RECORDS, nbRecords);
+	}
+
+	//SECTION: BACKGROUND THREAD
+
+	/**
+	 * Variable referencing the thread draining the ring buffer.
+	 */
+	private final Thread drainer;
+
+	/**
+	 * Variable registering how long a thread waits for the ring buffer.
+	 */
+	private final static long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/**
+	 * Write all published events to the file, in the order of their sequence numbers.
+	 * @return	The number of events written.
+	 */
+	private int drain() throws IOException {
+		int count = 0;
+		long sequence = head;
+		while (true) {
+			int index = (int) (sequence & (RING_SIZE - 1));
+			if (published.get(index) != sequence + 1)
+				break;
+			Slot slot = slots[index];
+			if (slot.defender == null)
+				numberOf(slot.monster, slot.monsterHitpoints);
+			else
+				write(slot.monster, slot.defender, slot.roll, slot.damage, slot.monsterHitpoints, slot.defenderHitpoints);
+			slot.monster = null;
+			slot.defender = null;
+			sequence++;
+			head = sequence;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Drain the ring buffer until this journal is closed.
+	 */
+	private void drainUntilClosed() {
+		try {
+			while (!closed)
+				if (drain() == 0)
+					LockSupport.parkNanos(this, PARK_NANOS);
+		}
+		catch (IOException exc) {
+			failure = exc;
+		}
+	}
+
+	//SECTION: FILE
+
+	/**
+	 * Variable referencing the channel of the file of this journal.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Variable referencing the first segment of the file of this journal, which holds the header.
+	 */
+	private MappedByteBuffer header;
+
+	/**
+	 * Variable referencing the segment of the file of this journal to which records are appended.
+	 */
+	private MappedByteBuffer current;
+
+	/**
+	 * Variable registering the number of the segment to which records are appended.
+	 */
+	private int currentNumber = 0;
+
+	/**
+	 * Return the segment with the given number, which is the current segment or the one after it.
+	 * Moving on to the next segment writes the current segment to the file and releases it, unless it holds the header.
+	 */
+	private MappedByteBuffer segment(int number) throws IOException {
+		if (number != currentNumber) {
+			MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, (long) number * SEGMENT_SIZE, SEGMENT_SIZE);
+			if (currentNumber != 0)
+				current.force();
+			current = next;
+			currentNumber = number;
+		}
+		return current;
+	}
+
+	/**
+	 * Variable registering whether this journal is closed.
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * Variable referencing the first exception thrown while writing a record.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Check that this journal can still be written.
+	 */
+	private void checkOpen() throws IllegalStateException {
+		if (closed)
+			throw new IllegalStateException("Journal is closed.");
+		if (failure != null)
+			throw new IllegalStateException("Journal failed.", failure);
+	}
+
+	/**
+	 * Close this journal.
+	 * @post	All attacks put in the ring buffer before closing are written to the file, and later attacks are ignored.
+	 * @throws	IOException
+	 * 			A record couldn't be written.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join();
+		}
+		catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			if (failure == null)
+				drain();
+		}
+		catch (IOException exc) {
+			failure = exc;
+		}
+		finally {
+			try {
+				current.force();
+				header.force();
+			}
+			finally {
+				current = null;
+				header = null;
+				channel.close();
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+}
@@ -0,0 +1,52 @@
+package RPG3;
+
+/**
+ * An interface for listeners that are notified of every attack of a monster.
+ * A combat listener is called on the thread of the attacking monster, so it should return quickly.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public interface CombatListener {
+
+	/**
+	 * Notify this listener that the given attacker attacked the given defender.
+	 * @param 	attacker
+	 * 			The monster that attacked.
+	 * @param 	defender
+	 * 			The monster that was attacked.
+	 * @param 	roll
+	 * 			The roll of the attack, compared against the protection of the defender.
+	 * @param 	damage
+	 * 			The damage dealt to the defender, 0 if the attack missed.
+	 * @param 	hit
+	 * 			True if the attack hit the defender.
+	 */
+	void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit);
+
+	/**
+	 * Notify this listener that the given attacker attacked the given defender in a duel.
+	 * A duel is fought on copies of the hitpoints of the monsters, so the hitpoints of the monsters
+	 * themselves are left unchanged and the hitpoints in the duel are given instead.
+	 * @param 	attackerHitpoints
+	 * 			The hitpoints of the attacker in the duel.
+	 * @param 	defenderHitpoints
+	 * 			The hitpoints of the defender in the duel after the attack.
+	 * @effect	By default, the attack is notified as an attack outside a duel.
+	 * 			| attacked(attacker, defender, roll, damage, hit)
+	 */
+	default void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit,
+			int attackerHitpoints, int defenderHitpoints) {
+		attacked(attacker, defender, roll, damage, hit);
+	}
+
+	/**
+	 * The listener ignoring every attack.
+	 */
+	CombatListener NONE = new CombatListener() {
+		@Override
+		public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+		}
+	};
+
+}
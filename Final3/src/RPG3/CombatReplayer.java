@@ -0,0 +1,211 @@
+package RPG3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class of replayers rebuilding the hitpoints of the monsters of a combat journal at any round.
+ * A replayer seeks to the last checkpoint before the round, applies the states of the full checkpoint it builds on
+ * and its own states, and then only the records written since. The checkpoints are found through the header
+ * of the journal when it is opened, so a replayer never reads the attacks before the checkpoint it seeks to. The whole journal is mapped when it is opened,
+ * so several threads can replay the same journal at the same time.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class CombatReplayer implements Closeable {
+
+	/**
+	 * Initialize a new replayer reading the journal in the given file.
+	 * @param 	fileName
+	 * 			The name of the file of the journal.
+	 * @throws	IllegalArgumentException
+	 * 			The file name doesn't exist.
+	 * 			| fileName == null
+	 * @throws	IOException
+	 * 			The file can't be read or doesn't hold a combat journal.
+	 */
+	public CombatReplayer(String fileName) throws IllegalArgumentException, IOException {
+		if (fileName == null)
+			throw new IllegalArgumentException("File does not exist.");
+		this.channel = new RandomAccessFile(fileName, "r").getChannel();
+		try {
+			if (channel.size() < CombatJournal.RECORD_SIZE)
+				throw new IOException("Not a combat journal.");
+			MappedByteBuffer header = segment(0);
+			if (header.getInt(CombatJournal.HEADER_MAGIC) != CombatJournal.MAGIC
+					|| header.getInt(CombatJournal.HEADER_VERSION) != CombatJournal.VERSION)
+				throw new IOException("Not a combat journal.");
+			this.nbRecords = header.getLong(CombatJournal.HEADER_NB_RECORDS);
+			this.nbRounds = header.getLong(CombatJournal.HEADER_NB_ROUNDS);
+			segment((int) (CombatJournal.positionOf(nbRecords) / CombatJournal.SEGMENT_SIZE));
+			List<Long> found = new ArrayList<Long>();
+			for (long record = header.getLong(CombatJournal.HEADER_LAST_CHECKPOINT); record >= 0;
+					record = getLong(record, CombatJournal.FIELD_PREVIOUS))
+				found.add(record);
+			this.checkpoints = new long[found.size()];
+			this.checkpointRounds = new long[found.size()];
+			for (int i = 0; i < found.size(); i++) {
+				long record = found.get(found.size() - 1 - i);
+				checkpoints[i] = record;
+				checkpointRounds[i] = getLong(record, CombatJournal.FIELD_ROUND);
+			}
+		}
+		catch (IOException exc) {
+			channel.close();
+			throw exc;
+		}
+	}
+
+	//SECTION: JOURNAL
+
+	/**
+	 * Variable registering the number of records of the journal.
+	 */
+	private final long nbRecords;
+
+	/**
+	 * Variable registering the number of attacks of the journal.
+	 */
+	private final long nbRounds;
+
+	/**
+	 * Variables referencing the records and the rounds of the checkpoints of the journal, in increasing order.
+	 */
+	private final long[] checkpoints;
+	private final long[] checkpointRounds;
+
+	/**
+	 * Return the number of attacks of the journal.
+	 */
+	public long getNbRounds() {
+		return this.nbRounds;
+	}
+
+	/**
+	 * Return the number of checkpoints of the journal.
+	 */
+	public int getNbCheckpoints() {
+		return this.checkpoints.length;
+	}
+
+	//SECTION: REPLAY
+
+	/**
+	 * Return the hitpoints of the monsters of the journal before the attack of the given round.
+	 * @param 	round
+	 * 			The round before which the hitpoints are rebuilt. The number of rounds gives the hitpoints after the last attack.
+	 * @return	An array with the hitpoints of every monster journaled before that round, indexed by its number in the journal.
+	 * @throws	IllegalArgumentException
+	 * 			The round isn't a round of the journal.
+	 * 			| round < 0 || round > getNbRounds()
+	 * @throws	IOException
+	 * 			The journal couldn't be read.
+	 */
+	public int[] getHitpoints(long round) throws IllegalArgumentException, IOException {
+		if (round < 0 || round > nbRounds)
+			throw new IllegalArgumentException("Not a round of the journal.");
+		int checkpoint = Arrays.binarySearch(checkpointRounds, round);
+		if (checkpoint < 0)
+			checkpoint = -checkpoint - 2;
+		int[] hitpoints = new int[16];
+		int nbMonsters = 0;
+		long record = 0;
+		if (checkpoint >= 0) {
+			long base = getLong(checkpoints[checkpoint], CombatJournal.FIELD_BASE);
+			if (base >= 0) {
+				long end = base + 1 + getInt(base, CombatJournal.FIELD_MONSTER);
+				for (long state = base + 1; state < end; state++) {
+					hitpoints = applyState(state, hitpoints);
+					nbMonsters = Math.max(nbMonsters, getInt(state, CombatJournal.FIELD_MONSTER) + 1);
+				}
+			}
+			record = checkpoints[checkpoint];
+		}
+		for (; record < nbRecords; record++) {
+			int type = getInt(record, CombatJournal.FIELD_TYPE);
+			if (type == CombatJournal.ATTACK) {
+				if (getLong(record, CombatJournal.FIELD_ROUND) >= round)
+					break;
+				hitpoints[getInt(record, CombatJournal.FIELD_DEFENDER)] = getInt(record, CombatJournal.FIELD_HITPOINTS);
+			}
+			else if (type == CombatJournal.STATE) {
+				if (getLong(record, CombatJournal.FIELD_ROUND) > round)
+					break;
+				hitpoints = applyState(record, hitpoints);
+				nbMonsters = Math.max(nbMonsters, getInt(record, CombatJournal.FIELD_MONSTER) + 1);
+			}
+			else if (type != CombatJournal.CHECKPOINT)
+				throw new IOException("Not a valid record.");
+		}
+		return Arrays.copyOf(hitpoints, nbMonsters);
+	}
+
+	/**
+	 * Set the hitpoints of the monster of the given state record in the given hitpoints,
+	 * and return those hitpoints, grown if the monster didn't fit.
+	 */
+	private int[] applyState(long record, int[] hitpoints) throws IOException {
+		int monster = getInt(record, CombatJournal.FIELD_MONSTER);
+		if (monster >= hitpoints.length)
+			hitpoints = Arrays.copyOf(hitpoints, Math.max(2 * hitpoints.length, monster + 1));
+		hitpoints[monster] = getInt(record, CombatJournal.FIELD_HITPOINTS);
+		return hitpoints;
+	}
+
+	//SECTION: FILE
+
+	/**
+	 * Variable referencing the channel of the file of the journal.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Variable referencing the mapped segments of the file of the journal.
+	 */
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+
+	/**
+	 * Return the segment with the given number, mapping it and all segments before it if needed.
+	 * Segments are only mapped while this replayer is initialized.
+	 */
+	private MappedByteBuffer segment(int number) throws IOException {
+		while (segments.size() <= number) {
+			long position = (long) segments.size() * CombatJournal.SEGMENT_SIZE;
+			long size = Math.min(CombatJournal.SEGMENT_SIZE, channel.size() - position);
+			segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+		}
+		return segments.get(number);
+	}
+
+	/**
+	 * Return the int at the given offset in the given record.
+	 */
+	private int getInt(long record, int offset) throws IOException {
+		long position = CombatJournal.positionOf(record);
+		return segment((int) (position / CombatJournal.SEGMENT_SIZE)).getInt((int) (position % CombatJournal.SEGMENT_SIZE) + offset);
+	}
+
+	/**
+	 * Return the long at the given offset in the given record.
+	 */
+	private long getLong(long record, int offset) throws IOException {
+		long position = CombatJournal.positionOf(record);
+		return segment((int) (position / CombatJournal.SEGMENT_SIZE)).getLong((int) (position % CombatJournal.SEGMENT_SIZE) + offset);
+	}
+
+	/**
+	 * Close this replayer.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
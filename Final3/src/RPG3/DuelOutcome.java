@@ -0,0 +1,72 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of exact outcome distributions of a duel between an attacker and an opponent fought until one of them dies.
+ * @invar	The probabilities of the outcomes add up to one.
+ * 			| getWinProbability() + getLossProbability() + getDrawProbability() == 1
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class DuelOutcome {
+
+	/**
+	 * Initialize a new outcome with given probabilities and expected number of rounds.
+	 * @param 	winProbability
+	 * 			The probability that the attacker wins.
+	 * @param 	lossProbability
+	 * 			The probability that the opponent wins.
+	 * @param 	expectedRounds
+	 * 			The expected number of rounds of the duel.
+	 */
+	DuelOutcome(double winProbability, double lossProbability, double expectedRounds) {
+		this.winProbability = winProbability;
+		this.lossProbability = lossProbability;
+		this.expectedRounds = expectedRounds;
+	}
+
+	/**
+	 * Variables registering the probabilities that the attacker or the opponent wins.
+	 */
+	private final double winProbability;
+	private final double lossProbability;
+
+	/**
+	 * Variable registering the expected number of rounds.
+	 */
+	private final double expectedRounds;
+
+	@Basic
+	public double getWinProbability() {
+		return this.winProbability;
+	}
+
+	@Basic
+	public double getLossProbability() {
+		return this.lossProbability;
+	}
+
+	/**
+	 * Return the probability that the duel never ends, because neither monster can hurt the other anymore.
+	 * @return	| result == Math.max(0, 1 - getWinProbability() - getLossProbability())
+	 */
+	public double getDrawProbability() {
+		return Math.max(0, 1 - winProbability - lossProbability);
+	}
+
+	/**
+	 * Return the expected number of rounds of the duel, which is infinite if the duel may never end.
+	 */
+	@Basic
+	public double getExpectedRounds() {
+		return this.expectedRounds;
+	}
+
+	@Override
+	public String toString() {
+		return "DuelOutcome[win=" + winProbability + ", loss=" + lossProbability + ", rounds=" + expectedRounds + "]";
+	}
+
+}
@@ -0,0 +1,110 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of results of a duel between an attacker and an opponent.
+ * @invar	The winner must be the attacker, the opponent or nobody.
+ * 			| getWinner() == ATTACKER || getWinner() == OPPONENT || getWinner() == DRAW
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class DuelResult {
+
+	/**
+	 * Value indicating the attacker won the duel.
+	 */
+	public final static int ATTACKER = 0;
+
+	/**
+	 * Value indicating the opponent won the duel.
+	 */
+	public final static int OPPONENT = 1;
+
+	/**
+	 * Value indicating nobody won the duel.
+	 */
+	public final static int DRAW = -1;
+
+	/**
+	 * Initialize a new duel result.
+	 * @param 	winner
+	 * 			The winner of the duel.
+	 * @param 	rounds
+	 * 			The number of rounds fought.
+	 * @param 	attackerHitpoints
+	 * 			The hitpoints the attacker has left.
+	 * @param 	opponentHitpoints
+	 * 			The hitpoints the opponent has left.
+	 * @post	The winner, rounds and remaining hitpoints are equal to the given values.
+	 * 			| new.getWinner() == winner && new.getRounds() == rounds
+	 * 			| && new.getAttackerHitpoints() == attackerHitpoints
+	 * 			| && new.getOpponentHitpoints() == opponentHitpoints
+	 */
+	DuelResult(int winner, int rounds, int attackerHitpoints, int opponentHitpoints) {
+		this.winner = winner;
+		this.rounds = rounds;
+		this.attackerHitpoints = attackerHitpoints;
+		this.opponentHitpoints = opponentHitpoints;
+	}
+
+	/**
+	 * Variable registering the winner of the duel.
+	 */
+	private final int winner;
+
+	/**
+	 * Return the winner of the duel.
+	 */
+	@Basic
+	public int getWinner() {
+		return this.winner;
+	}
+
+	/**
+	 * Variable registering the number of rounds fought.
+	 */
+	private final int rounds;
+
+	/**
+	 * Return the number of rounds fought.
+	 */
+	@Basic
+	public int getRounds() {
+		return this.rounds;
+	}
+
+	/**
+	 * Variable registering the hitpoints the attacker has left.
+	 */
+	private final int attackerHitpoints;
+
+	/**
+	 * Return the hitpoints the attacker has left.
+	 */
+	@Basic
+	public int getAttackerHitpoints() {
+		return this.attackerHitpoints;
+	}
+
+	/**
+	 * Variable registering the hitpoints the opponent has left.
+	 */
+	private final int opponentHitpoints;
+
+	/**
+	 * Return the hitpoints the opponent has left.
+	 */
+	@Basic
+	public int getOpponentHitpoints() {
+		return this.opponentHitpoints;
+	}
+
+	@Override
+	public String toString() {
+		return "DuelResult[winner=" + winner + ", rounds=" + rounds + ", attackerHitpoints=" + attackerHitpoints
+				+ ", opponentHitpoints=" + opponentHitpoints + "]";
+	}
+
+}
@@ -0,0 +1,245 @@
+package RPG3;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A class of solvers computing the exact outcome of a duel instead of fighting it.
+ * A duel is fought in rounds in which the attacker hits the opponent and the opponent, if still alive, hits back,
+ * following the rules of Monster.hit: the roll nextInt(31), capped by the hitpoints of the attacking monster,
+ * must be larger than the protection of the monster attacked, and a hit always deals the attack damage.
+ * Because every hit changes the hitpoints of a monster in the same direction, the states (hitpoints of the attacker,
+ * hitpoints of the opponent) only loop back onto themselves, and the chain is solved in one pass over the number of
+ * hits each monster has taken, dividing every state by the probability of leaving it.
+ * Solved duels are kept in a cache keyed by the stats of both monsters, so a duel between monsters with the same stats
+ * is only solved once. Unlike the duels of an arena, these duels are not limited to a maximum number of rounds.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class DuelSolver {
+
+	/**
+	 * Variable registering the number of different rolls of an attack.
+	 */
+	private final static int NB_ROLLS = 31;
+
+	/**
+	 * Variable referencing the cache of solved duels.
+	 */
+	private final ConcurrentMap<Key, DuelOutcome> cache = new ConcurrentHashMap<Key, DuelOutcome>();
+
+	/**
+	 * Return the outcome of a duel between the given monsters, in their current state.
+	 * @param 	attacker
+	 * 			The monster attacking first.
+	 * @param 	opponent
+	 * 			The monster attacked.
+	 * @effect	| solve(attacker.getHitpoints(), attacker.getMaxHitpoints(), attacker.getProtection(), attackDamage(attacker),
+	 * 			|	opponent.getHitpoints(), opponent.getMaxHitpoints(), opponent.getProtection(), attackDamage(opponent))
+	 * @throws	IllegalArgumentException
+	 * 			One of the monsters doesn't exist.
+	 * 			| attacker == null || opponent == null
+	 */
+	public DuelOutcome solve(Monster attacker, Monster opponent) throws IllegalArgumentException {
+		if (attacker == null || opponent == null)
+			throw new IllegalArgumentException("Monster does not exist.");
+		return solve(attacker.getHitpoints(), attacker.getMaxHitpoints(), attacker.getProtection(), attacker.getAttackDamage(),
+				opponent.getHitpoints(), opponent.getMaxHitpoints(), opponent.getProtection(), opponent.getAttackDamage());
+	}
+
+	/**
+	 * Return the outcome of a duel between monsters with the given stats.
+	 * @param	attackerDamage
+	 * 			The damage dealt by a hit of the attacker, including its weapon and strength.
+	 * @param	opponentDamage
+	 * 			The damage dealt by a hit of the opponent, including its weapon and strength.
+	 * @return	The outcome of the duel, taken from the cache if a duel with the same stats was solved before.
+	 * @throws	IllegalArgumentException
+	 * 			The hitpoints of a monster are negative or larger than its maximum hitpoints.
+	 */
+	public DuelOutcome solve(int attackerHitpoints, int attackerMaxHitpoints, int attackerProtection, int attackerDamage,
+			int opponentHitpoints, int opponentMaxHitpoints, int opponentProtection, int opponentDamage) throws IllegalArgumentException {
+		if (attackerHitpoints < 0 || attackerHitpoints > attackerMaxHitpoints
+				|| opponentHitpoints < 0 || opponentHitpoints > opponentMaxHitpoints)
+			throw new IllegalArgumentException("Not valid hitpoints.");
+		Key key = new Key(attackerHitpoints, attackerMaxHitpoints, attackerProtection, attackerDamage,
+				opponentHitpoints, opponentMaxHitpoints, opponentProtection, opponentDamage);
+		DuelOutcome outcome = cache.get(key);
+		if (outcome == null) {
+			outcome = compute(key);
+			DuelOutcome previous = cache.putIfAbsent(key, outcome);
+			if (previous != null)
+				outcome = previous;
+		}
+		return outcome;
+	}
+
+	/**
+	 * Return the number of duels in the cache of this solver.
+	 */
+	public int getCacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Remove all duels from the cache of this solver.
+	 * @post	| new.getCacheSize() == 0
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Return the probability that a monster with the given hitpoints hits a monster with the given protection.
+	 * @return	| if (hitpoints > protection)
+	 * 			|	then result == (number of rolls in 0..30 larger than protection) / 31
+	 * 			|	else result == 0
+	 */
+	static double hitProbability(int hitpoints, int protection) {
+		if (hitpoints <= protection)
+			return 0;
+		return Math.min(NB_ROLLS, Math.max(0, NB_ROLLS - 1 - protection)) / (double) NB_ROLLS;
+	}
+
+	/**
+	 * Return the hitpoints of a monster after every number of hits, ending with the hits after which it is dead.
+	 * If a hit doesn't change the hitpoints, the monster can't be killed and only its current hitpoints are returned.
+	 */
+	private static int[] hitpointsAfterHits(int hitpoints, int maxHitpoints, int damage) {
+		if (damage == 0 || hitpoints == 0)
+			return new int[] {hitpoints};
+		int length = 1;
+		for (int current = hitpoints; current > 0; current = Monster.hitpointsAfterHit(current, maxHitpoints, damage))
+			length++;
+		int[] result = new int[length];
+		result[0] = hitpoints;
+		for (int i = 1; i < length; i++)
+			result[i] = Monster.hitpointsAfterHit(result[i-1], maxHitpoints, damage);
+		return result;
+	}
+
+	/**
+	 * Compute the outcome of the duel with the given stats.
+	 * The state (i, j) is the state in which the attacker has taken i hits and the opponent j hits. Every round leads
+	 * from (i, j) to (i, j), (i, j+1), (i+1, j) or (i+1, j+1), so the states are solved from the most hits down,
+	 * keeping only the row of states with one more hit on the attacker. Each row holds the probability that the
+	 * attacker wins, the probability that the opponent wins and the expected number of rounds of every state.
+	 */
+	private static DuelOutcome compute(Key key) {
+		int[] attackerHitpoints = hitpointsAfterHits(key.attackerHitpoints, key.attackerMaxHitpoints, key.opponentDamage);
+		int[] opponentHitpoints = hitpointsAfterHits(key.opponentHitpoints, key.opponentMaxHitpoints, key.attackerDamage);
+		int nbAttacker = attackerHitpoints.length;
+		int nbOpponent = opponentHitpoints.length;
+		double[][] next = new double[3][nbOpponent];
+		double[][] current = new double[3][nbOpponent];
+		double[] sums = new double[3];
+		for (int i = nbAttacker - 1; i >= 0; i--) {
+			int iHit = Math.min(i + 1, nbAttacker - 1);
+			for (int j = nbOpponent - 1; j >= 0; j--) {
+				if (attackerHitpoints[i] == 0 || opponentHitpoints[j] == 0) {
+					current[0][j] = (attackerHitpoints[i] > 0) ? 1 : 0;
+					current[1][j] = (opponentHitpoints[j] > 0) ? 1 : 0;
+					current[2][j] = 0;
+					continue;
+				}
+				int jHit = Math.min(j + 1, nbOpponent - 1);
+				double attack = hitProbability(attackerHitpoints[i], key.opponentProtection);
+				double stay = 0;
+				sums[0] = sums[1] = sums[2] = 0;
+				// The attacker hits, and kills the opponent or gets hit back or not.
+				if (opponentHitpoints[jHit] == 0)
+					sums[0] += attack;
+				else {
+					double back = hitProbability(opponentHitpoints[jHit], key.attackerProtection);
+					stay += accumulate(attack * back, iHit == i ? current : next, i, j, iHit, jHit, sums);
+					stay += accumulate(attack * (1 - back), current, i, j, i, jHit, sums);
+				}
+				// The attacker misses, and gets hit back or not.
+				double back = hitProbability(opponentHitpoints[j], key.attackerProtection);
+				stay += accumulate((1 - attack) * back, iHit == i ? current : next, i, j, iHit, j, sums);
+				stay += (1 - attack) * (1 - back);
+				double leave = 1 - stay;
+				if (leave <= 0) {
+					current[0][j] = 0;
+					current[1][j] = 0;
+					current[2][j] = Double.POSITIVE_INFINITY;
+				}
+				else {
+					current[0][j] = sums[0] / leave;
+					current[1][j] = sums[1] / leave;
+					current[2][j] = (1 + sums[2]) / leave;
+				}
+			}
+			double[][] swap = next;
+			next = current;
+			current = swap;
+		}
+		return new DuelOutcome(next[0][0], next[1][0], next[2][0]);
+	}
+
+	/**
+	 * Add the outcome of the given target state, weighted by the given probability, to the given sums.
+	 * @return	The given probability if the target state is the state (i, j) itself, and 0 otherwise.
+	 */
+	private static double accumulate(double probability, double[][] row, int i, int j, int targetI, int targetJ, double[] sums) {
+		if (probability == 0)
+			return 0;
+		if (targetI == i && targetJ == j)
+			return probability;
+		for (int k = 0; k < sums.length; k++)
+			sums[k] += probability * row[k][targetJ];
+		return 0;
+	}
+
+	/**
+	 * A class of keys of the cache, holding the stats of both monsters of a duel.
+	 */
+	private static final class Key {
+
+		private final int attackerHitpoints;
+		private final int attackerMaxHitpoints;
+		private final int attackerProtection;
+		private final int attackerDamage;
+		private final int opponentHitpoints;
+		private final int opponentMaxHitpoints;
+		private final int opponentProtection;
+		private final int opponentDamage;
+
+		Key(int attackerHitpoints, int attackerMaxHitpoints, int attackerProtection, int attackerDamage,
+				int opponentHitpoints, int opponentMaxHitpoints, int opponentProtection, int opponentDamage) {
+			this.attackerHitpoints = attackerHitpoints;
+			this.attackerMaxHitpoints = attackerMaxHitpoints;
+			this.attackerProtection = attackerProtection;
+			this.attackerDamage = attackerDamage;
+			this.opponentHitpoints = opponentHitpoints;
+			this.opponentMaxHitpoints = opponentMaxHitpoints;
+			this.opponentProtection = opponentProtection;
+			this.opponentDamage = opponentDamage;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return attackerHitpoints == key.attackerHitpoints && attackerMaxHitpoints == key.attackerMaxHitpoints
+					&& attackerProtection == key.attackerProtection && attackerDamage == key.attackerDamage
+					&& opponentHitpoints == key.opponentHitpoints && opponentMaxHitpoints == key.opponentMaxHitpoints
+					&& opponentProtection == key.opponentProtection && opponentDamage == key.opponentDamage;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = attackerHitpoints;
+			result = 31 * result + attackerMaxHitpoints;
+			result = 31 * result + attackerProtection;
+			result = 31 * result + attackerDamage;
+			result = 31 * result + opponentHitpoints;
+			result = 31 * result + opponentMaxHitpoints;
+			result = 31 * result + opponentProtection;
+			return 31 * result + opponentDamage;
+		}
+	}
+
+}
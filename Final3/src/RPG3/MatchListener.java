@@ -0,0 +1,30 @@
+package RPG3;
+
+/**
+ * An interface for listeners that are notified of every match of a tournament as soon as it is decided.
+ * A match listener is called on the thread that fought the match, possibly on several threads at once.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public interface MatchListener {
+
+	/**
+	 * Notify this listener that the given match is decided.
+	 * @param 	match
+	 * 			The result of the match.
+	 * @param 	standings
+	 * 			The standings of the tournament, already including the given match.
+	 */
+	void matchFinished(MatchResult match, Standings standings);
+
+	/**
+	 * The listener ignoring every match.
+	 */
+	MatchListener NONE = new MatchListener() {
+		@Override
+		public void matchFinished(MatchResult match, Standings standings) {
+		}
+	};
+
+}
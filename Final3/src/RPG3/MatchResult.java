@@ -0,0 +1,88 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of results of a match between two entrants of a tournament.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class MatchResult {
+
+	/**
+	 * Initialize a new match result.
+	 * @param 	round
+	 * 			The round of the tournament in which the match was fought.
+	 * @param 	home
+	 * 			The index of the entrant attacking first.
+	 * @param 	away
+	 * 			The index of the entrant attacked first.
+	 * @param 	duel
+	 * 			The result of the duel between both entrants.
+	 * @param 	winner
+	 * 			The index of the entrant that advances, or -1 if the match is a draw that doesn't need a winner.
+	 */
+	MatchResult(int round, int home, int away, DuelResult duel, int winner) {
+		this.round = round;
+		this.home = home;
+		this.away = away;
+		this.duel = duel;
+		this.winner = winner;
+	}
+
+	/**
+	 * Variables registering the round, the entrants and the outcome of the match.
+	 */
+	private final int round;
+	private final int home;
+	private final int away;
+	private final DuelResult duel;
+	private final int winner;
+
+	/**
+	 * Return the round of the tournament in which the match was fought, starting from 0.
+	 */
+	@Basic
+	public int getRound() {
+		return this.round;
+	}
+
+	/**
+	 * Return the index of the entrant attacking first.
+	 */
+	@Basic
+	public int getHome() {
+		return this.home;
+	}
+
+	/**
+	 * Return the index of the entrant attacked first.
+	 */
+	@Basic
+	public int getAway() {
+		return this.away;
+	}
+
+	/**
+	 * Return the result of the duel between both entrants.
+	 */
+	@Basic
+	public DuelResult getDuel() {
+		return this.duel;
+	}
+
+	/**
+	 * Return the index of the entrant that won the match, or -1 if the match is a draw.
+	 */
+	@Basic
+	public int getWinner() {
+		return this.winner;
+	}
+
+	@Override
+	public String toString() {
+		return "MatchResult[round=" + round + ", home=" + home + ", away=" + away + ", winner=" + winner + "]";
+	}
+
+}
@@ -1,16 +1,27 @@
 package RPG3;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import Exceptions.IllegalHitpointsException;
 import Items.Backpack;
 import Items.Item;
+import Items.ItemQueries;
 import Items.Purse;
 import Items.StoreItem;
 import Items.Weapon;
+import Items.Weight;
+import Monitoring.GameMetrics;
 import be.kuleuven.cs.som.annotate.Basic;
 
-import java.math.*;
+import java.math.BigDecimal;
 
 /**
  * A class of monsters with int values damage, protection, 
@@ -92,8 +103,29 @@ public class Monster {
 	 */
 	
 	public Monster(String name, int protection, int hitpoints, Weapon weapon, Backpack backpack, int numberAnchors) throws IllegalArgumentException {
+		this(name, protection, hitpoints, weapon, backpack, numberAnchors, RandomSource.current().split());
+	}
+	
+	/**
+	 * Initialize this new monster with given name, hitpoints, weapon, backpack, number of anchors and random source.
+	 * 
+	 * @param	randomSource
+	 * 			The random source used for the stat and combat rolls of this new monster.
+	 * @effect	The monster is initialized like a monster without a given random source,
+	 * 			with its damage and strength generated by the given random source.
+	 * 			| this(name, protection, hitpoints, weapon, backpack, numberAnchors)
+	 * @post	The random source of this new monster is the given random source.
+	 * 			| new.getRandomSource() == randomSource
+	 * @throws	IllegalArgumentException
+	 * 			The random source doesn't exist.
+	 * 			| randomSource == null
+	 */
+	public Monster(String name, int protection, int hitpoints, Weapon weapon, Backpack backpack, int numberAnchors, RandomSource randomSource) throws IllegalArgumentException {
 		if(! isValidName(name) )
 			throw new IllegalArgumentException(name);
+		if(randomSource == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		this.randomSource = randomSource;
 		this.name = name;
 		setDamage(generateDamage());
 		assert isValidProtection(protection);
@@ -106,13 +138,90 @@ public class Monster {
 			System.exit(1);
 		}
 		this.strength = generateStrength();
-		this.carryingCapacity = new BigDecimal(String.valueOf((12*Math.abs(getStrength()))));
+		this.carryingCapacity = Weight.fromKilograms(12*Math.abs(getStrength()));
 		if(! isValidNumberAnchors(numberAnchors) )
 			throw new IllegalArgumentException();
 		this.anchors = new Item[numberAnchors];
 		weapon.obtain(this);
 		backpack.obtain(this,2);
 	}
+	
+	/**
+	 * Initialize this new monster with the given stats and without any items.
+	 * @param	name
+	 * 			The name of this new monster.
+	 * @param	protection
+	 * 			The protection of this new monster.
+	 * @param	hitpoints
+	 * 			The hitpoints of this new monster.
+	 * @param	maxHitpoints
+	 * 			The highest possible hitpoints of this new monster.
+	 * @param	damage
+	 * 			The damage of this new monster.
+	 * @param	strength
+	 * 			The strength of this new monster.
+	 * @param	numberAnchors
+	 * 			The number of anchors of this new monster.
+	 * @param	randomSource
+	 * 			The random source used for the combat rolls of this new monster.
+	 * @post	The stats of this new monster are the given stats, and none of its anchors holds an item.
+	 * 			| new.getName() == name && new.getProtection() == protection && new.getHitpoints() == hitpoints
+	 * 			| && new.getMaxHitpoints() == maxHitpoints && new.getDamage() == damage && new.getStrength() == strength
+	 * @throws	IllegalArgumentException
+	 * 			The name, hitpoints or number of anchors aren't valid, or the random source doesn't exist.
+	 * 			| !isValidName(name) || hitpoints < MIN_HITPOINTS || hitpoints > maxHitpoints
+	 * 			| || !isValidNumberAnchors(numberAnchors) || randomSource == null
+	 */
+	Monster(String name, int protection, int hitpoints, int maxHitpoints, int damage, int strength, int numberAnchors, RandomSource randomSource) throws IllegalArgumentException {
+		if(! isValidName(name) )
+			throw new IllegalArgumentException(name);
+		if(randomSource == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		if(hitpoints < MIN_HITPOINTS || hitpoints > maxHitpoints)
+			throw new IllegalArgumentException("Not a valid number of hitpoints.");
+		if(! isValidNumberAnchors(numberAnchors) )
+			throw new IllegalArgumentException();
+		this.randomSource = randomSource;
+		this.name = name;
+		this.damage = damage;
+		this.protection = protection;
+		this.MAX_HITPOINTS = maxHitpoints;
+		this.hitpoints = hitpoints;
+		this.strength = strength;
+		this.carryingCapacity = Weight.fromKilograms(12*Math.abs(strength));
+		this.anchors = new Item[numberAnchors];
+	}
+
+	/**
+	 * Return a monster restored from a snapshot, with the given stats and items.
+	 * The items are attached without checking the carrying capacity, because they were
+	 * carried by the monster when the snapshot was taken.
+	 * @param	anchors
+	 * 			The items at the anchors of the monster, or null for free anchors.
+	 * @param	randomSource
+	 * 			The random source used for the combat rolls of the monster.
+	 * @return	A monster with the given stats, holding the given items at their anchors.
+	 * 			| result.getName() == name && result.getHitpoints() == hitpoints && result.getMaxHitpoints() == maxHitpoints
+	 * 			| && result.getDamage() == damage && result.getStrength() == strength
+	 * 			| && for each index in 0..anchors.length-1: result.getAnchors()[i] == anchors[i]
+	 * @throws	IllegalArgumentException
+	 * 			The stats aren't valid, the random source or list of items doesn't exist,
+	 * 			or one of the items already has a holder.
+	 */
+	public static Monster restore(String name, int protection, int hitpoints, int maxHitpoints, int damage, int strength,
+			Item[] anchors, RandomSource randomSource) throws IllegalArgumentException {
+		if(anchors == null)
+			throw new IllegalArgumentException("Anchors do not exist.");
+		Monster monster = new Monster(name, protection, hitpoints, maxHitpoints, damage, strength, anchors.length, randomSource);
+		for(int i=0; i<anchors.length; i++) {
+			if (anchors[i] != null) {
+				anchors[i].setDirectHolder(monster);
+				monster.anchors[i] = anchors[i];
+				monster.itemChanged(anchors[i].getTotalWeightHundredths(), anchors[i].getTotalValue());
+			}
+		}
+		return monster;
+	}
 
 	//2.2.1 ANCHOR
 	/**
@@ -134,7 +243,7 @@ public class Monster {
 	 * @return 	True if the number of anchors is greater than or equal to 3.
 	 * 		   	|(return = (numberAnchors >= 3))
 	 */
-	public boolean isValidNumberAnchors(int numberAnchors) {
+	public static boolean isValidNumberAnchors(int numberAnchors) {
 		return (numberAnchors >= 3);
 	}
 	
@@ -162,12 +271,15 @@ public class Monster {
 			throw new IllegalArgumentException("Can not have as item");
 		if(!isValidTotalWeight(item))
 			throw new IllegalArgumentException("The total weight is not valid");
-		if(item.getDirectHolder() == null)
+		if(item.getDirectHolder() == null) {
 			item.obtain(this);
+			return;
+		}
 		for(int i=0; i<anchors.length; i++) {
 			if (anchors[i] == null) {
 				this.anchors[i] = item; break;}
 		}
+		itemChanged(item.getTotalWeightHundredths(), item.getTotalValue());
 	}
 	
 	/**
@@ -194,9 +306,12 @@ public class Monster {
 			throw new IllegalArgumentException("Can not have as item");
 		if(!isValidTotalWeight(item))
 			throw new IllegalArgumentException("The total weight is not valid");
-		if(item.getDirectHolder() == null)
+		if(item.getDirectHolder() == null) {
 			item.obtain(this,anchorPoint);
+			return;
+		}
 		this.anchors[anchorPoint] = item;
+		itemChanged(item.getTotalWeightHundredths(), item.getTotalValue());
 	}
 	
 	/**
@@ -317,12 +432,102 @@ public class Monster {
 		if (item != null) {
 			for(int i=0; i<anchors.length; i++) {
 				if (anchors[i] == item) {
-					this.anchors[i] = null; break;}
+					this.anchors[i] = null;
+					itemChanged(-item.getTotalWeightHundredths(), -item.getTotalValue());
+					break;}
 			}
 			item.setHolderToNull();
 		}
 	}
 	
+	/**
+	 * Move all items attached to the given monster into the first backpack attached to this monster, at once.
+	 * @param 	loser
+	 * 			The monster of which the items are taken.
+	 * @return	The items that were moved, in the order of the anchors of the loser.
+	 * @effect	All items attached to the loser are added to the backpack, or none of them are.
+	 * 			|backpack.addAllItems(items attached to loser)
+	 * @throws	IllegalArgumentException
+	 * 			The loser doesn't exist or is this monster, or this monster has no backpack attached.
+	 * 			|loser == null || loser == this || !(for some index in 0..getAnchors().length-1: getAnchors()[i] instanceof Backpack)
+	 */
+	public List<Item> loot(Monster loser) throws IllegalArgumentException {
+		if (loser == null || loser == this)
+			throw new IllegalArgumentException("Not a valid monster to loot.");
+		Backpack backpack = null;
+		for (int i = 0; i < anchors.length && backpack == null; i++)
+			if (anchors[i] instanceof Backpack)
+				backpack = (Backpack) anchors[i];
+		if (backpack == null)
+			throw new IllegalArgumentException("No backpack to put the loot in.");
+		List<Item> loot = new ArrayList<Item>(loser.anchors.length);
+		for (Item item : loser.anchors)
+			if (item != null)
+				loot.add(item);
+		backpack.addAllItems(loot);
+		return Collections.unmodifiableList(loot);
+	}
+	
+	//QUERIES
+	
+	/**
+	 * Return the items of the given type attached to this monster or held by its backpacks,
+	 * of which the total weight lies within the given bounds.
+	 * @effect	| ItemQueries.byWeight(getAnchors(), type, minWeight, maxWeight)
+	 */
+	public <T extends Item> Iterator<T> getItemsByWeight(Class<T> type, long minWeight, long maxWeight) throws IllegalArgumentException {
+		return ItemQueries.byWeight(anchors, type, minWeight, maxWeight);
+	}
+	
+	/**
+	 * Return the items of the given type attached to this monster or held by its backpacks,
+	 * of which the total value lies within the given bounds.
+	 * @effect	| ItemQueries.byValue(getAnchors(), type, minValue, maxValue)
+	 */
+	public <T extends Item> Iterator<T> getItemsByValue(Class<T> type, int minValue, int maxValue) throws IllegalArgumentException {
+		return ItemQueries.byValue(anchors, type, minValue, maxValue);
+	}
+	
+	/**
+	 * Return the given number of heaviest items of the given type attached to this monster or held by its backpacks.
+	 * @effect	| ItemQueries.heaviest(getAnchors(), type, number)
+	 */
+	public <T extends Item> Iterator<T> getHeaviestItems(Class<T> type, int number) throws IllegalArgumentException {
+		return ItemQueries.heaviest(anchors, type, number);
+	}
+	
+	/**
+	 * Return the given number of most valuable items of the given type attached to this monster or held by its backpacks.
+	 * @effect	| ItemQueries.mostValuable(getAnchors(), type, number)
+	 */
+	public <T extends Item> Iterator<T> getMostValuableItems(Class<T> type, int number) throws IllegalArgumentException {
+		return ItemQueries.mostValuable(anchors, type, number);
+	}
+	
+	/**
+	 * Register that the total weight or total value of an item attached to this monster changed.
+	 * This method is only to be called by the items attached to this monster, directly or through backpacks,
+	 * when their totals change after they are attached, so the totals of this monster stay the sum of theirs.
+	 * The totals are changed atomically, so changes made by several threads at once are never lost.
+	 * @param 	weightDelta
+	 * 			The change of the total weight of the item, in hundredths of a kilogram.
+	 * @param 	valueDelta
+	 * 			The change of the total value of the item.
+	 * @post	The total weight and total value of this monster are changed with the given changes.
+	 * 			| new.getTotalWeightHundredths() == getTotalWeightHundredths() + weightDelta
+	 * 			| new.getTotalValue() == getTotalValue() + valueDelta
+	 */
+	public void itemChanged(long weightDelta, int valueDelta) {
+		this.totalWeight.addAndGet(weightDelta);
+		this.totalValue.addAndGet(valueDelta);
+	}
+	
+	/**
+	 * Variable registering the total value of all items attached to this monster.
+	 * It can be read without locking while a concurrent inventory changes it.
+	 */
+	private final AtomicInteger totalValue = new AtomicInteger();
+	
 	/**
 	 * Return the total value of all items attached to this monster.
 	 * @return 	The total value of all items attached to this monster.
@@ -331,30 +536,33 @@ public class Monster {
 	 * 			|		then totalValue += anchors[i].getTotalValue()
 	 */
 	public int getTotalValue() {
-		int totalValue = 0;
-		for(int i=0; i<anchors.length; i++) {
-			if (anchors[i] != null ) {
-				totalValue += anchors[i].getTotalValue();
-			}
-		}
-		return totalValue;
+		return this.totalValue.get();
 	}
 	
 	/**
-	 * Return the total weight of all items attached to this monster.
+	 * Variable registering the total weight of all items attached to this monster, in hundredths of a kilogram.
+	 * It can be read without locking while a concurrent inventory changes it.
+	 */
+	private final AtomicLong totalWeight = new AtomicLong();
+	
+	/**
+	 * Return the total weight of all items attached to this monster, in hundredths of a kilogram.
 	 * @return 	The total weight of all items attached to this monster.
 	 * 			|for each index in 0..getAnchors().length-1:
 	 * 			|	if (getAnchors()[i] != null )
-	 * 			|		then totalWeight += getAnchors[i].getTotalWeight()
+	 * 			|		then totalWeight += getAnchors[i].getTotalWeightHundredths()
+	 */
+	public long getTotalWeightHundredths() {
+		return this.totalWeight.get();
+	}
+	
+	/**
+	 * Return the total weight of all items attached to this monster.
+	 * @return	The total weight of all items attached to this monster in kilograms.
+	 * 			|result == Weight.toBigDecimal(getTotalWeightHundredths())
 	 */
 	public BigDecimal getTotalWeight() {
-		BigDecimal totalWeight = BigDecimal.ZERO;
-		for(int i=0; i<anchors.length; i++) {
-			if (anchors[i] != null ) {
-				totalWeight = totalWeight.add(anchors[i].getTotalWeight());
-			}
-		}
-		return totalWeight;
+		return Weight.toBigDecimal(getTotalWeightHundredths());
 	}
 	
 	/**
@@ -362,11 +570,10 @@ public class Monster {
 	 * @param 	item
 	 * 			The extra item to be weighted.
 	 * @return	True if the total weight does not exceed the carrying capacity.
-	 * 			| return = getTotalWeight() + item.getWeight() <= getCarryingCapacity()
+	 * 			| return = getTotalWeightHundredths() + item.getWeightHundredths() <= getCarryingCapacityHundredths()
 	 */
 	public boolean isValidTotalWeight(Item item) {
-		BigDecimal totalWeight = getTotalWeight();
-		return (totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == -1 || totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == 0);
+		return (getTotalWeightHundredths() + item.getWeightHundredths() <= getCarryingCapacityHundredths());
 	}
 	
 	/**
@@ -376,14 +583,42 @@ public class Monster {
 	 * @param	itemToRemove
 	 * 			The item to be substracted from the weight.
 	 * @return	True if the total weight does not exceed the carrying capacity.
-	 * 			| return = getTotalWeight() + item.getWeight() - itemToRemove.getWeight() <= getCarryingCapacity()
+	 * 			| return = getTotalWeightHundredths() + item.getWeightHundredths() - itemToRemove.getWeightHundredths() <= getCarryingCapacityHundredths()
 	 */
 	public boolean isValidTotalWeight(Item item, Item itemToRemove) {
-		BigDecimal totalWeight = getTotalWeight().subtract(itemToRemove.getWeight());
-		if(totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == -1 || totalWeight.add(item.getWeight()).compareTo( getCarryingCapacity()) == 0)
-			return true;
-		return false;
+		return (getTotalWeightHundredths() - itemToRemove.getWeightHundredths() + item.getWeightHundredths() <= getCarryingCapacityHundredths());
+	}
+	//RANDOM SOURCE
+	
+	/**
+	 * Variable referencing the random source of this monster.
+	 */
+	private RandomSource randomSource;
+	
+	/**
+	 * Return the random source used for the stat and combat rolls of this monster.
+	 */
+	@Basic
+	public RandomSource getRandomSource() {
+		return this.randomSource;
 	}
+	
+	/**
+	 * Set the random source of this monster to the given random source.
+	 * @param 	randomSource
+	 * 			The new random source of this monster.
+	 * @post	The random source of this monster is the given random source.
+	 * 			| new.getRandomSource() == randomSource
+	 * @throws	IllegalArgumentException
+	 * 			The random source doesn't exist.
+	 * 			| randomSource == null
+	 */
+	public void setRandomSource(RandomSource randomSource) throws IllegalArgumentException {
+		if(randomSource == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		this.randomSource = randomSource;
+	}
+	
 	//2.1.1 NAME
 
 	/**
@@ -405,15 +640,21 @@ public class Monster {
 	 */
 	private final static String regExpr = "^[A-Z][A-Za-z0-9' ]+";
 
+	/**
+	 * Variable referencing the regular expression used to specify the name of the monster,
+	 * compiled once instead of on every check.
+	 */
+	private final static Pattern namePattern = Pattern.compile(regExpr);
+
 	/**
 	 * Checks if the name of the monster is valid.
 	 * @param 	name
 	 * 			The name to check
 	 * @return	true if the name exists and the regular expression recognizes the name.
-	 * 			|return = (name.matches(regExpr) && name != null)
+	 * 			|return = (name != null && name.matches(regExpr))
 	 */
-	public boolean isValidName(String name){
-		return (name.matches(regExpr) && name != null);
+	public static boolean isValidName(String name){
+		return (name != null && namePattern.matcher(name).matches());
 	}
 
 	//2.1.2 DAMAGE
@@ -436,10 +677,20 @@ public class Monster {
 	 * 
 	 * @return  A generated number between the minimum damage and the
 	 * 			maximum damage
-	 *          | result == (random.nextInt(getMaxDamage()+MIN_DAMAGE))
+	 *          | result == (generateDamage(getRandomSource()))
 	 */
 	public int generateDamage() {
-		Random  random = new Random();
+		return generateDamage(getRandomSource());
+	}
+
+	/**
+	 * Generates the damage of a monster with the given random source.
+	 * @param	random
+	 * 			The random source used to generate the damage.
+	 * @return  A generated number between 0 and the maximum damage, to be clamped by setDamage.
+	 *          | result == (random.nextInt(getMaxDamage()+MIN_DAMAGE))
+	 */
+	public static int generateDamage(RandomSource random) {
 		return random.nextInt(getMaxDamage()+MIN_DAMAGE);
 	}
 
@@ -458,12 +709,23 @@ public class Monster {
 	 * 			| 	then new.getDamage() == getMaxDamage()
 	 */
 	public void setDamage(int newDamage) {
-		if ((newDamage >= MIN_DAMAGE) && (newDamage <= getMaxDamage()))
-			this.damage = newDamage;
-		else if (newDamage < MIN_DAMAGE)
-			this.damage = MIN_DAMAGE;
+		this.damage = toValidDamage(newDamage);
+	}
+
+	/**
+	 * Return the damage a monster gets when its damage is set to the given damage.
+	 * @param 	damage
+	 * 			The damage to be made valid.
+	 * @return	The given damage, clamped between the minimum and the maximum damage.
+	 * 			| result == Math.min(Math.max(damage, MIN_DAMAGE), getMaxDamage())
+	 */
+	static int toValidDamage(int damage) {
+		if ((damage >= MIN_DAMAGE) && (damage <= getMaxDamage()))
+			return damage;
+		else if (damage < MIN_DAMAGE)
+			return MIN_DAMAGE;
 		else 
-			this.damage = getMaxDamage();
+			return getMaxDamage();
 	}
 
 	/**
@@ -528,6 +790,8 @@ public class Monster {
 	 * 			|	then return == true
 	 */
 	public static boolean isPrime(float num) {
+		if (num >= 0 && num <= MAX_PROTECTION && num == (int) num)
+			return primes.get((int) num);
 		if (num == 1) return false;
 		if (num == 2) return true;
 		if (num % 2 == 0) return false;
@@ -541,6 +805,42 @@ public class Monster {
 	 */
 	private static int MAX_PROTECTION = 40;
 
+	/**
+	 * Set registering which numbers from 0 up to the highest possible protection value are prime,
+	 * sieved once so checking the protection of a monster doesn't need any division.
+	 */
+	private final static BitSet primes = sievePrimes(MAX_PROTECTION);
+
+	/**
+	 * Return the set of prime numbers from 0 up to the given number.
+	 * @param 	max
+	 * 			The highest number to be sieved.
+	 * @return	A set in which bit i is set if and only if i is a prime up to the given number.
+	 * 			| for each index in 0..max:
+	 * 			|	result.get(i) == isPrime(i)
+	 */
+	private static BitSet sievePrimes(int max) {
+		BitSet result = new BitSet(max + 1);
+		if (max >= 2)
+			result.set(2, max + 1);
+		for (int i = 2; i * i <= max; i++)
+			if (result.get(i))
+				for (int j = i * i; j <= max; j += i)
+					result.clear(j);
+		return result;
+	}
+
+	/**
+	 * Check if the given protection value is valid for any monster.
+	 * @param 	protection
+	 * 			The protection value to be checked.
+	 * @return	True if the protection value is a prime within the range of protection values.
+	 * 			| return == (protection >= MIN_PROTECTION && protection <= MAX_PROTECTION && isPrime(protection))
+	 */
+	static boolean isValidPrimeProtection(int protection) {
+		return (protection >= MIN_PROTECTION && protection <= MAX_PROTECTION && primes.get(protection));
+	}
+
 	/**
 	 * Returns the highest possible protection value of this monster.
 	 */
@@ -644,27 +944,76 @@ public class Monster {
 	 * 
 	 * @return  A generated number between -15 and 35 (average
 	 * 			of 10).
-	 *          | result == ((random.nextInt(51) - 25) + 10)
+	 *          | result == (generateStrength(getRandomSource()))
 	 */
 	public int generateStrength() {
-		Random  random = new Random();
+		return generateStrength(getRandomSource());
+	}
+
+	/**
+	 * Generates the strength of a monster with the given random source.
+	 * @param	random
+	 * 			The random source used to generate the strength.
+	 * @return  A generated number between -15 and 35 (average
+	 * 			of 10).
+	 *          | result == ((random.nextInt(51) - 25) + 10)
+	 */
+	public static int generateStrength(RandomSource random) {
 		return (((random.nextInt(51) - 25) + 10));
 	}
 
 	/**
-	 * The carrying capacity of this monster.
+	 * The carrying capacity of this monster, in hundredths of a kilogram.
 	 */
-	private final BigDecimal carryingCapacity;
+	private final long carryingCapacity;
 	
 	/**
-	 * Returns the carrying capacity of this monster.
+	 * Returns the carrying capacity of this monster, in hundredths of a kilogram.
 	 */
 	@Basic
-	public BigDecimal getCarryingCapacity() {
+	public long getCarryingCapacityHundredths() {
 		return this.carryingCapacity;
 	}
+	
+	/**
+	 * Returns the carrying capacity of this monster.
+	 * @return	The carrying capacity in kilograms.
+	 * 			| result == Weight.toBigDecimal(getCarryingCapacityHundredths())
+	 */
+	public BigDecimal getCarryingCapacity() {
+		return Weight.toBigDecimal(this.carryingCapacity);
+	}
 	//2.1.6 HITTING
 
+	/**
+	 * Variable referencing the listener notified of every attack of this monster.
+	 */
+	private CombatListener combatListener = CombatListener.NONE;
+	
+	/**
+	 * Return the listener notified of every attack of this monster.
+	 */
+	@Basic
+	public CombatListener getCombatListener() {
+		return this.combatListener;
+	}
+	
+	/**
+	 * Set the listener notified of every attack of this monster.
+	 * @param 	combatListener
+	 * 			The new listener of this monster.
+	 * @post	The listener of this monster is the given listener.
+	 * 			| new.getCombatListener() == combatListener
+	 * @throws	IllegalArgumentException
+	 * 			The listener doesn't exist.
+	 * 			| combatListener == null
+	 */
+	public void setCombatListener(CombatListener combatListener) throws IllegalArgumentException {
+		if(combatListener == null)
+			throw new IllegalArgumentException("Listener does not exist.");
+		this.combatListener = combatListener;
+	}
+
 	/**
 	 * @param 	opponent
 	 * 			The monster upon which the hit method is cast.
@@ -675,30 +1024,95 @@ public class Monster {
 	 * 			the opponent's hitpoints will be substracted by this monster's damage + the right handed weapon's damage + the strength value of this monster - 5, divided by 3.
 	 * 			| if (comparer > opponent.getProtection())
 	 * 			|	then new.getHitpoints() == (opponent.getHitpoints() - getDamage() + getAnchors()[1].getDamage() + getStrength() - 5)/3
+	 * @effect	The listener of this monster is notified of the attack after the hitpoints of the opponent are set.
+	 * 			| getCombatListener().attacked(this, opponent, comparer, damage, comparer > opponent.getProtection())
 	 * @throws	IllegalHitpointsException
 	 * 			The new hitpoints isn't valid.
 	 * 			| !isValidHitpoints(opponent.hitpoints - (this.damage + (this.strength-5)/3))
 	 * @note 	no else statements because of inertia axiom
 	 */
 	public void hit(Monster opponent) throws IllegalArgumentException, IllegalHitpointsException {
+		hit(opponent, getRandomSource());
+	}
+	
+	/**
+	 * Hit the given opponent, rolling the attack with the given random source.
+	 * @param 	opponent
+	 * 			The monster upon which the hit method is cast.
+	 * @param 	random
+	 * 			The random source used for the attack roll.
+	 * @effect	The opponent is hit like with hit(opponent), with the roll made by the given random source.
+	 * 			| hit(opponent)
+	 */
+	public void hit(Monster opponent, RandomSource random) throws IllegalArgumentException, IllegalHitpointsException {
 		if(this.isAlive()) {
-		Random  random = new Random();
-		int randomNumber = random.nextInt(31);
-		int weaponDamage = 0;
-		if (this.anchors[1] instanceof Weapon)
-			weaponDamage = ((Weapon)this.anchors[1]).getDamage();
-		if (this.hitpoints < randomNumber)
-			randomNumber = this.hitpoints;
+		long start = GameMetrics.start();
+		int randomNumber = rollAttack(this.hitpoints, random);
 		
-		if (randomNumber > opponent.protection)
+		if (randomNumber > opponent.protection) {
+			int attackDamage = getAttackDamage();
+			boolean wasAlive = opponent.isAlive();
 			try {
-				System.out.println(this.name+" attacks");
-				opponent.setHitpoints(opponent.hitpoints - (this.damage + weaponDamage + (this.strength-5)/3));}
+				opponent.setHitpoints(opponent.hitpoints - attackDamage);}
 			catch(IllegalHitpointsException ae) {opponent.setHitpoints(0);}
-		else 
-			System.out.println(this.name+" attack missed.");}
+			GameMetrics.attacked(start, true, wasAlive && !opponent.isAlive());
+			combatListener.attacked(this, opponent, randomNumber, attackDamage, true);}
+		else {
+			GameMetrics.attacked(start, false, false);
+			combatListener.attacked(this, opponent, randomNumber, 0, false);}}
 
 	}
+	
+	/**
+	 * Roll the attack of this monster.
+	 * @param 	hitpoints
+	 * 			The hitpoints with which this monster attacks.
+	 * @param 	random
+	 * 			The random source used for the roll.
+	 * @return	A randomly generated number between 0 and 30, capped by the given hitpoints.
+	 * 			| result == Math.min(random.nextInt(31), hitpoints)
+	 */
+	int rollAttack(int hitpoints, RandomSource random) {
+		int randomNumber = random.nextInt(31);
+		if (hitpoints < randomNumber)
+			randomNumber = hitpoints;
+		return randomNumber;
+	}
+	
+	/**
+	 * Return the damage this monster deals with a successful attack.
+	 * @return	The damage of this monster, plus the damage of the weapon in its right hand,
+	 * 			plus the strength of this monster minus 5, divided by 3.
+	 * 			| if (getAnchors()[1] instanceof Weapon)
+	 * 			|	then result == getDamage() + getAnchors()[1].getDamage() + (getStrength()-5)/3
+	 * 			|	else result == getDamage() + (getStrength()-5)/3
+	 */
+	int getAttackDamage() {
+		int weaponDamage = 0;
+		if (this.anchors[1] instanceof Weapon)
+			weaponDamage = ((Weapon)this.anchors[1]).getDamage();
+		return this.damage + weaponDamage + (this.strength-5)/3;
+	}
+	
+	/**
+	 * Return the hitpoints left after being hit with the given damage.
+	 * @param 	hitpoints
+	 * 			The hitpoints before the hit.
+	 * @param 	maxHitpoints
+	 * 			The highest possible hitpoints value.
+	 * @param 	damage
+	 * 			The damage of the hit.
+	 * @return	The hitpoints reduced by the damage, or 0 if that isn't a legal hitpoints value.
+	 * 			| if (hitpoints - damage < MIN_HITPOINTS || hitpoints - damage > maxHitpoints)
+	 * 			|	then result == 0
+	 * 			|	else result == hitpoints - damage
+	 */
+	static int hitpointsAfterHit(int hitpoints, int maxHitpoints, int damage) {
+		int newHitpoints = hitpoints - damage;
+		if (newHitpoints < MIN_HITPOINTS || newHitpoints > maxHitpoints)
+			return 0;
+		return newHitpoints;
+	}
 
 	public static void main(String[] args) {
 		Weapon pizza = new Weapon(1, 20);
@@ -736,6 +1150,13 @@ public class Monster {
 			attacker = monster2;
 			opponent = monster1;}
 		System.out.println(attacker.name+" will be the first monster to attack");
+		CombatListener console = new CombatListener() {
+			public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+				System.out.println(hit ? attacker.name+" attacks" : attacker.name+" attack missed.");
+			}
+		};
+		attacker.setCombatListener(console);
+		opponent.setCombatListener(console);
 		int count = 1;
 		while (attacker.isAlive() && opponent.isAlive()) {
 
@@ -764,10 +1185,10 @@ public class Monster {
 		Backpack winnerBackpack = new Backpack(1,1,1);
 		winnerBackpack = ((Backpack)winner.getAnchors()[2]);
 		
-		for(int i=0;i<loser.getAnchors().length;i++)
-			if(loser.getAnchors()[i] != null) {
-				loser.getAnchors()[i].addToBackpack(winnerBackpack);
-			}
+		try {
+			winner.loot(loser);}
+		catch(IllegalArgumentException ae) {
+			System.out.println(winner.name+" can not carry the items of "+loser.name+".");}
 		
 		System.out.println(winner.name+" has damage: "+winner.damage+" ; protection: "+winner.protection+"; strength: "+winner.strength+"; hitpoints: "+winner.hitpoints+".");
 		System.out.println(winner.name+" has weapon with ID: "+winner.getAnchors()[0].getId()+"; damage: "+((Weapon)winner.getAnchors()[0]).getDamage()+"; value: "+((Weapon)winner.getAnchors()[0]).getValue()+"; weight: "+((Weapon)winner.getAnchors()[0]).getWeight()+".");
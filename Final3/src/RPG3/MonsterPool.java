@@ -0,0 +1,347 @@
+package RPG3;
+
+import java.util.Arrays;
+
+import Items.Item;
+import Items.Weapon;
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of pools storing the combat stats of large numbers of monsters in parallel arrays of ints.
+ * A monster in a pool is identified by its index. It takes seven array slots instead of a monster object
+ * with its anchors, items, carrying capacity and random source, and hits and duels run directly over the arrays.
+ * A regular monster with the stats at an index can be materialized when it is needed.
+ * @invar	The size of this pool is never larger than the length of its arrays.
+ * 			| getSize() <= hitpoints.length
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class MonsterPool {
+
+	/**
+	 * Initialize a new empty pool with room for the given number of monsters.
+	 * @param 	initialCapacity
+	 * 			The number of monsters this pool can hold before its arrays grow.
+	 * @post	The new pool is empty.
+	 * 			| new.getSize() == 0
+	 * @throws	IllegalArgumentException
+	 * 			The initial capacity is negative.
+	 * 			| initialCapacity < 0
+	 */
+	public MonsterPool(int initialCapacity) throws IllegalArgumentException {
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("Not a valid capacity.");
+		names = new String[initialCapacity];
+		hitpoints = new int[initialCapacity];
+		maxHitpoints = new int[initialCapacity];
+		damage = new int[initialCapacity];
+		protection = new int[initialCapacity];
+		strength = new int[initialCapacity];
+		weaponDamage = new int[initialCapacity];
+	}
+
+	/**
+	 * Initialize a new empty pool.
+	 * @effect	| this(16)
+	 */
+	public MonsterPool() {
+		this(16);
+	}
+
+	//STATS
+
+	/**
+	 * Lists registering the stats of the monsters in this pool, at the index of each monster.
+	 */
+	private String[] names;
+	private int[] hitpoints;
+	private int[] maxHitpoints;
+	private int[] damage;
+	private int[] protection;
+	private int[] strength;
+	private int[] weaponDamage;
+
+	/**
+	 * Variable registering the number of monsters in this pool.
+	 */
+	private int size = 0;
+
+	/**
+	 * Return the number of monsters in this pool.
+	 */
+	@Basic
+	public int getSize() {
+		return this.size;
+	}
+
+	@Basic
+	public String getName(int index) {
+		checkIndex(index);
+		return names[index];
+	}
+
+	@Basic
+	public int getHitpoints(int index) {
+		checkIndex(index);
+		return hitpoints[index];
+	}
+
+	@Basic
+	public int getMaxHitpoints(int index) {
+		checkIndex(index);
+		return maxHitpoints[index];
+	}
+
+	@Basic
+	public int getDamage(int index) {
+		checkIndex(index);
+		return damage[index];
+	}
+
+	@Basic
+	public int getProtection(int index) {
+		checkIndex(index);
+		return protection[index];
+	}
+
+	@Basic
+	public int getStrength(int index) {
+		checkIndex(index);
+		return strength[index];
+	}
+
+	/**
+	 * Return the damage of the weapon in the right hand of the monster at the given index, or 0 if it has none.
+	 */
+	@Basic
+	public int getWeaponDamage(int index) {
+		checkIndex(index);
+		return weaponDamage[index];
+	}
+
+	/**
+	 * Set the hitpoints of the monster at the given index.
+	 * @param 	index
+	 * 			The index of the monster.
+	 * @param 	newHitpoints
+	 * 			The new hitpoints of the monster.
+	 * @post	| new.getHitpoints(index) == newHitpoints
+	 * @throws	IllegalArgumentException
+	 * 			The hitpoints aren't between 0 and the highest possible hitpoints of the monster.
+	 * 			| newHitpoints < 0 || newHitpoints > getMaxHitpoints(index)
+	 */
+	public void setHitpoints(int index, int newHitpoints) throws IllegalArgumentException {
+		checkIndex(index);
+		if (newHitpoints < 0 || newHitpoints > maxHitpoints[index])
+			throw new IllegalArgumentException("Not a valid number of hitpoints.");
+		hitpoints[index] = newHitpoints;
+	}
+
+	/**
+	 * Check if the monster at the given index is alive.
+	 * @return	| result == (getHitpoints(index) > 0)
+	 */
+	public boolean isAlive(int index) {
+		return getHitpoints(index) > 0;
+	}
+
+	/**
+	 * Check that the given index is the index of a monster in this pool.
+	 * @throws	IndexOutOfBoundsException
+	 * 			| index < 0 || index >= getSize()
+	 */
+	private void checkIndex(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	//ADDING
+
+	/**
+	 * Add a monster with the given stats to this pool.
+	 * @param 	name
+	 * 			The name of the monster.
+	 * @param 	protection
+	 * 			The protection of the monster.
+	 * @param 	hitpoints
+	 * 			The hitpoints of the monster, which are also its highest possible hitpoints.
+	 * @param 	damage
+	 * 			The damage of the monster.
+	 * @param 	strength
+	 * 			The strength of the monster.
+	 * @param 	weaponDamage
+	 * 			The damage of the weapon in the right hand of the monster, or 0 if it has none.
+	 * @return	The index of the new monster, which is the old size of this pool.
+	 * 			| result == getSize()
+	 * @throws	IllegalArgumentException
+	 * 			The name or protection isn't valid for a monster, or the hitpoints are negative.
+	 * 			| !Monster.isValidName(name) || !Monster.isValidPrimeProtection(protection) || hitpoints < 0
+	 */
+	public int add(String name, int protection, int hitpoints, int damage, int strength, int weaponDamage) throws IllegalArgumentException {
+		if (!Monster.isValidName(name))
+			throw new IllegalArgumentException("Not a valid name: " + name);
+		if (!Monster.isValidPrimeProtection(protection))
+			throw new IllegalArgumentException("Not a valid protection: " + protection);
+		if (hitpoints < 0)
+			throw new IllegalArgumentException("Not a valid number of hitpoints.");
+		if (size == this.hitpoints.length)
+			grow();
+		int index = size++;
+		this.names[index] = name;
+		this.hitpoints[index] = hitpoints;
+		this.maxHitpoints[index] = hitpoints;
+		this.damage[index] = damage;
+		this.protection[index] = protection;
+		this.strength[index] = strength;
+		this.weaponDamage[index] = weaponDamage;
+		return index;
+	}
+
+	/**
+	 * Add a monster with the given name, protection and hitpoints to this pool, generating
+	 * its damage, strength and weapon damage like a new monster with a new weapon.
+	 * @effect	| add(name, protection, hitpoints, Monster.toValidDamage(Monster.generateDamage(random)),
+	 * 			|	Monster.generateStrength(random), Weapon.generateDamage(random))
+	 * @throws	IllegalArgumentException
+	 * 			The random source doesn't exist.
+	 * 			| random == null
+	 */
+	public int add(String name, int protection, int hitpoints, RandomSource random) throws IllegalArgumentException {
+		if (random == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		int damage = Monster.toValidDamage(Monster.generateDamage(random));
+		int strength = Monster.generateStrength(random);
+		int weaponDamage = Weapon.generateDamage(random);
+		return add(name, protection, hitpoints, damage, strength, weaponDamage);
+	}
+
+	/**
+	 * Add the stats of the given monster to this pool.
+	 * @effect	| add(monster.getName(), monster.getProtection(), monster.getMaxHitpoints(), monster.getDamage(),
+	 * 			|	monster.getStrength(), weapon damage in the right hand of the monster)
+	 * @effect	The hitpoints at the new index are the current hitpoints of the monster.
+	 */
+	public int add(Monster monster) throws IllegalArgumentException {
+		Item rightHand = monster.getAnchors()[1];
+		int index = add(monster.getName(), monster.getProtection(), monster.getMaxHitpoints(), monster.getDamage(),
+				monster.getStrength(), (rightHand instanceof Weapon) ? ((Weapon) rightHand).getDamage() : 0);
+		hitpoints[index] = monster.getHitpoints();
+		return index;
+	}
+
+	/**
+	 * Double the length of the arrays of this pool.
+	 */
+	private void grow() {
+		int length = Math.max(16, hitpoints.length * 2);
+		names = Arrays.copyOf(names, length);
+		hitpoints = Arrays.copyOf(hitpoints, length);
+		maxHitpoints = Arrays.copyOf(maxHitpoints, length);
+		damage = Arrays.copyOf(damage, length);
+		protection = Arrays.copyOf(protection, length);
+		strength = Arrays.copyOf(strength, length);
+		weaponDamage = Arrays.copyOf(weaponDamage, length);
+	}
+
+	//HITTING
+
+	/**
+	 * Let the monster at the given index hit the monster at the other index, following the same rules as Monster.hit.
+	 * @param 	attacker
+	 * 			The index of the attacking monster.
+	 * @param 	opponent
+	 * 			The index of the monster attacked.
+	 * @param 	random
+	 * 			The random source used for the attack roll.
+	 * @return	True if the attacker is alive and its roll, capped by its hitpoints, is larger than the protection of the opponent.
+	 * @effect	If the attack succeeds, the hitpoints of the opponent are reduced by the attack damage of the attacker,
+	 * 			or set to 0 if that isn't a valid number of hitpoints.
+	 * 			| if (result)
+	 * 			|	then new.getHitpoints(opponent) == Monster.hitpointsAfterHit(getHitpoints(opponent),
+	 * 			|		getMaxHitpoints(opponent), getDamage(attacker) + getWeaponDamage(attacker) + (getStrength(attacker)-5)/3)
+	 */
+	public boolean hit(int attacker, int opponent, RandomSource random) {
+		checkIndex(attacker);
+		checkIndex(opponent);
+		return hitUnchecked(attacker, opponent, random);
+	}
+
+	private boolean hitUnchecked(int attacker, int opponent, RandomSource random) {
+		int attackerHitpoints = hitpoints[attacker];
+		if (attackerHitpoints <= 0)
+			return false;
+		int roll = Math.min(random.nextInt(31), attackerHitpoints);
+		if (roll <= protection[opponent])
+			return false;
+		int attackDamage = damage[attacker] + weaponDamage[attacker] + (strength[attacker] - 5) / 3;
+		hitpoints[opponent] = Monster.hitpointsAfterHit(hitpoints[opponent], maxHitpoints[opponent], attackDamage);
+		return true;
+	}
+
+	/**
+	 * Let the monsters at the given indices hit each other in turn, starting with the attacker,
+	 * until one of them dies or the maximum number of rounds is reached.
+	 * The hitpoints of both monsters in this pool are changed by the duel.
+	 * @param 	attacker
+	 * 			The index of the monster attacking first.
+	 * @param 	opponent
+	 * 			The index of the monster attacked.
+	 * @param 	maxRounds
+	 * 			The maximum number of rounds of the duel.
+	 * @param 	random
+	 * 			The random source used for the attacks.
+	 * @return	The result of the duel, with the same rules as Arena.duel.
+	 * @throws	IllegalArgumentException
+	 * 			The monsters are the same, or the maximum number of rounds isn't valid.
+	 * 			| attacker == opponent || !Arena.isValidMaxRounds(maxRounds)
+	 */
+	public DuelResult duel(int attacker, int opponent, int maxRounds, RandomSource random) throws IllegalArgumentException {
+		checkIndex(attacker);
+		checkIndex(opponent);
+		if (attacker == opponent)
+			throw new IllegalArgumentException("A monster can't duel itself.");
+		if (!Arena.isValidMaxRounds(maxRounds))
+			throw new IllegalArgumentException("Not a valid number of rounds.");
+		int rounds = 0;
+		while (hitpoints[attacker] > 0 && hitpoints[opponent] > 0 && rounds < maxRounds) {
+			rounds++;
+			hitUnchecked(attacker, opponent, random);
+			hitUnchecked(opponent, attacker, random);
+		}
+		int winner = DuelResult.DRAW;
+		if (hitpoints[attacker] > 0 && hitpoints[opponent] <= 0)
+			winner = DuelResult.ATTACKER;
+		else if (hitpoints[opponent] > 0 && hitpoints[attacker] <= 0)
+			winner = DuelResult.OPPONENT;
+		return new DuelResult(winner, rounds, hitpoints[attacker], hitpoints[opponent]);
+	}
+
+	//MATERIALIZING
+
+	/**
+	 * Return a regular monster with the stats of the monster at the given index.
+	 * The monster is a copy: changes to it are not written back to this pool.
+	 * @param 	index
+	 * 			The index of the monster.
+	 * @param 	randomSource
+	 * 			The random source of the new monster.
+	 * @return	A monster with the name, protection, hitpoints, highest possible hitpoints, damage and strength
+	 * 			at the given index and three anchors, holding a weightless weapon with the weapon damage
+	 * 			at the given index in its right hand if that damage isn't 0.
+	 * 			| result.getName() == getName(index) && result.getHitpoints() == getHitpoints(index)
+	 * 			| && result.getDamage() == getDamage(index) && result.getStrength() == getStrength(index)
+	 */
+	public Monster materialize(int index, RandomSource randomSource) throws IllegalArgumentException {
+		checkIndex(index);
+		Monster monster = new Monster(names[index], protection[index], hitpoints[index], maxHitpoints[index],
+				damage[index], strength[index], 3, randomSource);
+		if (weaponDamage[index] != 0) {
+			Weapon weapon = new Weapon(0, 0, randomSource);
+			weapon.setDamage(weaponDamage[index]);
+			weapon.obtain(monster, 1);
+		}
+		return monster;
+	}
+
+}
@@ -0,0 +1,105 @@
+package RPG3;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import Items.Backpack;
+import Items.Weapon;
+
+/**
+ * A class of static methods spawning waves of monsters from specifications.
+ * The name, protection, hitpoints and number of anchors of every specification are checked
+ * against the precompiled name pattern and the sieved prime table of monsters before anything is created.
+ * A specification that doesn't pass, or whose weapon or backpack can't be made, is recorded as a failure
+ * in the result and the rest of the wave is still spawned.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class MonsterSpawner {
+
+	/**
+	 * This class can't be instantiated.
+	 */
+	private MonsterSpawner() {
+	}
+
+	/**
+	 * Spawn a monster for each of the given specifications.
+	 * @param 	specs
+	 * 			The specifications of the monsters.
+	 * @param 	random
+	 * 			The random source from which the random source of every monster is split, in the order of the specifications.
+	 * @return	The monsters spawned and the failures, at the index of their specification.
+	 * @throws	IllegalArgumentException
+	 * 			The list of specifications or the random source doesn't exist.
+	 * 			| specs == null || random == null
+	 */
+	public static SpawnResult spawn(MonsterSpec[] specs, RandomSource random) throws IllegalArgumentException {
+		if (specs == null)
+			throw new IllegalArgumentException("Specifications do not exist.");
+		if (random == null)
+			throw new IllegalArgumentException("Random source does not exist.");
+		Monster[] monsters = new Monster[specs.length];
+		String[] failures = new String[specs.length];
+		int nbFailed = 0;
+		for (int i = 0; i < specs.length; i++) {
+			RandomSource monsterRandom = random.split();
+			String failure = check(specs[i]);
+			if (failure == null) {
+				try {
+					monsters[i] = create(specs[i], monsterRandom);
+				}
+				catch (IllegalArgumentException | ArithmeticException e) {
+					failure = (e.getMessage() != null) ? e.getMessage() : "Items do not fit the monster.";
+				}
+			}
+			if (failure != null) {
+				failures[i] = failure;
+				nbFailed++;
+			}
+		}
+		return new SpawnResult(monsters, failures, nbFailed);
+	}
+
+	/**
+	 * Spawn a monster for each of the specifications of the given stream, in the order of the stream.
+	 * @effect	| spawn(specs.toArray(MonsterSpec[]::new), random)
+	 */
+	public static SpawnResult spawn(Stream<MonsterSpec> specs, RandomSource random) throws IllegalArgumentException {
+		if (specs == null)
+			throw new IllegalArgumentException("Specifications do not exist.");
+		ArrayList<MonsterSpec> list = new ArrayList<MonsterSpec>();
+		for (Iterator<MonsterSpec> it = specs.sequential().iterator(); it.hasNext();)
+			list.add(it.next());
+		return spawn(list.toArray(new MonsterSpec[list.size()]), random);
+	}
+
+	/**
+	 * Return the reason the given specification can't be spawned, or null if its stats are valid.
+	 */
+	static String check(MonsterSpec spec) {
+		if (spec == null)
+			return "Specification does not exist.";
+		if (!Monster.isValidName(spec.getName()))
+			return "Not a valid name: " + spec.getName();
+		if (!Monster.isValidPrimeProtection(spec.getProtection()))
+			return "Not a valid protection: " + spec.getProtection();
+		if (spec.getHitpoints() < 0)
+			return "Not a valid number of hitpoints: " + spec.getHitpoints();
+		if (!Monster.isValidNumberAnchors(spec.getNumberAnchors()))
+			return "Not a valid number of anchors: " + spec.getNumberAnchors();
+		return null;
+	}
+
+	/**
+	 * Create the monster of the given specification, with its weapon and backpack.
+	 */
+	private static Monster create(MonsterSpec spec, RandomSource random) throws IllegalArgumentException {
+		Weapon weapon = new Weapon(spec.getWeaponWeight(), spec.getWeaponValue(), random);
+		Backpack backpack = new Backpack(spec.getBackpackWeight(), spec.getBackpackValue(), spec.getBackpackCapacity());
+		return new Monster(spec.getName(), spec.getProtection(), spec.getHitpoints(), weapon, backpack, spec.getNumberAnchors(), random);
+	}
+
+}
@@ -0,0 +1,111 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of specifications of monsters to be spawned, each with the stats of the monster
+ * and of the weapon and backpack it starts with.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class MonsterSpec {
+
+	/**
+	 * Initialize a new specification with the given stats.
+	 * @param 	name
+	 * 			The name of the monster.
+	 * @param 	protection
+	 * 			The protection of the monster.
+	 * @param 	hitpoints
+	 * 			The hitpoints of the monster.
+	 * @param 	numberAnchors
+	 * 			The number of anchors of the monster.
+	 * @param 	weaponWeight
+	 * 			The weight of the weapon of the monster, in kilograms.
+	 * @param 	weaponValue
+	 * 			The value of the weapon of the monster.
+	 * @param 	backpackWeight
+	 * 			The weight of the backpack of the monster, in kilograms.
+	 * @param 	backpackValue
+	 * 			The value of the backpack of the monster.
+	 * @param 	backpackCapacity
+	 * 			The capacity of the backpack of the monster, in kilograms.
+	 * @post	The stats of this new specification are the given stats.
+	 */
+	public MonsterSpec(String name, int protection, int hitpoints, int numberAnchors, double weaponWeight, int weaponValue,
+			double backpackWeight, int backpackValue, int backpackCapacity) {
+		this.name = name;
+		this.protection = protection;
+		this.hitpoints = hitpoints;
+		this.numberAnchors = numberAnchors;
+		this.weaponWeight = weaponWeight;
+		this.weaponValue = weaponValue;
+		this.backpackWeight = backpackWeight;
+		this.backpackValue = backpackValue;
+		this.backpackCapacity = backpackCapacity;
+	}
+
+	/**
+	 * Variables registering the stats of the monster.
+	 */
+	private final String name;
+	private final int protection;
+	private final int hitpoints;
+	private final int numberAnchors;
+
+	/**
+	 * Variables registering the stats of the weapon and backpack of the monster.
+	 */
+	private final double weaponWeight;
+	private final int weaponValue;
+	private final double backpackWeight;
+	private final int backpackValue;
+	private final int backpackCapacity;
+
+	@Basic
+	public String getName() {
+		return this.name;
+	}
+
+	@Basic
+	public int getProtection() {
+		return this.protection;
+	}
+
+	@Basic
+	public int getHitpoints() {
+		return this.hitpoints;
+	}
+
+	@Basic
+	public int getNumberAnchors() {
+		return this.numberAnchors;
+	}
+
+	@Basic
+	public double getWeaponWeight() {
+		return this.weaponWeight;
+	}
+
+	@Basic
+	public int getWeaponValue() {
+		return this.weaponValue;
+	}
+
+	@Basic
+	public double getBackpackWeight() {
+		return this.backpackWeight;
+	}
+
+	@Basic
+	public int getBackpackValue() {
+		return this.backpackValue;
+	}
+
+	@Basic
+	public int getBackpackCapacity() {
+		return this.backpackCapacity;
+	}
+
+}
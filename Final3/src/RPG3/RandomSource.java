@@ -0,0 +1,39 @@
+package RPG3;
+
+/**
+ * An interface for sources of random numbers used in the stat and combat rolls of monsters and weapons.
+ * A random source can be split into an independent random source, so that rolls made on
+ * different threads don't share any state and can be reproduced from a single seed.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public interface RandomSource {
+
+	/**
+	 * Return a random number between 0 (inclusive) and the given bound (exclusive).
+	 * @param 	bound
+	 * 			The upper bound of the random number.
+	 * @return	A random number between 0 and bound.
+	 * 			| result >= 0 && result < bound
+	 * @throws	IllegalArgumentException
+	 * 			The bound isn't strictly positive.
+	 * 			| bound <= 0
+	 */
+	int nextInt(int bound) throws IllegalArgumentException;
+
+	/**
+	 * Return a new random source whose numbers are independent of the numbers of this random source.
+	 * Splitting a random source created from a given seed always results in the same sequence of random sources.
+	 */
+	RandomSource split();
+
+	/**
+	 * Return the random source of the current thread.
+	 * The random source of a thread is never shared with another thread, so it can be used without contention.
+	 */
+	static RandomSource current() {
+		return SplittableRandomSource.CURRENT.get();
+	}
+
+}
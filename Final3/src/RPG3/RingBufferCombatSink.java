@@ -0,0 +1,283 @@
+package RPG3;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of combat listeners collecting attacks in a lock-free ring buffer, which is drained
+ * by a background thread that writes every attack as a line to a writer.
+ * Any number of monsters, on any number of threads, can attack into the same sink. 
+ * When the ring buffer is full, new attacks are dropped instead of blocking the attacking thread.
+ * @invar	The capacity of the ring buffer is a power of two.
+ * 			| Integer.bitCount(getCapacity()) == 1
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class RingBufferCombatSink implements CombatListener, Closeable {
+
+	/**
+	 * Initialize a new sink with a ring buffer of the given capacity, writing to the given writer.
+	 * @param 	capacity
+	 * 			The minimal number of attacks the ring buffer can hold.
+	 * @param 	out
+	 * 			The writer to which the attacks are written.
+	 * @param 	closeOut
+	 * 			True if the writer should be closed when this sink is closed.
+	 * @post	The capacity of the new sink is the smallest power of two not smaller than the given capacity.
+	 * @post	A background thread drains the ring buffer of the new sink until it is closed.
+	 * @throws 	IllegalArgumentException
+	 * 			The capacity isn't valid or the writer doesn't exist.
+	 * 			| !isValidCapacity(capacity) || out == null
+	 */
+	public RingBufferCombatSink(int capacity, Writer out, boolean closeOut) throws IllegalArgumentException {
+		if (!isValidCapacity(capacity))
+			throw new IllegalArgumentException("Not a valid capacity.");
+		if (out == null)
+			throw new IllegalArgumentException("Writer does not exist.");
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		this.slots = new CombatEvent[size];
+		for (int i = 0; i < size; i++)
+			this.slots[i] = new CombatEvent();
+		this.published = new AtomicLongArray(size);
+		this.mask = size - 1;
+		this.out = out;
+		this.closeOut = closeOut;
+		this.drainer = new Thread(this::drainUntilClosed, "combat-event-sink");
+		this.drainer.setDaemon(true);
+		this.drainer.start();
+	}
+
+	/**
+	 * Return a new sink writing to the console.
+	 * @param 	capacity
+	 * 			The minimal number of attacks the ring buffer can hold.
+	 * @return	A sink writing to the standard output, which isn't closed when the sink is closed.
+	 * 			| result == new RingBufferCombatSink(capacity, new OutputStreamWriter(System.out), false)
+	 */
+	public static RingBufferCombatSink toConsole(int capacity) throws IllegalArgumentException {
+		return new RingBufferCombatSink(capacity, new OutputStreamWriter(System.out, StandardCharsets.UTF_8), false);
+	}
+
+	/**
+	 * Return a new sink writing to the given file.
+	 * @param 	capacity
+	 * 			The minimal number of attacks the ring buffer can hold.
+	 * @param 	fileName
+	 * 			The name of the file to which the attacks are written.
+	 * @return	A sink writing to the given file, which is closed when the sink is closed.
+	 * @throws	IOException
+	 * 			The file can't be opened for writing.
+	 */
+	public static RingBufferCombatSink toFile(int capacity, String fileName) throws IllegalArgumentException, IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8));
+		return new RingBufferCombatSink(capacity, writer, true);
+	}
+
+	//CAPACITY
+
+	/**
+	 * Check if the given capacity is valid.
+	 * @param 	capacity
+	 * 			The capacity to be checked.
+	 * @return	True if the capacity is strictly positive and not larger than 2^30.
+	 * 			| return == (capacity > 0 && capacity <= 1 << 30)
+	 */
+	public static boolean isValidCapacity(int capacity) {
+		return (capacity > 0 && capacity <= 1 << 30);
+	}
+
+	/**
+	 * Return the number of attacks the ring buffer of this sink can hold.
+	 */
+	@Basic
+	public int getCapacity() {
+		return this.slots.length;
+	}
+
+	//RING BUFFER
+
+	/**
+	 * Array holding the events of the ring buffer, reused for every round of the buffer.
+	 */
+	private final CombatEvent[] slots;
+
+	/**
+	 * Array registering, for every slot, the sequence number after the last event published in it.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * Variable registering the mask that maps a sequence number to a slot.
+	 */
+	private final int mask;
+
+	/**
+	 * Variable registering the sequence number of the next event to be claimed by an attacking thread.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Variable registering the sequence number of the next event to be written by the background thread.
+	 */
+	private volatile long head = 0;
+
+	/**
+	 * Variable counting the attacks that were dropped because the ring buffer was full.
+	 */
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Return the number of attacks that were dropped because the ring buffer was full.
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Publish the given attack to the ring buffer of this sink.
+	 * @post	If the ring buffer isn't full, the attack will be written by the background thread.
+	 * @post	If the ring buffer is full, the attack is dropped.
+	 * 			| new.getDroppedCount() == getDroppedCount() + 1
+	 */
+	@Override
+	public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+		long sequence;
+		do {
+			sequence = tail.get();
+			if (sequence - head >= slots.length) {
+				dropped.increment();
+				return;
+			}
+		} while (!tail.compareAndSet(sequence, sequence + 1));
+		int index = (int) (sequence & mask);
+		slots[index].set(attacker, defender, roll, damage, hit);
+		published.lazySet(index, sequence + 1);
+	}
+
+	/**
+	 * Write all published events to the writer of this sink.
+	 * @return	The number of events written.
+	 * @throws	IOException
+	 * 			The writer couldn't write an event.
+	 */
+	private int drain() throws IOException {
+		int count = 0;
+		long sequence = head;
+		while (true) {
+			int index = (int) (sequence & mask);
+			if (published.get(index) != sequence + 1)
+				break;
+			CombatEvent event = slots[index];
+			out.write(event.toString());
+			out.write(System.lineSeparator());
+			event.set(null, null, 0, 0, false);
+			sequence++;
+			head = sequence;
+			count++;
+		}
+		return count;
+	}
+
+	//BACKGROUND THREAD
+
+	/**
+	 * Variable referencing the writer to which the attacks are written.
+	 */
+	private final Writer out;
+
+	/**
+	 * Variable registering whether the writer is closed when this sink is closed.
+	 */
+	private final boolean closeOut;
+
+	/**
+	 * Variable referencing the thread draining the ring buffer.
+	 */
+	private final Thread drainer;
+
+	/**
+	 * Variable registering whether this sink is closed.
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * Variable referencing the first exception thrown by the writer.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Drain the ring buffer until this sink is closed, flushing the writer whenever the ring buffer is empty.
+	 */
+	private void drainUntilClosed() {
+		try {
+			boolean written = false;
+			while (!closed) {
+				if (drain() > 0)
+					written = true;
+				else {
+					if (written) {
+						out.flush();
+						written = false;
+					}
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+			}
+		}
+		catch (IOException exc) {
+			failure = exc;
+		}
+	}
+
+	/**
+	 * Variable registering how long the background thread waits when the ring buffer is empty.
+	 */
+	private final static long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/**
+	 * Close this sink.
+	 * @post	All attacks published before closing are written and the writer is flushed.
+	 * @post	The writer is closed if this sink owns it.
+	 * @throws	IOException
+	 * 			The writer failed to write an attack.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		LockSupport.unpark(drainer);
+		try {
+			drainer.join();
+		}
+		catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			if (failure == null)
+				drain();
+			out.flush();
+		}
+		finally {
+			if (closeOut)
+				out.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+}
@@ -0,0 +1,82 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of results of spawning a wave of monsters from a list of specifications.
+ * For every specification, the result holds either the spawned monster or the reason it couldn't be spawned.
+ * @invar	For every specification, there is either a monster or a failure.
+ * 			| for each index in 0..getNbSpecs()-1:
+ * 			|	(getMonster(i) == null) != (getFailure(i) == null)
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class SpawnResult {
+
+	/**
+	 * Initialize a new spawn result for the given monsters and failures.
+	 */
+	SpawnResult(Monster[] monsters, String[] failures, int nbFailed) {
+		this.monsters = monsters;
+		this.failures = failures;
+		this.nbFailed = nbFailed;
+	}
+
+	/**
+	 * Lists registering the monster spawned and the failure, at the index of each specification.
+	 */
+	private final Monster[] monsters;
+	private final String[] failures;
+
+	/**
+	 * Variable registering the number of specifications that couldn't be spawned.
+	 */
+	private final int nbFailed;
+
+	/**
+	 * Return the number of specifications in the wave.
+	 */
+	@Basic
+	public int getNbSpecs() {
+		return monsters.length;
+	}
+
+	/**
+	 * Return the number of specifications that couldn't be spawned.
+	 */
+	@Basic
+	public int getNbFailed() {
+		return this.nbFailed;
+	}
+
+	/**
+	 * Return the monster spawned from the specification at the given index, or null if it couldn't be spawned.
+	 */
+	@Basic
+	public Monster getMonster(int index) {
+		return monsters[index];
+	}
+
+	/**
+	 * Return the reason the specification at the given index couldn't be spawned, or null if it was spawned.
+	 */
+	@Basic
+	public String getFailure(int index) {
+		return failures[index];
+	}
+
+	/**
+	 * Return the monsters spawned, in the order of their specifications.
+	 * @return	A new list of all monsters that were spawned.
+	 */
+	public Monster[] getSpawned() {
+		Monster[] result = new Monster[monsters.length - nbFailed];
+		int next = 0;
+		for (Monster monster : monsters)
+			if (monster != null)
+				result[next++] = monster;
+		return result;
+	}
+
+}
@@ -0,0 +1,65 @@
+package RPG3;
+
+import java.util.SplittableRandom;
+
+/**
+ * A class of random sources backed by a splittable random generator.
+ * A splittable random source isn't thread-safe: it should be split for every thread that needs one.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class SplittableRandomSource implements RandomSource {
+
+	/**
+	 * Initialize a new random source with the given seed.
+	 * @param 	seed
+	 * 			The seed of the new random source.
+	 * @post	Random sources created with the same seed generate the same numbers.
+	 */
+	public SplittableRandomSource(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	/**
+	 * Initialize a new random source with a seed that is unlikely to be used by any other random source.
+	 */
+	public SplittableRandomSource() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Initialize a new random source backed by the given generator.
+	 * @param 	random
+	 * 			The generator of the new random source.
+	 */
+	private SplittableRandomSource(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Variable referencing the generator of this random source.
+	 */
+	private final SplittableRandom random;
+
+	@Override
+	public int nextInt(int bound) throws IllegalArgumentException {
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public SplittableRandomSource split() {
+		return new SplittableRandomSource(random.split());
+	}
+
+	/**
+	 * Variable referencing the random source of each thread.
+	 */
+	final static ThreadLocal<SplittableRandomSource> CURRENT = new ThreadLocal<SplittableRandomSource>() {
+		@Override
+		protected SplittableRandomSource initialValue() {
+			return new SplittableRandomSource();
+		}
+	};
+
+}
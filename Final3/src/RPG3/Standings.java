@@ -0,0 +1,122 @@
+package RPG3;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A class of standings of a tournament, counting the wins, draws and losses of every entrant.
+ * Matches fought on different threads can be recorded at the same time, and the standings can be
+ * read while the tournament is still running.
+ * A win is worth 3 points, a draw 1 point and a loss none.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class Standings {
+
+	/**
+	 * Variables registering the points of a win and of a draw.
+	 */
+	public final static int WIN_POINTS = 3;
+	public final static int DRAW_POINTS = 1;
+
+	/**
+	 * Initialize new standings for the given number of entrants, without any match.
+	 */
+	Standings(int nbEntrants) {
+		wins = new AtomicIntegerArray(nbEntrants);
+		draws = new AtomicIntegerArray(nbEntrants);
+		losses = new AtomicIntegerArray(nbEntrants);
+	}
+
+	/**
+	 * Lists registering the wins, draws and losses of every entrant.
+	 */
+	private final AtomicIntegerArray wins;
+	private final AtomicIntegerArray draws;
+	private final AtomicIntegerArray losses;
+
+	/**
+	 * Record the given match.
+	 */
+	void record(MatchResult match) {
+		if (match.getWinner() == match.getHome()) {
+			wins.incrementAndGet(match.getHome());
+			losses.incrementAndGet(match.getAway());
+		}
+		else if (match.getWinner() == match.getAway()) {
+			wins.incrementAndGet(match.getAway());
+			losses.incrementAndGet(match.getHome());
+		}
+		else {
+			draws.incrementAndGet(match.getHome());
+			draws.incrementAndGet(match.getAway());
+		}
+	}
+
+	/**
+	 * Record a win without a match for the given entrant.
+	 */
+	void recordBye(int entrant) {
+		wins.incrementAndGet(entrant);
+	}
+
+	/**
+	 * Return the number of entrants.
+	 */
+	public int getNbEntrants() {
+		return wins.length();
+	}
+
+	public int getWins(int entrant) {
+		return wins.get(entrant);
+	}
+
+	public int getDraws(int entrant) {
+		return draws.get(entrant);
+	}
+
+	public int getLosses(int entrant) {
+		return losses.get(entrant);
+	}
+
+	/**
+	 * Return the points of the given entrant.
+	 * @return	| result == WIN_POINTS * getWins(entrant) + DRAW_POINTS * getDraws(entrant)
+	 */
+	public int getPoints(int entrant) {
+		return WIN_POINTS * wins.get(entrant) + DRAW_POINTS * draws.get(entrant);
+	}
+
+	/**
+	 * Return the indices of the entrants from first to last place.
+	 * @return	The entrants sorted on their points, then on their wins, both from high to low, then on their index.
+	 */
+	public int[] getRanking() {
+		Integer[] entrants = new Integer[getNbEntrants()];
+		final int[] points = new int[entrants.length];
+		final int[] nbWins = new int[entrants.length];
+		for (int i = 0; i < entrants.length; i++) {
+			entrants[i] = i;
+			points[i] = getPoints(i);
+			nbWins[i] = getWins(i);
+		}
+		Arrays.sort(entrants, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer entrant1, Integer entrant2) {
+				int result = Integer.compare(points[entrant2], points[entrant1]);
+				if (result == 0)
+					result = Integer.compare(nbWins[entrant2], nbWins[entrant1]);
+				if (result == 0)
+					result = Integer.compare(entrant1, entrant2);
+				return result;
+			}
+		});
+		int[] result = new int[entrants.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = entrants[i];
+		return result;
+	}
+
+}
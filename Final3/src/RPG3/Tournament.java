@@ -0,0 +1,402 @@
+package RPG3;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of tournaments between a fixed list of entrants, fought as a round-robin, a single-elimination bracket
+ * or a Swiss system. Entrants are identified by their index in the list of entrants.
+ * Every match is a duel fought on copies of the hitpoints of the entrants, so the entrants themselves are never changed.
+ * The matches are fought in a work-stealing pool, and the listener of the tournament is notified of every match
+ * as soon as it is decided, together with the standings so far. Its combat listener is notified of every attack
+ * in the matches, with the hitpoints in the duel.
+ * The random source of every match is split from the random source of the tournament before any match is fought,
+ * so a tournament created with a given seed has the same results however its matches are spread over the threads.
+ * @invar	The maximum number of rounds of a duel must be valid.
+ * 			| Arena.isValidMaxRounds(getMaxRounds())
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class Tournament {
+
+	/**
+	 * Initialize a new tournament between the given entrants.
+	 * @param 	entrants
+	 * 			The monsters taking part in the tournament.
+	 * @param 	pool
+	 * 			The pool in which the matches are fought.
+	 * @param 	maxRounds
+	 * 			The maximum number of rounds of a duel.
+	 * @param 	randomSource
+	 * 			The random source from which the random sources of the matches are split.
+	 * @param 	listener
+	 * 			The listener notified of every match.
+	 * @throws	IllegalArgumentException
+	 * 			The list of entrants, the pool, the random source or the listener doesn't exist,
+	 * 			there are fewer than two entrants, one of them doesn't exist, or the maximum number of rounds isn't valid.
+	 */
+	public Tournament(Monster[] entrants, ForkJoinPool pool, int maxRounds, RandomSource randomSource, MatchListener listener)
+			throws IllegalArgumentException {
+		if (entrants == null || entrants.length < 2)
+			throw new IllegalArgumentException("Not a valid list of entrants.");
+		for (Monster entrant : entrants)
+			if (entrant == null)
+				throw new IllegalArgumentException("Monster does not exist.");
+		if (pool == null || randomSource == null || listener == null)
+			throw new IllegalArgumentException("Pool, random source or listener does not exist.");
+		if (!Arena.isValidMaxRounds(maxRounds))
+			throw new IllegalArgumentException("Not a valid number of rounds.");
+		this.entrants = entrants.clone();
+		this.pool = pool;
+		this.maxRounds = maxRounds;
+		this.randomSource = randomSource;
+		this.listener = listener;
+	}
+
+	/**
+	 * Initialize a new tournament between the given entrants in the common pool, fighting matches from the given seed.
+	 * @effect	| this(entrants, ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS, new SplittableRandomSource(seed), MatchListener.NONE)
+	 */
+	public Tournament(Monster[] entrants, long seed) throws IllegalArgumentException {
+		this(entrants, ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS, new SplittableRandomSource(seed), MatchListener.NONE);
+	}
+
+	/**
+	 * List of monsters taking part in this tournament.
+	 */
+	private final Monster[] entrants;
+
+	/**
+	 * Return the number of entrants of this tournament.
+	 */
+	public int getNbEntrants() {
+		return entrants.length;
+	}
+
+	/**
+	 * Return the entrant at the given index.
+	 */
+	public Monster getEntrant(int index) {
+		return entrants[index];
+	}
+
+	/**
+	 * Variable referencing the pool in which the matches are fought.
+	 */
+	private final ForkJoinPool pool;
+
+	@Basic
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Variable registering the maximum number of rounds of a duel.
+	 */
+	private final int maxRounds;
+
+	@Basic
+	public int getMaxRounds() {
+		return this.maxRounds;
+	}
+
+	/**
+	 * Variable referencing the random source from which the random sources of the matches are split.
+	 */
+	private final RandomSource randomSource;
+
+	/**
+	 * Variable referencing the listener notified of every match.
+	 */
+	private final MatchListener listener;
+
+	@Basic
+	public MatchListener getListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Variable referencing the listener notified of every attack in the matches of this tournament.
+	 */
+	private volatile CombatListener combatListener = CombatListener.NONE;
+
+	@Basic
+	public CombatListener getCombatListener() {
+		return this.combatListener;
+	}
+
+	/**
+	 * Set the listener notified of every attack in the matches of this tournament.
+	 * The listener is called from the threads of the pool, so it must be thread-safe.
+	 * @param 	combatListener
+	 * 			The new combat listener of this tournament.
+	 * @post	The combat listener of this tournament is the given listener.
+	 * 			| new.getCombatListener() == combatListener
+	 * @throws	IllegalArgumentException
+	 * 			The listener doesn't exist.
+	 * 			| combatListener == null
+	 */
+	public void setCombatListener(CombatListener combatListener) throws IllegalArgumentException {
+		if (combatListener == null)
+			throw new IllegalArgumentException("Listener does not exist.");
+		this.combatListener = combatListener;
+	}
+
+	//MATCHES
+
+	/**
+	 * Fight the match between the given entrants and record it.
+	 * @param 	round
+	 * 			The round of the match.
+	 * @param 	home
+	 * 			The index of the entrant attacking first.
+	 * @param 	away
+	 * 			The index of the entrant attacked first.
+	 * @param 	random
+	 * 			The random source of the match.
+	 * @param 	decisive
+	 * 			Whether a draw must be decided, on the hitpoints left and else in favour of the home entrant.
+	 * @param 	standings
+	 * 			The standings in which the match is recorded.
+	 * @return	The result of the match.
+	 */
+	private MatchResult play(int round, int home, int away, RandomSource random, boolean decisive, Standings standings) {
+		DuelResult duel = Arena.duel(entrants[home], entrants[away], maxRounds, random, getCombatListener());
+		int winner = -1;
+		if (duel.getWinner() == DuelResult.ATTACKER)
+			winner = home;
+		else if (duel.getWinner() == DuelResult.OPPONENT)
+			winner = away;
+		else if (decisive)
+			winner = (duel.getOpponentHitpoints() > duel.getAttackerHitpoints()) ? away : home;
+		MatchResult match = new MatchResult(round, home, away, duel, winner);
+		standings.record(match);
+		listener.matchFinished(match, standings);
+		return match;
+	}
+
+	/**
+	 * Return the given number of random sources split from the random source of this tournament.
+	 */
+	private RandomSource[] splitRandomSources(int number) {
+		RandomSource[] result = new RandomSource[number];
+		synchronized (randomSource) {
+			for (int i = 0; i < number; i++)
+				result[i] = randomSource.split();
+		}
+		return result;
+	}
+
+	//ROUND-ROBIN
+
+	/**
+	 * Let every entrant fight every other entrant once.
+	 * The home entrant of a match alternates with the sum of both indices, so no entrant always attacks first.
+	 * @return	The standings after all matches.
+	 */
+	public Standings roundRobin() {
+		Standings standings = new Standings(entrants.length);
+		pool.invoke(new RowTask(standings, splitRandomSources(entrants.length), 0, entrants.length));
+		return standings;
+	}
+
+	/**
+	 * A class of tasks fighting all matches of the entrants in a range against the entrants after them.
+	 * The matches of one entrant use random sources split in order from the random source of that entrant.
+	 */
+	private final class RowTask extends RecursiveAction {
+
+		private final Standings standings;
+		private final RandomSource[] randoms;
+		private final int from;
+		private final int to;
+
+		RowTask(Standings standings, RandomSource[] randoms, int from, int to) {
+			this.standings = standings;
+			this.randoms = randoms;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RowTask(standings, randoms, from, middle), new RowTask(standings, randoms, middle, to));
+				return;
+			}
+			for (int j = from + 1; j < entrants.length; j++) {
+				if ((from + j) % 2 == 0)
+					play(0, from, j, randoms[from].split(), false, standings);
+				else
+					play(0, j, from, randoms[from].split(), false, standings);
+			}
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	//SINGLE ELIMINATION
+
+	/**
+	 * Let the entrants fight a single-elimination bracket, in which entrant i starts in slot i.
+	 * If the number of entrants isn't a power of two, the last slots are byes and their opponents advance without a match.
+	 * Every match starts as soon as both of its entrants are known, without waiting for the rest of the round.
+	 * A draw is won by the entrant with the most hitpoints left, and else by the home entrant.
+	 * @return	The index of the entrant that won the final.
+	 */
+	public int singleElimination() {
+		int size = Integer.highestOneBit(entrants.length - 1) << 1;
+		Standings standings = new Standings(entrants.length);
+		RandomSource[] randoms = splitRandomSources(size);
+		ArrayList<CompletableFuture<Integer>> round = new ArrayList<CompletableFuture<Integer>>(size);
+		for (int slot = 0; slot < size; slot++)
+			round.add(CompletableFuture.completedFuture(slot < entrants.length ? slot : -1));
+		int roundNumber = 0;
+		int node = 1;
+		while (round.size() > 1) {
+			ArrayList<CompletableFuture<Integer>> next = new ArrayList<CompletableFuture<Integer>>(round.size() / 2);
+			for (int i = 0; i < round.size(); i += 2) {
+				final int matchRound = roundNumber;
+				final RandomSource random = randoms[node++];
+				next.add(round.get(i).thenCombineAsync(round.get(i + 1), (home, away) -> {
+					if (away < 0)
+						return home;
+					if (home < 0)
+						return away;
+					return play(matchRound, home, away, random, true, standings).getWinner();
+				}, pool));
+			}
+			round = next;
+			roundNumber++;
+		}
+		try {
+			return round.get(0).join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	//SWISS
+
+	/**
+	 * Let the entrants fight the given number of rounds of a Swiss system.
+	 * Before every round, the entrants are ranked on the standings so far and every entrant is paired with
+	 * the next entrant in the ranking it hasn't fought yet. With an odd number of entrants, the lowest ranked
+	 * entrant without a bye gets a bye, which counts as a win. The matches of a round are fought in parallel,
+	 * but a round can only be paired once the previous round is decided.
+	 * @param 	nbRounds
+	 * 			The number of rounds.
+	 * @return	The standings after all rounds.
+	 * @throws	IllegalArgumentException
+	 * 			The number of rounds is negative.
+	 * 			| nbRounds < 0
+	 */
+	public Standings swiss(int nbRounds) throws IllegalArgumentException {
+		if (nbRounds < 0)
+			throw new IllegalArgumentException("Not a valid number of rounds.");
+		Standings standings = new Standings(entrants.length);
+		HashSet<Long> played = new HashSet<Long>();
+		boolean[] hadBye = new boolean[entrants.length];
+		for (int round = 0; round < nbRounds; round++) {
+			int[] ranking = standings.getRanking();
+			boolean[] paired = new boolean[entrants.length];
+			if (entrants.length % 2 == 1) {
+				int bye = ranking[ranking.length - 1];
+				for (int i = ranking.length - 1; i >= 0; i--) {
+					if (!hadBye[ranking[i]]) {
+						bye = ranking[i];
+						break;
+					}
+				}
+				hadBye[bye] = true;
+				paired[bye] = true;
+				standings.recordBye(bye);
+			}
+			int nbMatches = entrants.length / 2;
+			int[] homes = new int[nbMatches];
+			int[] aways = new int[nbMatches];
+			int match = 0;
+			for (int i = 0; i < ranking.length; i++) {
+				int home = ranking[i];
+				if (paired[home])
+					continue;
+				int away = -1;
+				for (int j = i + 1; j < ranking.length; j++) {
+					if (!paired[ranking[j]]) {
+						if (away < 0)
+							away = ranking[j];
+						if (!played.contains(pairKey(home, ranking[j]))) {
+							away = ranking[j];
+							break;
+						}
+					}
+				}
+				paired[home] = true;
+				paired[away] = true;
+				played.add(pairKey(home, away));
+				homes[match] = home;
+				aways[match] = away;
+				match++;
+			}
+			pool.invoke(new MatchTask(round, homes, aways, splitRandomSources(nbMatches), standings, 0, nbMatches));
+		}
+		return standings;
+	}
+
+	/**
+	 * Return a key identifying the pair of the given entrants, in whatever order they are given.
+	 */
+	private long pairKey(int entrant1, int entrant2) {
+		return (long) Math.min(entrant1, entrant2) * entrants.length + Math.max(entrant1, entrant2);
+	}
+
+	/**
+	 * A class of tasks fighting the matches in a range of a round, splitting the range while it is large.
+	 */
+	private final class MatchTask extends RecursiveAction {
+
+		private final int round;
+		private final int[] homes;
+		private final int[] aways;
+		private final RandomSource[] randoms;
+		private final Standings standings;
+		private final int from;
+		private final int to;
+
+		MatchTask(int round, int[] homes, int[] aways, RandomSource[] randoms, Standings standings, int from, int to) {
+			this.round = round;
+			this.homes = homes;
+			this.aways = aways;
+			this.randoms = randoms;
+			this.standings = standings;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 8) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new MatchTask(round, homes, aways, randoms, standings, from, middle),
+						new MatchTask(round, homes, aways, randoms, standings, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++)
+				play(round, homes[i], aways[i], randoms[i], false, standings);
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+}
@@ -0,0 +1,100 @@
+package RPG3;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of estimates of the probability that an attacker beats an opponent, with a confidence interval.
+ * @invar	The bounds of the interval contain the probability.
+ * 			| getLowerBound() <= getProbability() && getProbability() <= getUpperBound()
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public final class WinEstimate {
+
+	/**
+	 * Initialize a new estimate from the given counts, with a Wilson score interval for the given z-value.
+	 * @param 	wins
+	 * 			The number of duels won by the attacker.
+	 * @param 	draws
+	 * 			The number of duels that ended in a draw.
+	 * @param 	duels
+	 * 			The number of duels fought.
+	 * @param 	z
+	 * 			The z-value of the confidence level of the interval.
+	 */
+	WinEstimate(long wins, long draws, long duels, double z) {
+		this.wins = wins;
+		this.draws = draws;
+		this.duels = duels;
+		double p = (duels == 0) ? 0 : (double) wins / duels;
+		double z2 = z * z;
+		double denominator = 1 + z2 / duels;
+		double centre = (p + z2 / (2 * duels)) / denominator;
+		double margin = z * Math.sqrt(p * (1 - p) / duels + z2 / (4.0 * duels * duels)) / denominator;
+		this.probability = p;
+		this.lowerBound = (duels == 0) ? 0 : Math.min(p, Math.max(0, centre - margin));
+		this.upperBound = (duels == 0) ? 1 : Math.max(p, Math.min(1, centre + margin));
+	}
+
+	/**
+	 * Variables registering the counts the estimate is based on.
+	 */
+	private final long wins;
+	private final long draws;
+	private final long duels;
+
+	/**
+	 * Variables registering the estimated probability and the bounds of its interval.
+	 */
+	private final double probability;
+	private final double lowerBound;
+	private final double upperBound;
+
+	@Basic
+	public long getWins() {
+		return this.wins;
+	}
+
+	@Basic
+	public long getDraws() {
+		return this.draws;
+	}
+
+	@Basic
+	public long getNbDuels() {
+		return this.duels;
+	}
+
+	/**
+	 * Return the fraction of duels won by the attacker.
+	 */
+	@Basic
+	public double getProbability() {
+		return this.probability;
+	}
+
+	@Basic
+	public double getLowerBound() {
+		return this.lowerBound;
+	}
+
+	@Basic
+	public double getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * Return half of the width of the confidence interval.
+	 * @return	| result == (getUpperBound() - getLowerBound()) / 2
+	 */
+	public double getHalfWidth() {
+		return (upperBound - lowerBound) / 2;
+	}
+
+	@Override
+	public String toString() {
+		return "WinEstimate[p=" + probability + " in [" + lowerBound + ", " + upperBound + "], duels=" + duels + "]";
+	}
+
+}
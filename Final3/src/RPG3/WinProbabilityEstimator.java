@@ -0,0 +1,212 @@
+package RPG3;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+/**
+ * A class of estimators of the probability that one monster beats another, by fighting many duels between them.
+ * Duels are fought in parallel waves of batches on copies of the hitpoints of the monsters, so the monsters and
+ * their anchors are never changed. After every wave, the confidence interval of the estimate is computed, and no
+ * more duels are fought once it is narrow enough.
+ * Every batch gets a random source split from the random source of the estimator before the wave starts,
+ * so an estimator created with a given seed gives the same estimates however the batches are spread over the threads.
+ * @author 	Robin and Ramon
+ * @version 3.7
+ *
+ */
+public class WinProbabilityEstimator {
+
+	/**
+	 * Variable registering the z-value of a 95% confidence interval.
+	 */
+	public final static double Z_95 = 1.959963984540054;
+
+	/**
+	 * Variable registering the number of duels fought in one batch.
+	 */
+	final static int BATCH_SIZE = 256;
+
+	/**
+	 * Initialize a new estimator with given pool, maximum number of rounds and random source.
+	 * @throws	IllegalArgumentException
+	 * 			The pool or random source doesn't exist, or the maximum number of rounds isn't valid.
+	 * 			| pool == null || randomSource == null || !Arena.isValidMaxRounds(maxRounds)
+	 */
+	public WinProbabilityEstimator(ForkJoinPool pool, int maxRounds, RandomSource randomSource) throws IllegalArgumentException {
+		if (pool == null || randomSource == null)
+			throw new IllegalArgumentException("Pool or random source does not exist.");
+		if (!Arena.isValidMaxRounds(maxRounds))
+			throw new IllegalArgumentException("Not a valid number of rounds.");
+		this.pool = pool;
+		this.maxRounds = maxRounds;
+		this.randomSource = randomSource;
+	}
+
+	/**
+	 * Initialize a new estimator in the common pool, fighting duels from the given seed.
+	 * @effect	| this(ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS, new SplittableRandomSource(seed))
+	 */
+	public WinProbabilityEstimator(long seed) {
+		this(ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS, new SplittableRandomSource(seed));
+	}
+
+	/**
+	 * Variable referencing the pool in which the duels are fought.
+	 */
+	private final ForkJoinPool pool;
+
+	@Basic
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Variable registering the maximum number of rounds of a duel.
+	 */
+	private final int maxRounds;
+
+	@Basic
+	public int getMaxRounds() {
+		return this.maxRounds;
+	}
+
+	/**
+	 * Variable referencing the random source from which the random sources of the batches are split.
+	 */
+	private final RandomSource randomSource;
+
+	/**
+	 * Variable referencing the listener notified of every attack in the duels of this estimator.
+	 */
+	private volatile CombatListener combatListener = CombatListener.NONE;
+
+	@Basic
+	public CombatListener getCombatListener() {
+		return this.combatListener;
+	}
+
+	/**
+	 * Set the listener notified of every attack in the duels of this estimator.
+	 * The listener is called from the threads of the pool, so it must be thread-safe.
+	 * @param 	combatListener
+	 * 			The new combat listener of this estimator.
+	 * @post	The combat listener of this estimator is the given listener.
+	 * 			| new.getCombatListener() == combatListener
+	 * @throws	IllegalArgumentException
+	 * 			The listener doesn't exist.
+	 * 			| combatListener == null
+	 */
+	public void setCombatListener(CombatListener combatListener) throws IllegalArgumentException {
+		if (combatListener == null)
+			throw new IllegalArgumentException("Listener does not exist.");
+		this.combatListener = combatListener;
+	}
+
+	/**
+	 * Estimate the probability that the given attacker, attacking first, beats the given opponent.
+	 * @param 	attacker
+	 * 			The monster attacking first.
+	 * @param 	opponent
+	 * 			The monster attacked.
+	 * @param 	halfWidth
+	 * 			The largest half width of the confidence interval at which no more duels are fought.
+	 * @param 	z
+	 * 			The z-value of the confidence level, for example Z_95.
+	 * @param 	maxDuels
+	 * 			The largest number of duels to be fought, even if the interval isn't narrow enough yet.
+	 * @return	An estimate based on at least one batch of duels. Its interval has the given half width
+	 * 			or less, unless the maximum number of duels was reached first.
+	 * 			| result.getHalfWidth() <= halfWidth || result.getNbDuels() >= maxDuels
+	 * @throws	IllegalArgumentException
+	 * 			A monster doesn't exist, the half width isn't strictly positive, the z-value is negative
+	 * 			or the maximum number of duels isn't strictly positive.
+	 */
+	public WinEstimate estimate(Monster attacker, Monster opponent, double halfWidth, double z, long maxDuels)
+			throws IllegalArgumentException {
+		if (attacker == null || opponent == null)
+			throw new IllegalArgumentException("Monster does not exist.");
+		if (!(halfWidth > 0) || !(z >= 0) || maxDuels <= 0)
+			throw new IllegalArgumentException("Not a valid precision.");
+		int batchesPerWave = Math.max(1, pool.getParallelism());
+		long wins = 0;
+		long draws = 0;
+		long duels = 0;
+		WinEstimate result;
+		do {
+			long remaining = maxDuels - duels;
+			int batches = (int) Math.min(batchesPerWave, (remaining + BATCH_SIZE - 1) / BATCH_SIZE);
+			RandomSource[] randoms = new RandomSource[batches];
+			synchronized (randomSource) {
+				for (int i = 0; i < batches; i++)
+					randoms[i] = randomSource.split();
+			}
+			long[] counts = pool.invoke(new BatchTask(attacker, opponent, randoms, remaining, 0, batches));
+			wins += counts[0];
+			draws += counts[1];
+			duels += counts[2];
+			result = new WinEstimate(wins, draws, duels, z);
+		} while (result.getHalfWidth() > halfWidth && duels < maxDuels);
+		return result;
+	}
+
+	/**
+	 * Estimate the probability that the given attacker beats the given opponent with 95% confidence.
+	 * @effect	| estimate(attacker, opponent, halfWidth, Z_95, Long.MAX_VALUE)
+	 */
+	public WinEstimate estimate(Monster attacker, Monster opponent, double halfWidth) throws IllegalArgumentException {
+		return estimate(attacker, opponent, halfWidth, Z_95, Long.MAX_VALUE);
+	}
+
+	/**
+	 * A class of tasks fighting a range of batches of duels and counting the wins, draws and duels.
+	 */
+	private final class BatchTask extends RecursiveTask<long[]> {
+
+		private final Monster attacker;
+		private final Monster opponent;
+		private final RandomSource[] randoms;
+		private final long remaining;
+		private final int from;
+		private final int to;
+
+		BatchTask(Monster attacker, Monster opponent, RandomSource[] randoms, long remaining, int from, int to) {
+			this.attacker = attacker;
+			this.opponent = opponent;
+			this.randoms = randoms;
+			this.remaining = remaining;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				BatchTask left = new BatchTask(attacker, opponent, randoms, remaining, from, middle);
+				left.fork();
+				long[] right = new BatchTask(attacker, opponent, randoms, remaining, middle, to).compute();
+				long[] counts = left.join();
+				for (int i = 0; i < counts.length; i++)
+					counts[i] += right[i];
+				return counts;
+			}
+			long[] counts = new long[3];
+			long size = Math.min(BATCH_SIZE, remaining - (long) from * BATCH_SIZE);
+			CombatListener listener = getCombatListener();
+			for (long i = 0; i < size; i++) {
+				int winner = Arena.duel(attacker, opponent, maxRounds, randoms[from], listener).getWinner();
+				if (winner == DuelResult.ATTACKER)
+					counts[0]++;
+				else if (winner == DuelResult.DRAW)
+					counts[1]++;
+				counts[2]++;
+			}
+			return counts;
+		}
+
+		private static final long serialVersionUID = 1L;
+	}
+
+}
@@ -149,4 +149,37 @@ public class TestAddItemBackpack {
 		sack.addToBackpack(back); 
 		assertEquals(monster1,pizza.getIndirectHolder(pizza));
 	}
+	
+	//Test to assure that an item is sorted again when the weight of its contents changes.
+	@Test 
+	public void addToBackpack15() throws Exception {
+		Backpack pouch = new Backpack(0.5, 5, 10);
+		Purse coins = new Purse(0.5, 1, 50, 0);
+		coins.addToBackpack(pouch); //weight of pouch is 1.00
+		burrito.addToBackpack(back); //weight is 2.00
+		pouch.addToBackpack(back);
+		assertEquals(pouch, back.getLightestItem());
+		assertEquals(burrito, back.getHeaviestItem2());
+		coins.addDukats(40); //weight of pouch is 3.00
+		assertEquals(burrito, back.getLightestItem2());
+		assertEquals(pouch, back.getHeaviestItem());
+		assertEquals(pouch, back.getContents().get(1));
+	}
+	
+	//Test to assure that the indirect holder of a deeply nested item follows its outermost backpack.
+	@Test 
+	public void addToBackpack16() throws Exception {
+		Backpack outer = new Backpack(0, 1, 1);
+		Backpack inner = outer;
+		for(int i=0;i<10000;i++) {
+			Backpack next = new Backpack(0, 1, 1);
+			next.addToBackpack(inner);
+			inner = next;
+		}
+		assertEquals(null, inner.getIndirectHolder());
+		outer.obtain(monster1);
+		assertEquals(monster1, inner.getIndirectHolder());
+		monster1.drop(outer);
+		assertEquals(null, inner.getIndirectHolder());
+	}
 }
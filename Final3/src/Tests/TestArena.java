@@ -0,0 +1,111 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.Arena;
+import RPG3.DuelResult;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestArena {
+
+	Monster monster1;
+	Monster monster2;
+	Arena arena;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+		arena = new Arena();
+	}
+
+	//NECESSARY TESTS FOR THE ARENA THAT FIGHTS BATCHES OF DUELS
+
+	//Test to assure that every pair gets a result, also when the batch is split over several tasks.
+	@Test
+	public void fight1() throws Exception {
+		Monster[] attackers = new Monster[1000];
+		Monster[] opponents = new Monster[1000];
+		for(int i=0;i<1000;i++) {
+			attackers[i] = monster1;
+			opponents[i] = monster2;
+		}
+		DuelResult[] results = arena.fight(attackers, opponents);
+		assertEquals(1000, results.length);
+		for(DuelResult result : results)
+			assertNotNull(result);
+	}
+
+	//Test to assure that the winner of a duel is alive and the loser is dead.
+	@Test
+	public void fight2() throws Exception {
+		DuelResult result = arena.fight(new Monster[] {monster1}, new Monster[] {monster2})[0];
+		if(result.getWinner() == DuelResult.ATTACKER) {
+			assertTrue(result.getAttackerHitpoints() > 0);
+			assertEquals(0, result.getOpponentHitpoints());
+		}
+		else if(result.getWinner() == DuelResult.OPPONENT) {
+			assertTrue(result.getOpponentHitpoints() > 0);
+			assertEquals(0, result.getAttackerHitpoints());
+		}
+		else
+			assertEquals(Arena.DEFAULT_MAX_ROUNDS, result.getRounds());
+	}
+
+	//Test to assure that fighting in the arena does not change the hitpoints of the monsters.
+	@Test
+	public void fight3() throws Exception {
+		arena.fight(new Monster[] {monster1, monster2}, new Monster[] {monster2, monster1});
+		assertEquals(100, monster1.getHitpoints());
+		assertEquals(100, monster2.getHitpoints());
+	}
+
+	//Test to assure that a dead monster loses without a single round being fought.
+	@Test
+	public void fight4() throws Exception {
+		monster2.setHitpoints(0);
+		DuelResult result = arena.duel(monster1, monster2);
+		assertEquals(DuelResult.ATTACKER, result.getWinner());
+		assertEquals(0, result.getRounds());
+	}
+
+	//Test to assure that the list of attackers and opponents must have the same length.
+	@Test (expected = IllegalArgumentException.class)
+	public void fight5() throws Exception {
+		arena.fight(new Monster[] {monster1, monster2}, new Monster[] {monster2});
+	}
+
+	//Test to assure that two arenas created with the same seed fight the same duels with the same results.
+	@Test
+	public void fight6() throws Exception {
+		Monster[] attackers = new Monster[500];
+		Monster[] opponents = new Monster[500];
+		for(int i=0;i<500;i++) {
+			attackers[i] = monster1;
+			opponents[i] = monster2;
+		}
+		DuelResult[] results1 = new Arena(42).fight(attackers, opponents);
+		DuelResult[] results2 = new Arena(42).fight(attackers, opponents);
+		for(int i=0;i<500;i++) {
+			assertEquals(results1[i].getWinner(), results2[i].getWinner());
+			assertEquals(results1[i].getRounds(), results2[i].getRounds());
+			assertEquals(results1[i].getAttackerHitpoints(), results2[i].getAttackerHitpoints());
+			assertEquals(results1[i].getOpponentHitpoints(), results2[i].getOpponentHitpoints());
+		}
+	}
+
+	//Test to assure that monsters created with random sources with the same seed get the same stats.
+	@Test
+	public void randomSource1() throws Exception {
+		Monster monster3 = new Monster("Al capo", 13, 100, new Weapon(1, 20), new Backpack(2,20,20), 3, new SplittableRandomSource(7));
+		Monster monster4 = new Monster("Al capo", 13, 100, new Weapon(1, 20), new Backpack(2,20,20), 3, new SplittableRandomSource(7));
+		assertEquals(monster3.getDamage(), monster4.getDamage());
+		assertEquals(monster3.getStrength(), monster4.getStrength());
+	}
+}
@@ -0,0 +1,61 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.CombatListener;
+import RPG3.Monster;
+import RPG3.RingBufferCombatSink;
+import RPG3.SplittableRandomSource;
+
+public class TestCombatEvents {
+
+	Monster monster1;
+	Monster monster2;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+	}
+
+	//Test to assure that a monster doesn't notify anybody of its attacks by default.
+	@Test
+	public void defaultListener() throws Exception {
+		assertEquals(CombatListener.NONE, monster1.getCombatListener());
+	}
+
+	//Test to assure that every attack is written by the sink once it is closed.
+	@Test
+	public void ringBufferSink1() throws Exception {
+		StringWriter writer = new StringWriter();
+		RingBufferCombatSink sink = new RingBufferCombatSink(1024, writer, true);
+		monster1.setCombatListener(sink);
+		for(int i=0;i<10;i++)
+			monster1.hit(monster2);
+		sink.close();
+		assertEquals(10, countLines(writer));
+	}
+
+	//Test to assure that attacks are dropped instead of blocking when the ring buffer is full.
+	@Test
+	public void ringBufferSink2() throws Exception {
+		StringWriter writer = new StringWriter();
+		RingBufferCombatSink sink = new RingBufferCombatSink(2, writer, true);
+		for(int i=0;i<10000;i++)
+			sink.attacked(monster1, monster2, 0, 0, false);
+		sink.close();
+		assertEquals(10000, countLines(writer) + sink.getDroppedCount());
+	}
+
+	private static int countLines(StringWriter writer) {
+		String text = writer.toString();
+		return (text.length() - text.replace(System.lineSeparator(), "").length()) / System.lineSeparator().length();
+	}
+}
@@ -0,0 +1,165 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.Arena;
+import RPG3.CombatJournal;
+import RPG3.CombatReplayer;
+import RPG3.DuelResult;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestCombatJournal {
+
+	Monster monster1;
+	Monster monster2;
+	File file;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+		file = File.createTempFile("combat", ".journal");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.delete();
+	}
+
+	//Test to assure that the replayer rebuilds the hitpoints of the monsters before every round of a fight.
+	@Test
+	public void replay1() throws Exception {
+		CombatJournal journal = new CombatJournal(file.getPath(), 4);
+		monster1.setCombatListener(journal);
+		monster2.setCombatListener(journal);
+		journal.register(monster1);
+		journal.register(monster2);
+		List<int[]> states = new ArrayList<int[]>();
+		while (monster1.isAlive() && monster2.isAlive()) {
+			states.add(new int[] {monster1.getHitpoints(), monster2.getHitpoints()});
+			monster1.hit(monster2);
+			if (monster2.isAlive()) {
+				states.add(new int[] {monster1.getHitpoints(), monster2.getHitpoints()});
+				monster2.hit(monster1);
+			}
+		}
+		states.add(new int[] {monster1.getHitpoints(), monster2.getHitpoints()});
+		journal.close();
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		assertEquals(states.size() - 1, replayer.getNbRounds());
+		assertEquals((states.size() + 2) / 4, replayer.getNbCheckpoints());
+		for (int round = states.size() - 1; round >= 0; round--)
+			assertArrayEquals(states.get(round), replayer.getHitpoints(round));
+		replayer.close();
+	}
+
+	//Test to assure that hitpoints changed between fights are journaled when the monster attacks again.
+	@Test
+	public void replay2() throws Exception {
+		CombatJournal journal = new CombatJournal(file.getPath(), 1024);
+		monster1.setCombatListener(journal);
+		monster2.setCombatListener(journal);
+		monster1.hit(monster2);
+		monster2.setHitpoints(50);
+		monster2.hit(monster1);
+		journal.close();
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		assertEquals(2, replayer.getNbRounds());
+		assertEquals(50, replayer.getHitpoints(1)[1]);
+		assertEquals(monster1.getHitpoints(), replayer.getHitpoints(2)[0]);
+		replayer.close();
+	}
+
+	//Test to assure that a replayer can't seek beyond the last round of the journal.
+	@Test  (expected = IllegalArgumentException.class)
+	public void replay3() throws Exception {
+		new CombatJournal(file.getPath()).close();
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		try {
+			replayer.getHitpoints(1);
+		}
+		finally {
+			replayer.close();
+		}
+	}
+
+	//Test to assure that the attacks of a duel in an arena are journaled with the hitpoints in the duel.
+	@Test
+	public void replay4() throws Exception {
+		CombatJournal journal = new CombatJournal(file.getPath(), 4);
+		Arena arena = new Arena(7);
+		arena.setCombatListener(journal);
+		journal.register(monster1);
+		journal.register(monster2);
+		monster1.setHitpoints(60);
+		DuelResult result = arena.duel(monster1, monster2);
+		journal.close();
+		assertEquals(60, monster1.getHitpoints());
+		assertEquals(100, monster2.getHitpoints());
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		assertTrue(replayer.getNbRounds() >= 2 * result.getRounds() - 1);
+		assertArrayEquals(new int[] {60, 100}, replayer.getHitpoints(0));
+		assertArrayEquals(new int[] {result.getAttackerHitpoints(), result.getOpponentHitpoints()},
+				replayer.getHitpoints(replayer.getNbRounds()));
+		replayer.close();
+	}
+
+	//Test to assure that monsters that aren't active are still replayed after later checkpoints, over several segments.
+	@Test
+	public void replay5() throws Exception {
+		CombatJournal journal = new CombatJournal(file.getPath(), 100);
+		Monster idle = new Monster("Sleepy", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(3));
+		idle.setHitpoints(42);
+		journal.register(idle);
+		journal.register(monster1);
+		journal.register(monster2);
+		int rounds = 100000;
+		for (int round = 0; round < rounds; round++)
+			journal.attacked(monster1, monster2, 20, 1, true, 100, 99 - round % 90);
+		journal.close();
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		assertEquals(rounds, replayer.getNbRounds());
+		assertEquals(rounds / 100, replayer.getNbCheckpoints());
+		for (long round : new long[] {0, 1, 99, 100, 101, 54321, rounds - 1, rounds}) {
+			int[] hitpoints = replayer.getHitpoints(round);
+			assertEquals(42, hitpoints[0]);
+			assertEquals(100, hitpoints[1]);
+			assertEquals((round == rounds) ? 99 - (round - 1) % 90 : 100 - round % 90, hitpoints[2]);
+		}
+		replayer.close();
+	}
+
+	//Test to assure that every attack of duels fought in parallel in an arena is journaled.
+	@Test
+	public void replay6() throws Exception {
+		CombatJournal journal = new CombatJournal(file.getPath(), 16);
+		Arena arena = new Arena(11);
+		arena.setCombatListener(journal);
+		Monster[] attackers = new Monster[1000];
+		Monster[] opponents = new Monster[1000];
+		Arrays.fill(attackers, monster1);
+		Arrays.fill(opponents, monster2);
+		long attacks = 0;
+		for (DuelResult result : arena.fight(attackers, opponents))
+			attacks += 2 * result.getRounds() - ((result.getWinner() == DuelResult.ATTACKER) ? 1 : 0);
+		journal.close();
+		assertEquals(2, journal.getNbMonsters());
+		CombatReplayer replayer = new CombatReplayer(file.getPath());
+		assertEquals(attacks, replayer.getNbRounds());
+		assertEquals((attacks + 15) / 16, replayer.getNbCheckpoints());
+		assertEquals(2, replayer.getHitpoints(attacks).length);
+		replayer.close();
+	}
+}
@@ -0,0 +1,129 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.ConcurrentInventory;
+import Items.Item;
+import Items.Weapon;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestConcurrentInventory {
+
+	Monster monster1;
+	Monster monster2;
+	ConcurrentInventory inventory;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 10, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 10, new SplittableRandomSource(2));
+		inventory = new ConcurrentInventory(4);
+	}
+
+	//NECESSARY TESTS FOR THE CONCURRENT INVENTORY
+
+	//Test to assure that items traded back and forth by several threads at once end up with consistent totals.
+	@Test
+	public void trade1() throws Exception {
+		final Weapon[] weapons = new Weapon[4];
+		for(int i=0;i<weapons.length;i++) {
+			weapons[i] = new Weapon(1, 1);
+			inventory.obtain(weapons[i], i%2 == 0 ? monster1 : monster2);
+		}
+		long totalWeight = monster1.getTotalWeightHundredths() + monster2.getTotalWeightHundredths();
+		int totalValue = monster1.getTotalValue() + monster2.getTotalValue();
+		Thread[] threads = new Thread[weapons.length];
+		for(int t=0;t<threads.length;t++) {
+			final Weapon weapon = weapons[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i=0;i<2000;i++) {
+						Monster target = (weapon.getDirectHolder() == monster1) ? monster2 : monster1;
+						inventory.transfer(weapon, target);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertEquals(totalWeight, monster1.getTotalWeightHundredths() + monster2.getTotalWeightHundredths());
+		assertEquals(totalValue, monster1.getTotalValue() + monster2.getTotalValue());
+		for(Weapon weapon : weapons)
+			assertTrue(monster1.hasItem(weapon) || monster2.hasItem(weapon));
+	}
+
+	//Test to assure that an item can be put into and taken out of a backpack through the inventory.
+	@Test
+	public void backpack1() throws Exception {
+		Weapon weapon = new Weapon(1, 1);
+		Backpack bag = new Backpack(1, 1, 10);
+		inventory.obtain(bag, monster1);
+		inventory.addToBackpack(weapon, bag);
+		assertEquals(bag, weapon.getDirectHolder());
+		inventory.removeFromBackpack(weapon);
+		assertNull(weapon.getDirectHolder());
+		assertEquals(0, bag.getNbItems());
+	}
+
+	//Test to assure that contents moved back and forth in bulk by several threads at once keep consistent totals.
+	@Test
+	public void bulk1() throws Exception {
+		final Backpack back1 = (Backpack) monster1.getAnchors()[2];
+		final Backpack back2 = (Backpack) monster2.getAnchors()[2];
+		back1.addItems(new Weapon(1, 1), new Weapon(1, 2), new Weapon(1, 3));
+		long totalWeight = monster1.getTotalWeightHundredths() + monster2.getTotalWeightHundredths();
+		int totalValue = monster1.getTotalValue() + monster2.getTotalValue();
+		Thread[] threads = new Thread[4];
+		for(int t=0;t<threads.length;t++) {
+			final Backpack source = (t%2 == 0) ? back1 : back2;
+			final Backpack target = (t%2 == 0) ? back2 : back1;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i=0;i<2000;i++)
+						inventory.transferContents(source, target);
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertEquals(totalWeight, monster1.getTotalWeightHundredths() + monster2.getTotalWeightHundredths());
+		assertEquals(totalValue, monster1.getTotalValue() + monster2.getTotalValue());
+		assertEquals(3, back1.getNbItems() + back2.getNbItems());
+	}
+
+	//Test to assure that items can be added in bulk and looted through the inventory.
+	@Test
+	public void bulk2() throws Exception {
+		Backpack bag = new Backpack(1, 1, 10);
+		Weapon weapon1 = new Weapon(1, 1);
+		Weapon weapon2 = new Weapon(1, 1);
+		inventory.obtain(weapon1, monster2);
+		inventory.addAllItems(bag, Arrays.asList(weapon1, weapon2));
+		assertEquals(2, bag.getNbItems());
+		assertFalse(monster2.hasItem(weapon1));
+		inventory.obtain(bag, monster2);
+		long weight = monster1.getTotalWeightHundredths() + monster2.getTotalWeightHundredths();
+		List<Item> loot = inventory.loot(monster1, monster2);
+		assertTrue(loot.contains(bag));
+		assertEquals(0, monster2.getTotalWeightHundredths());
+		assertEquals(weight, monster1.getTotalWeightHundredths());
+	}
+
+	//Test to assure that the inventory must have at least one stripe.
+	@Test (expected = IllegalArgumentException.class)
+	public void stripes1() throws Exception {
+		new ConcurrentInventory(0);
+	}
+}
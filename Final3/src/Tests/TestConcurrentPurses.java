@@ -0,0 +1,159 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.ConcurrentInventory;
+import Items.Purse;
+
+public class TestConcurrentPurses {
+
+	Purse[] purses;
+	Backpack back;
+
+	@Before
+	public void setUp() throws Exception {
+		back = new Backpack(1,10,100000);
+		purses = new Purse[8];
+		for(int i=0;i<purses.length;i++) {
+			purses[i] = new Purse(1,10,1000000,100);
+			purses[i].addToBackpack(back);
+		}
+	}
+
+	//NECESSARY TESTS FOR PURSES USED BY SEVERAL THREADS AT ONCE
+
+	//Test to assure that dukats moved between purses by several threads at once are never lost or created,
+	//and that the backpack holding the purses keeps consistent totals.
+	@Test
+	public void transfer1() throws Exception {
+		Thread[] threads = new Thread[8];
+		for(int t=0;t<threads.length;t++) {
+			final long seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					SplittableRandom random = new SplittableRandom(seed);
+					for(int i=0;i<20000;i++) {
+						int from = random.nextInt(purses.length);
+						int to = (from + 1 + random.nextInt(purses.length - 1)) % purses.length;
+						purses[from].tryTransferDukats(random.nextInt(5), purses[to]);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		int total = 0;
+		long weight = back.getWeightHundredths();
+		for(Purse purse : purses) {
+			assertFalse(purse.isTorn());
+			assertTrue(purse.getContent() >= 0);
+			total += purse.getContent();
+			weight += purse.getTotalWeightHundredths();
+		}
+		assertEquals(100 * purses.length, total);
+		assertEquals(weight, back.getTotalWeightHundredths());
+	}
+
+	//Test to assure that a purse filled by several threads at once tears as soon as its capacity is exceeded.
+	@Test
+	public void tear1() throws Exception {
+		final Purse purse = new Purse(1,10,1000,0);
+		Thread[] threads = new Thread[8];
+		for(int t=0;t<threads.length;t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i=0;i<200;i++)
+						purse.tryAddDukats(1);
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertTrue(purse.isTorn());
+		assertEquals(0, purse.getContent());
+		assertEquals(0, purse.getTotalValue());
+	}
+
+	//Test to assure that a transfer that doesn't fit tears the receiving purse, and that a torn purse takes no more transfers.
+	@Test
+	public void transfer2() throws Exception {
+		Purse small = new Purse(1,10,50,40);
+		assertTrue(purses[0].tryTransferDukats(20, small));
+		assertTrue(small.isTorn());
+		assertEquals(80, purses[0].getContent());
+		assertFalse(purses[0].tryTransferDukats(5, small));
+		assertFalse(purses[0].tryTransferDukats(500, purses[1]));
+		assertEquals(80, purses[0].getContent());
+	}
+
+	//Test to assure that purses changed by several threads keep the totals of their holders consistent
+	//while the inventory they are registered with moves the backpack holding them between other backpacks.
+	@Test
+	public void transfer3() throws Exception {
+		final ConcurrentInventory inventory = new ConcurrentInventory(4);
+		final Backpack left = new Backpack(1,10,1000000);
+		final Backpack right = new Backpack(1,10,1000000);
+		for(Purse purse : purses)
+			inventory.register(purse);
+		inventory.addToBackpack(back, left);
+		Thread mover = new Thread() {
+			@Override
+			public void run() {
+				for(int i=0;i<2000;i++) {
+					Backpack target = (back.getDirectHolder() == left) ? right : left;
+					inventory.removeFromBackpack(back);
+					inventory.addToBackpack(back, target);
+				}
+			}
+		};
+		Thread[] threads = new Thread[4];
+		for(int t=0;t<threads.length;t++) {
+			final long seed = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					SplittableRandom random = new SplittableRandom(seed);
+					for(int i=0;i<20000;i++) {
+						int from = random.nextInt(purses.length);
+						int to = (from + 1 + random.nextInt(purses.length - 1)) % purses.length;
+						if (i % 1000 == 999)
+							purses[from].tear();
+						else if (i % 10 == 0)
+							purses[from].setValue(random.nextInt(100));
+						else
+							purses[from].tryTransferDukats(random.nextInt(5), purses[to]);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		mover.start();
+		mover.join();
+		for(Thread thread : threads)
+			thread.join();
+		long weight = back.getWeightHundredths();
+		int value = back.getValue();
+		for(Purse purse : purses) {
+			weight += purse.getTotalWeightHundredths();
+			value += purse.getTotalValue();
+		}
+		assertEquals(weight, back.getTotalWeightHundredths());
+		assertEquals(value, back.getTotalValue());
+		Backpack holder = (Backpack) back.getDirectHolder();
+		assertEquals(holder.getWeightHundredths() + weight, holder.getTotalWeightHundredths());
+		assertEquals(holder.getValue() + value, holder.getTotalValue());
+		Backpack other = (holder == left) ? right : left;
+		assertEquals(other.getWeightHundredths(), other.getTotalWeightHundredths());
+		assertEquals(other.getValue(), other.getTotalValue());
+	}
+}
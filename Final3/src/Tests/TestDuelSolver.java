@@ -0,0 +1,67 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.DuelOutcome;
+import RPG3.DuelSolver;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+import RPG3.WinEstimate;
+import RPG3.WinProbabilityEstimator;
+
+public class TestDuelSolver {
+
+	Monster monster1;
+	Monster monster2;
+	DuelSolver solver;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+		solver = new DuelSolver();
+	}
+
+	//NECESSARY TESTS FOR SOLVING DUELS EXACTLY
+
+	//Test to assure that the exact win probability lies within the interval of an estimate from simulated duels.
+	@Test
+	public void solve1() throws Exception {
+		DuelOutcome outcome = solver.solve(monster1, monster2);
+		WinEstimate estimate = new WinProbabilityEstimator(5).estimate(monster1, monster2, 0.01, 3.9, Long.MAX_VALUE);
+		assertTrue(estimate.getLowerBound() <= outcome.getWinProbability());
+		assertTrue(outcome.getWinProbability() <= estimate.getUpperBound());
+		assertEquals(1.0, outcome.getWinProbability() + outcome.getLossProbability(), 1e-9);
+	}
+
+	//Test to assure that an opponent that can't hit back is killed with one hit after 31/20 rounds on average.
+	@Test
+	public void solve2() throws Exception {
+		DuelOutcome outcome = solver.solve(20, 20, 30, 5, 5, 5, 10, 3);
+		assertEquals(1.0, outcome.getWinProbability(), 1e-12);
+		assertEquals(31.0/20, outcome.getExpectedRounds(), 1e-12);
+	}
+
+	//Test to assure that a duel in which neither monster can ever hit ends in a draw after infinitely many rounds.
+	@Test
+	public void solve3() throws Exception {
+		DuelOutcome outcome = solver.solve(10, 10, 30, 5, 10, 10, 30, 5);
+		assertEquals(1.0, outcome.getDrawProbability(), 0);
+		assertTrue(Double.isInfinite(outcome.getExpectedRounds()));
+	}
+
+	//Test to assure that a dead opponent is beaten without a round, and that solved duels are cached.
+	@Test
+	public void solve4() throws Exception {
+		DuelOutcome outcome = solver.solve(10, 10, 5, 5, 0, 10, 5, 5);
+		assertEquals(1.0, outcome.getWinProbability(), 0);
+		assertEquals(0, outcome.getExpectedRounds(), 0);
+		assertSame(outcome, solver.solve(10, 10, 5, 5, 0, 10, 5, 5));
+		assertEquals(1, solver.getCacheSize());
+	}
+}
@@ -0,0 +1,151 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import Monitoring.GameMetrics;
+import Monitoring.LatencyHistogram;
+import RPG3.CombatListener;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestGameMetrics {
+
+	Monster monster1;
+	Monster monster2;
+	GameMetrics metrics;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+		metrics = GameMetrics.getInstance();
+	}
+
+	//Test to assure that every attack is counted as a hit or a miss if the metrics are enabled, and not at all otherwise.
+	@Test
+	public void attacks() throws Exception {
+		long before = metrics.getHits() + metrics.getMisses();
+		for(int i=0;i<10;i++)
+			monster1.hit(monster2);
+		assertEquals(before + (GameMetrics.ENABLED ? 10 : 0), metrics.getHits() + metrics.getMisses());
+	}
+
+	//Test to assure that a move rejected on its weight is counted if the metrics are enabled.
+	@Test
+	public void weightRejection() throws Exception {
+		long before = metrics.getWeightRejections();
+		try {
+			new Weapon(50, 20).addToBackpack(new Backpack(1,10,10));
+			fail();
+		}
+		catch (IllegalArgumentException exc) {
+		}
+		assertEquals(before + (GameMetrics.ENABLED ? 1 : 0), metrics.getWeightRejections());
+	}
+
+	//Test to assure that a latency histogram puts every latency in the bucket of its power of two.
+	@Test
+	public void histogram() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(0);
+		histogram.record(1);
+		histogram.record(1000);
+		histogram.record(1023);
+		assertEquals(4, histogram.getCount());
+		assertEquals(2024, histogram.getTotalNanos());
+		assertEquals(1, histogram.getBucketCounts()[0]);
+		assertEquals(1, histogram.getBucketCounts()[1]);
+		assertEquals(2, histogram.getBucketCounts()[10]);
+		assertEquals(1, histogram.getPercentileNanos(50));
+		assertEquals(1023, histogram.getPercentileNanos(100));
+	}
+
+	//Test to assure that the metrics are published on the platform MBean server.
+	@Test
+	public void register() throws Exception {
+		assertTrue(GameMetrics.register());
+		ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+		assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+		assertEquals(GameMetrics.ENABLED, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+	}
+
+	//Test to assure that recorded attacks update the hits, misses, kills and the latency of attacks.
+	@Test
+	public void recordAttack() throws Exception {
+		GameMetrics recorder = new GameMetrics();
+		recorder.recordAttack(10, false, false);
+		recorder.recordAttack(1000, true, false);
+		recorder.recordAttack(3000, true, true);
+		assertEquals(2, recorder.getHits());
+		assertEquals(1, recorder.getMisses());
+		assertEquals(1, recorder.getKills());
+		assertEquals(3, recorder.getHitLatency().getCount());
+		assertEquals(4010, recorder.getHitLatency().getTotalNanos());
+		assertEquals(1023, recorder.getHitLatencyP50Nanos());
+		assertEquals(4095, recorder.getHitLatencyP99Nanos());
+		assertEquals(0, recorder.getItemMoves());
+	}
+
+	//Test to assure that recorded moves, transfers, rejections and sorts are counted and reset.
+	@Test
+	public void recordInventory() throws Exception {
+		GameMetrics recorder = new GameMetrics();
+		recorder.recordItemMove(100);
+		recorder.recordItemMove(200);
+		recorder.recordContentTransfer(5000);
+		recorder.recordWeightRejection();
+		recorder.recordBackpackSort();
+		assertEquals(2, recorder.getItemMoves());
+		assertEquals(255, recorder.getItemMoveLatencyP99Nanos());
+		assertEquals(300, recorder.getItemMoveLatency().getTotalNanos());
+		assertEquals(1, recorder.getContentTransfers());
+		assertEquals(8191, recorder.getContentTransferLatencyP50Nanos());
+		assertEquals(1, recorder.getWeightRejections());
+		assertEquals(1, recorder.getBackpackSorts());
+		recorder.reset();
+		assertEquals(0, recorder.getItemMoves());
+		assertEquals(0, recorder.getItemMoveLatency().getCount());
+		assertEquals(0, recorder.getContentTransferLatencyP50Nanos());
+	}
+
+	//Test to assure that every attack of a fight to the death is recorded with its latency, and the death as a kill.
+	@Test
+	public void recordFight() throws Exception {
+		final GameMetrics recorder = new GameMetrics();
+		final long[] start = new long[1];
+		CombatListener listener = new CombatListener() {
+			@Override
+			public void attacked(Monster attacker, Monster defender, int roll, int damage, boolean hit) {
+				recorder.recordAttack(System.nanoTime() - start[0], hit, hit && !defender.isAlive());
+			}
+		};
+		monster1.setCombatListener(listener);
+		monster2.setCombatListener(listener);
+		long attacks = 0;
+		while (monster1.isAlive() && monster2.isAlive()) {
+			start[0] = System.nanoTime();
+			monster1.hit(monster2);
+			attacks++;
+			if (monster2.isAlive()) {
+				start[0] = System.nanoTime();
+				monster2.hit(monster1);
+				attacks++;
+			}
+		}
+		assertEquals(attacks, recorder.getHits() + recorder.getMisses());
+		assertEquals(1, recorder.getKills());
+		assertTrue(recorder.getHits() > 0);
+		assertEquals(attacks, recorder.getHitLatency().getCount());
+		assertTrue(recorder.getHitLatencyP50Nanos() <= recorder.getHitLatencyP99Nanos());
+		assertTrue(recorder.getHitLatency().getTotalNanos() > 0);
+	}
+}
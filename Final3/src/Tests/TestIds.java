@@ -0,0 +1,59 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Purse;
+import Items.Weapon;
+
+public class TestIds {
+
+	//NECESSARY TESTS FOR THE IDS OF ITEMS
+
+	//Test to assure that weapons and backpacks get odd IDs and purses get even IDs.
+	@Test
+	public void ids1() throws Exception {
+		for(int i=0;i<100;i++) {
+			assertEquals(1, new Weapon(1, 20).getId() % 2);
+			assertEquals(1, new Backpack(1, 20, 20).getId() % 2);
+			assertEquals(0, new Purse(1, 30, 20, 18).getId() % 2);
+		}
+	}
+
+	//Test to assure that far more purses than fit in a Fibonacci ID can be created, each with its own ID.
+	@Test
+	public void ids2() throws Exception {
+		Set<Long> ids = new HashSet<Long>();
+		for(int i=0;i<1000;i++) {
+			long id = new Purse(1, 30, 20, 0).getId();
+			assertTrue(id > 0);
+			assertTrue(ids.add(id));
+		}
+	}
+
+	//Test to assure that weapons created in parallel never get the same ID.
+	@Test
+	public void ids3() throws Exception {
+		final Set<Long> ids = Collections.synchronizedSet(new HashSet<Long>());
+		Thread[] threads = new Thread[8];
+		for(int t=0;t<threads.length;t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i=0;i<5000;i++)
+						ids.add(new Weapon(1, 20).getId());
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertEquals(8*5000, ids.size());
+	}
+}
@@ -0,0 +1,191 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Item;
+import Items.Purse;
+import Items.StoreItem;
+import Items.Weapon;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestItemQueries {
+
+	Weapon pizza;
+	Weapon burrito;
+	Weapon baguette;
+	Backpack back;
+	Backpack sack;
+	Purse purse;
+	Monster monster1;
+
+	@Before
+	public void setUp() throws Exception {
+		pizza = new Weapon(1, 20);
+		burrito = new Weapon(2, 30);
+		baguette = new Weapon(4, 10);
+		back = new Backpack(2,20,20);
+		sack = new Backpack(3,40,40);
+		purse = new Purse(1,30,20,18);
+		monster1 = new Monster("Destroyer o' Hope", 13, 100, pizza, back, 5, new SplittableRandomSource(1));
+		burrito.addToBackpack(sack);
+		purse.addToBackpack(sack);
+		sack.addToBackpack(back);
+		baguette.addToBackpack(back);
+	}
+
+	private static <T> List<T> toList(Iterator<T> iterator) {
+		List<T> result = new ArrayList<T>();
+		while (iterator.hasNext())
+			result.add(iterator.next());
+		return result;
+	}
+
+	//NECESSARY TESTS FOR QUERYING ITEMS ON WEIGHT, VALUE AND TYPE
+
+	//Test to assure that a weight range covers nested backpacks, sorted from lowest to highest weight.
+	@Test
+	public void queries1() throws Exception {
+		List<Weapon> weapons = toList(back.getItemsByWeight(Weapon.class, 0, 1000));
+		assertEquals(2, weapons.size());
+		assertSame(burrito, weapons.get(0));
+		assertSame(baguette, weapons.get(1));
+		assertEquals(1, toList(back.getItemsByWeight(Weapon.class, 150, 300)).size());
+		assertEquals(0, toList(back.getItemsByWeight(Weapon.class, 500, 100)).size());
+	}
+
+	//Test to assure that a value range on a monster includes its anchors and the contents of its backpacks.
+	@Test
+	public void queries2() throws Exception {
+		List<Item> items = toList(monster1.getItemsByValue(Item.class, 20, 50));
+		assertEquals(3, items.size());
+		assertTrue(items.contains(pizza));
+		assertTrue(items.contains(burrito));
+		assertTrue(items.contains(purse));
+		for (int i=0;i<items.size()-1;i++)
+			assertTrue(items.get(i).getTotalValue() <= items.get(i+1).getTotalValue());
+	}
+
+	//Test to assure that top-N queries return the heaviest or most valuable items first.
+	@Test
+	public void queries3() throws Exception {
+		List<StoreItem> heaviest = toList(monster1.getHeaviestItems(StoreItem.class, 2));
+		assertEquals(2, heaviest.size());
+		assertSame(back, heaviest.get(0));
+		assertSame(sack, heaviest.get(1));
+		List<Weapon> valuable = toList(back.getMostValuableItems(Weapon.class, 5));
+		assertEquals(2, valuable.size());
+		assertSame(burrito, valuable.get(0));
+	}
+
+	//Test to assure that the indexes follow changes of nested items.
+	@Test
+	public void queries4() throws Exception {
+		purse.removeDukats(16);
+		assertEquals(0, toList(back.getItemsByValue(Purse.class, 40, 100)).size());
+		assertSame(purse, back.getItemsByValue(Purse.class, 0, 40).next());
+		burrito.removeFromBackpack();
+		assertEquals(1, toList(back.getItemsByWeight(Weapon.class, 0, Long.MAX_VALUE)).size());
+	}
+
+	//Test to assure that the indexes survive transferring all contents to another backpack.
+	@Test
+	public void queries5() throws Exception {
+		Backpack bag = new Backpack(1,10,1000);
+		back.transferContents(bag);
+		assertEquals(0, toList(back.getItemsByWeight(Item.class, 0, Long.MAX_VALUE)).size());
+		assertEquals(4, toList(bag.getItemsByWeight(Item.class, 0, Long.MAX_VALUE)).size());
+		assertSame(baguette, bag.getHeaviestItems(Weapon.class, 1).next());
+	}
+
+	//Test to assure that queries walk a tree of 10000 nested backpacks without running out of stack.
+	@Test
+	public void queries6() throws Exception {
+		Backpack outer = new Backpack(0, 1, 10);
+		Backpack inner = outer;
+		for(int i=0;i<10000;i++) {
+			Backpack next = new Backpack(0, 1, 10);
+			next.addToBackpack(inner);
+			inner = next;
+		}
+		baguette.removeFromBackpack();
+		baguette.addToBackpack(inner);
+		assertSame(baguette, outer.getHeaviestItems(Weapon.class, 1).next());
+		assertSame(baguette, outer.getItemsByWeight(Weapon.class, 0, Long.MAX_VALUE).next());
+		assertEquals(0, toList(outer.getMostValuableItems(Purse.class, 1)).size());
+		assertEquals(10000, toList(outer.getItemsByValue(Backpack.class, 0, Integer.MAX_VALUE)).size());
+		assertEquals(90, toList(outer.getItemsByValue(Backpack.class, 0, 100)).size());
+	}
+
+	//Test to assure that queries skipping subtrees on their bounds return the same items as a full walk, also after changes.
+	@Test
+	public void queries7() throws Exception {
+		Random random = new Random(7);
+		Backpack root = new Backpack(0, 0, 1000000);
+		List<Backpack> backpacks = new ArrayList<Backpack>();
+		List<Purse> purses = new ArrayList<Purse>();
+		backpacks.add(root);
+		for (int i=0;i<300;i++) {
+			Backpack holder = backpacks.get(random.nextInt(backpacks.size()));
+			int kind = random.nextInt(3);
+			if (kind == 0)
+				new Weapon(random.nextInt(20), random.nextInt(50)).addToBackpack(holder);
+			else if (kind == 1) {
+				Purse added = new Purse(random.nextInt(5), random.nextInt(50), 1000, random.nextInt(100));
+				added.addToBackpack(holder);
+				purses.add(added);
+			}
+			else {
+				Backpack added = new Backpack(random.nextInt(5), random.nextInt(50), 1000000);
+				added.addToBackpack(holder);
+				backpacks.add(added);
+			}
+		}
+		checkQueries(root, random);
+		for (int i=0;i<20;i++)
+			purses.get(random.nextInt(purses.size())).addDukats(random.nextInt(10));
+		backpacks.get(1 + random.nextInt(backpacks.size()-1)).removeFromBackpack();
+		checkQueries(root, random);
+	}
+
+	private static void checkQueries(Backpack root, Random random) {
+		List<Item> all = new ArrayList<Item>();
+		List<Backpack> pending = new ArrayList<Backpack>();
+		pending.add(root);
+		while (!pending.isEmpty())
+			for (Item item : pending.remove(pending.size()-1).getContents()) {
+				all.add(item);
+				if (item instanceof Backpack)
+					pending.add((Backpack) item);
+			}
+		for (int i=0;i<20;i++) {
+			long min = random.nextInt(3000);
+			long max = min + random.nextInt(3000);
+			int expected = 0;
+			for (Item item : all)
+				if (item instanceof StoreItem && item.getTotalWeightHundredths() >= min && item.getTotalWeightHundredths() <= max)
+					expected++;
+			List<StoreItem> found = toList(root.getItemsByWeight(StoreItem.class, min, max));
+			assertEquals(expected, found.size());
+			for (int j=0;j<found.size()-1;j++)
+				assertTrue(found.get(j).getTotalWeightHundredths() <= found.get(j+1).getTotalWeightHundredths());
+		}
+		int highest = -1;
+		for (Item item : all)
+			if (item instanceof Purse)
+				highest = Math.max(highest, item.getTotalValue());
+		List<Purse> valuable = toList(root.getMostValuableItems(Purse.class, 3));
+		assertEquals(highest, valuable.get(0).getTotalValue());
+		assertTrue(valuable.get(1).getTotalValue() >= valuable.get(2).getTotalValue());
+		assertEquals(all.size(), toList(root.getItemsByValue(Item.class, 0, Integer.MAX_VALUE)).size());
+	}
+}
@@ -0,0 +1,101 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Item;
+import Items.Purse;
+import Items.Weapon;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestLoot {
+
+	Weapon pizza;
+	Weapon burrito;
+	Backpack back;
+	Backpack sack;
+	Backpack rucksack;
+	Purse purse;
+	Monster winner;
+	Monster loser;
+
+	@Before
+	public void setUp() throws Exception {
+		pizza = new Weapon(1, 20);
+		burrito = new Weapon(2, 20);
+		back = new Backpack(2,20,20);
+		sack = new Backpack(3,40,10);
+		rucksack = new Backpack(1,10,100);
+		purse = new Purse(1,30,20,18);
+		winner = new Monster("Destroyer o' Hope", 13, 100, pizza, back, 5, new SplittableRandomSource(1));
+		loser = new Monster("Lonely little goblin", 17, 100, burrito, sack, 4, new SplittableRandomSource(2));
+		purse.addToBackpack(sack);
+		winner.replaceItem(2, rucksack);
+	}
+
+	//NECESSARY TESTS FOR LOOTING ALL ITEMS OF A MONSTER AT ONCE
+
+	//Test to assure that all items of the loser end up in the backpack of the winner, with the right totals.
+	@Test
+	public void loot1() throws Exception {
+		long weight = rucksack.getTotalWeightHundredths() + burrito.getTotalWeightHundredths() + sack.getTotalWeightHundredths();
+		List<Item> loot = winner.loot(loser);
+		assertEquals(2, loot.size());
+		assertTrue(rucksack.hasAsContent(burrito));
+		assertTrue(rucksack.hasAsContent(sack));
+		assertSame(rucksack, sack.getDirectHolder());
+		assertEquals(weight, rucksack.getTotalWeightHundredths());
+		assertEquals(0, loser.getTotalWeightHundredths());
+		assertEquals(winner.getTotalWeightHundredths(), pizza.getTotalWeightHundredths() + rucksack.getTotalWeightHundredths());
+		assertEquals(rucksack.getContents().get(0).getTotalWeightHundredths(), rucksack.getLightestItem().getTotalWeightHundredths());
+	}
+
+	//Test to assure that nothing is moved when the combined weight of the loot is too high.
+	@Test
+	public void loot2() throws Exception {
+		Backpack small = new Backpack(1,10,4);
+		small.addAllItems(Arrays.asList(new Weapon(1, 10)));
+		try {
+			small.addAllItems(Arrays.asList(burrito, sack));
+			fail();
+		}
+		catch(IllegalArgumentException ae) {}
+		assertSame(loser, burrito.getDirectHolder());
+		assertSame(loser, sack.getDirectHolder());
+		assertEquals(1, small.getNbItems());
+		assertEquals(burrito.getTotalWeightHundredths() + sack.getTotalWeightHundredths(), loser.getTotalWeightHundredths());
+	}
+
+	//Test to assure that nothing is moved when one of the items is already in a backpack.
+	@Test
+	public void loot3() throws Exception {
+		try {
+			rucksack.addAllItems(Arrays.asList(burrito, purse));
+			fail();
+		}
+		catch(IllegalArgumentException ae) {}
+		assertSame(loser, burrito.getDirectHolder());
+		assertEquals(0, rucksack.getNbItems());
+	}
+
+	//Test to assure that an item can't be added twice.
+	@Test (expected = IllegalArgumentException.class)
+	public void loot4() throws Exception {
+		rucksack.addAllItems(Arrays.asList(burrito, burrito));
+	}
+
+	//Test to assure that a backpack can't be added to a backpack it holds.
+	@Test (expected = IllegalArgumentException.class)
+	public void loot5() throws Exception {
+		Backpack inner = new Backpack(1,10,100);
+		inner.addToBackpack(rucksack);
+		inner.addAllItems(Arrays.asList(rucksack));
+	}
+}
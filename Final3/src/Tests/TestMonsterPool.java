@@ -0,0 +1,98 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.DuelResult;
+import RPG3.Monster;
+import RPG3.MonsterPool;
+import RPG3.SplittableRandomSource;
+
+public class TestMonsterPool {
+
+	Monster monster1;
+	MonsterPool pool;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		pool = new MonsterPool(2);
+	}
+
+	//NECESSARY TESTS FOR THE POOL OF MONSTERS
+
+	//Test to assure that a pool grows and keeps the stats of every monster added to it.
+	@Test
+	public void add1() throws Exception {
+		SplittableRandomSource random = new SplittableRandomSource(3);
+		for(int i=0;i<1000;i++)
+			assertEquals(i, pool.add("Goblin", 7, 50 + i, random));
+		assertEquals(1000, pool.getSize());
+		assertEquals(50 + 999, pool.getHitpoints(999));
+		assertEquals(7, pool.getProtection(999));
+	}
+
+	//Test to assure that a monster materialized from a pool has the stats of the monster added to it.
+	@Test
+	public void materialize1() throws Exception {
+		int index = pool.add(monster1);
+		Monster copy = pool.materialize(index, new SplittableRandomSource(4));
+		assertEquals(monster1.getName(), copy.getName());
+		assertEquals(monster1.getHitpoints(), copy.getHitpoints());
+		assertEquals(monster1.getDamage(), copy.getDamage());
+		assertEquals(monster1.getStrength(), copy.getStrength());
+		assertEquals(monster1.getProtection(), copy.getProtection());
+	}
+
+	//Test to assure that a duel in the pool ends with one dead monster or the maximum number of rounds.
+	@Test
+	public void duel1() throws Exception {
+		int attacker = pool.add("Attacker", 11, 100, 10, 20, 10);
+		int opponent = pool.add("Opponent", 5, 100, 10, 20, 10);
+		DuelResult result = pool.duel(attacker, opponent, 1000, new SplittableRandomSource(5));
+		assertEquals(result.getAttackerHitpoints(), pool.getHitpoints(attacker));
+		assertEquals(result.getOpponentHitpoints(), pool.getHitpoints(opponent));
+		assertTrue(result.getWinner() == DuelResult.DRAW || !pool.isAlive(attacker) || !pool.isAlive(opponent));
+	}
+
+	//Test to assure that a dead monster in the pool can't hit.
+	@Test
+	public void hit1() throws Exception {
+		int attacker = pool.add("Attacker", 11, 100, 10, 20, 10);
+		int opponent = pool.add("Opponent", 2, 100, 10, 20, 10);
+		pool.setHitpoints(attacker, 0);
+		assertFalse(pool.hit(attacker, opponent, new SplittableRandomSource(6)));
+		assertEquals(100, pool.getHitpoints(opponent));
+	}
+
+	//Test to assure that a monster generated in the pool gets the stats a monster with the same random source would get.
+	@Test
+	public void add2() throws Exception {
+		int index = pool.add("Goblin", 7, 50, new SplittableRandomSource(8));
+		Monster goblin = new Monster("Goblin", 7, 50, new Weapon(1, 1, new SplittableRandomSource(9)), new Backpack(1, 1, 1), 3, new SplittableRandomSource(8));
+		assertEquals(goblin.getDamage(), pool.getDamage(index));
+		assertEquals(goblin.getStrength(), pool.getStrength(index));
+	}
+
+	//Test to assure that a monster with an invalid name can't be added to the pool.
+	@Test (expected = IllegalArgumentException.class)
+	public void add3() throws Exception {
+		pool.add("goblin", 7, 50, 10, 20, 10);
+	}
+
+	//Test to assure that a monster with a protection that isn't prime can't be added to the pool.
+	@Test (expected = IllegalArgumentException.class)
+	public void add4() throws Exception {
+		pool.add("Goblin", 9, 50, new SplittableRandomSource(3));
+	}
+
+	//Test to assure that indices outside the pool are rejected.
+	@Test (expected = IndexOutOfBoundsException.class)
+	public void index1() throws Exception {
+		pool.getHitpoints(0);
+	}
+}
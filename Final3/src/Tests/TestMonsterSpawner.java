@@ -0,0 +1,64 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import RPG3.Monster;
+import RPG3.MonsterSpawner;
+import RPG3.MonsterSpec;
+import RPG3.SpawnResult;
+import RPG3.SplittableRandomSource;
+
+public class TestMonsterSpawner {
+
+	//NECESSARY TESTS FOR SPAWNING WAVES OF MONSTERS
+
+	//Test to assure that invalid specifications are reported without stopping the rest of the wave.
+	@Test
+	public void spawn1() throws Exception {
+		MonsterSpec[] specs = new MonsterSpec[] {
+				new MonsterSpec("Goblin", 11, 100, 5, 0, 20, 0, 20, 20),
+				new MonsterSpec("goblin", 11, 100, 5, 0, 20, 0, 20, 20),
+				new MonsterSpec("Goblin", 12, 100, 5, 0, 20, 0, 20, 20),
+				new MonsterSpec("Goblin", 11, -1, 5, 0, 20, 0, 20, 20),
+				new MonsterSpec("Goblin", 11, 100, 2, 0, 20, 0, 20, 20),
+				new MonsterSpec("Goblin", 13, 100, 3, 0, 20, 0, 20, 20)};
+		SpawnResult result = MonsterSpawner.spawn(specs, new SplittableRandomSource(1));
+		assertEquals(4, result.getNbFailed());
+		assertNotNull(result.getMonster(0));
+		assertNull(result.getFailure(0));
+		for(int i=1;i<5;i++) {
+			assertNull(result.getMonster(i));
+			assertNotNull(result.getFailure(i));
+		}
+		assertEquals(13, result.getMonster(5).getProtection());
+		assertEquals(2, result.getSpawned().length);
+	}
+
+	//Test to assure that spawning from a stream gives the same monsters as spawning from an array with the same seed.
+	@Test
+	public void spawn2() throws Exception {
+		MonsterSpec spec = new MonsterSpec("Goblin", 7, 50, 4, 0, 10, 0, 10, 10);
+		SpawnResult fromArray = MonsterSpawner.spawn(new MonsterSpec[] {spec, spec, spec}, new SplittableRandomSource(2));
+		SpawnResult fromStream = MonsterSpawner.spawn(Stream.of(spec, spec, spec), new SplittableRandomSource(2));
+		for(int i=0;i<3;i++) {
+			assertEquals(fromArray.getMonster(i).getDamage(), fromStream.getMonster(i).getDamage());
+			assertEquals(fromArray.getMonster(i).getStrength(), fromStream.getMonster(i).getStrength());
+		}
+	}
+
+	//Test to assure that the sieved prime table agrees with trial division.
+	@Test
+	public void isPrime1() throws Exception {
+		for(int i=1;i<=40;i++) {
+			boolean prime = i > 1;
+			for(int j=2;j*j<=i;j++)
+				if(i % j == 0)
+					prime = false;
+			assertEquals(prime, Monster.isPrime(i));
+		}
+	}
+}
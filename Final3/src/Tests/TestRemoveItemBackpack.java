@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import Items.Backpack;
+import Items.Item;
 import Items.Purse;
 import Items.Weapon;
 import RPG3.Monster;
@@ -92,4 +93,60 @@ public class TestRemoveItemBackpack {
 		BigDecimal result = new BigDecimal("4.00"); 
 		assertEquals(result, back.getTotalWeight());
 	}
+	
+	//Test to assure that removing many items in any order keeps the contents of a backpack consistent.
+	@Test 
+	public void removeFromBackpack8() throws Exception {
+		Backpack bag = new Backpack(1, 10, 1000);
+		Weapon[] weapons = new Weapon[100];
+		for(int i=0;i<100;i++) {
+			weapons[i] = new Weapon(1, 1);
+			weapons[i].addToBackpack(bag);
+		}
+		for(int i=0;i<100;i+=3)
+			weapons[i].removeFromBackpack();
+		assertEquals(66, bag.getNbItems());
+		assertEquals(66, bag.getConstantContent().size());
+		for(int i=0;i<100;i++)
+			assertEquals(i%3 != 0, bag.hasAsContent(weapons[i]));
+		assertEquals(false, bag.hasAsContent(pizza));
+	}
+	
+	//Test to assure that transferring all items merges them into the contents of the other backpack, sorted on weight.
+	@Test 
+	public void removeFromBackpack9() throws Exception {
+		Backpack bag = new Backpack(1, 10, 10000);
+		Backpack other = new Backpack(1, 10, 10000);
+		for(int i=0;i<100;i++) {
+			new Weapon(1 + (i*7)%10, 1).addToBackpack(bag);
+			new Weapon(1 + (i*3)%10, 1).addToBackpack(other);
+		}
+		long weight = bag.getTotalWeightHundredths() + other.getTotalWeightHundredths() - bag.getWeightHundredths();
+		bag.transferContents(other);
+		assertEquals(0, bag.getNbItems());
+		assertEquals(bag.getWeightHundredths(), bag.getTotalWeightHundredths());
+		assertEquals(200, other.getNbItems());
+		assertEquals(200, other.getConstantContent().size());
+		assertEquals(weight, other.getTotalWeightHundredths());
+		for(int i=0;i<199;i++)
+			assertTrue(other.getContents().get(i).getTotalWeightHundredths() <= other.getContents().get(i+1).getTotalWeightHundredths());
+		for(Item item : other.getContents()) {
+			assertSame(other, item.getDirectHolder());
+			assertTrue(other.hasAsContent(item));
+		}
+	}
+	
+	//Test to assure that nothing is transferred when the other backpack can't carry all items.
+	@Test 
+	public void removeFromBackpack10() throws Exception {
+		Backpack small = new Backpack(1, 10, 5);
+		try {
+			back.transferContents(small);
+			fail();
+		}
+		catch(IllegalArgumentException ae) {}
+		assertEquals(2, back.getNbItems());
+		assertEquals(0, small.getNbItems());
+		assertSame(back, sack.getDirectHolder());
+	}
 }
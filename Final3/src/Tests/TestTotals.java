@@ -0,0 +1,74 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Purse;
+import Items.Weapon;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestTotals {
+
+	Weapon pizza;
+	Backpack back;
+	Backpack sack;
+	Purse purse;
+	Monster monster1;
+
+	@Before
+	public void setUp() throws Exception {
+		pizza = new Weapon(1, 20);
+		back = new Backpack(2,20,20);
+		sack = new Backpack(3,40,40);
+		purse = new Purse(1,30,20,10);
+		monster1 = new Monster("Destroyer o' Hope", 13, 100, pizza, back, 5, new SplittableRandomSource(1));
+		purse.addToBackpack(sack);
+		sack.addToBackpack(back);
+	}
+
+	//NECESSARY TESTS FOR THE TOTALS KEPT UP TO DATE BY BACKPACKS AND MONSTERS
+
+	//Test to assure that the totals of a monster include the items in nested backpacks.
+	@Test
+	public void totals1() throws Exception {
+		assertEquals(100+200+300+150, monster1.getTotalWeightHundredths());
+		assertEquals(20+20+40+30+10, monster1.getTotalValue());
+	}
+
+	//Test to assure that adding dukats to a nested purse changes the totals of all its holders.
+	@Test
+	public void totals2() throws Exception {
+		purse.addDukats(5);
+		assertEquals(300+175, sack.getTotalWeightHundredths());
+		assertEquals(100+200+300+175, monster1.getTotalWeightHundredths());
+		assertEquals(20+20+40+30+15, monster1.getTotalValue());
+	}
+
+	//Test to assure that tearing a nested purse removes its value and dukats from the totals of its holders.
+	@Test
+	public void totals3() throws Exception {
+		purse.addDukats(50);
+		assertEquals(200+300+100, back.getTotalWeightHundredths());
+		assertEquals(20+40, back.getTotalValue());
+	}
+
+	//Test to assure that removing a backpack from a backpack removes all its contents from the totals.
+	@Test
+	public void totals4() throws Exception {
+		sack.removeFromBackpack();
+		assertEquals(200, back.getTotalWeightHundredths());
+		assertEquals(100+200, monster1.getTotalWeightHundredths());
+	}
+
+	//Test to assure that dropping an item removes it from the totals of the monster.
+	@Test
+	public void totals5() throws Exception {
+		monster1.drop(back);
+		assertEquals(100, monster1.getTotalWeightHundredths());
+		assertEquals(20, monster1.getTotalValue());
+	}
+}
@@ -0,0 +1,99 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.Arena;
+import RPG3.MatchListener;
+import RPG3.MatchResult;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+import RPG3.Standings;
+import RPG3.Tournament;
+
+public class TestTournament {
+
+	Monster[] entrants;
+
+	@Before
+	public void setUp() throws Exception {
+		SplittableRandomSource random = new SplittableRandomSource(1);
+		entrants = new Monster[13];
+		for(int i=0;i<entrants.length;i++)
+			entrants[i] = new Monster("Goblin", 7, 20 + 5*i, new Weapon(0, 1), new Backpack(0, 1, 10), 3, random.split());
+	}
+
+	//NECESSARY TESTS FOR TOURNAMENTS
+
+	//Test to assure that in a round-robin every entrant fights every other entrant once, and the listener hears every match.
+	@Test
+	public void roundRobin1() throws Exception {
+		final AtomicInteger matches = new AtomicInteger();
+		Tournament tournament = new Tournament(entrants, ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS,
+				new SplittableRandomSource(2), new MatchListener() {
+					@Override
+					public void matchFinished(MatchResult match, Standings standings) {
+						matches.incrementAndGet();
+					}
+				});
+		Standings standings = tournament.roundRobin();
+		assertEquals(13*12/2, matches.get());
+		for(int i=0;i<entrants.length;i++)
+			assertEquals(12, standings.getWins(i) + standings.getDraws(i) + standings.getLosses(i));
+	}
+
+	//Test to assure that two tournaments with the same seed end with the same standings.
+	@Test
+	public void roundRobin2() throws Exception {
+		Standings standings1 = new Tournament(entrants, 3).roundRobin();
+		Standings standings2 = new Tournament(entrants, 3).roundRobin();
+		assertArrayEquals(standings1.getRanking(), standings2.getRanking());
+		for(int i=0;i<entrants.length;i++)
+			assertEquals(standings1.getPoints(i), standings2.getPoints(i));
+	}
+
+	//Test to assure that a bracket has one champion, the same for the same seed, after exactly n-1 decided matches.
+	@Test
+	public void singleElimination1() throws Exception {
+		final AtomicInteger matches = new AtomicInteger();
+		Tournament tournament = new Tournament(entrants, ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS,
+				new SplittableRandomSource(4), new MatchListener() {
+					@Override
+					public void matchFinished(MatchResult match, Standings standings) {
+						assertTrue(match.getWinner() == match.getHome() || match.getWinner() == match.getAway());
+						matches.incrementAndGet();
+					}
+				});
+		int champion = tournament.singleElimination();
+		assertTrue(champion >= 0 && champion < entrants.length);
+		assertEquals(entrants.length - 1, matches.get());
+		assertEquals(champion, new Tournament(entrants, ForkJoinPool.commonPool(), Arena.DEFAULT_MAX_ROUNDS,
+				new SplittableRandomSource(4), MatchListener.NONE).singleElimination());
+	}
+
+	//Test to assure that in a Swiss system every entrant fights or has a bye in every round.
+	@Test
+	public void swiss1() throws Exception {
+		Standings standings = new Tournament(entrants, 5).swiss(4);
+		int total = 0;
+		for(int i=0;i<entrants.length;i++) {
+			int games = standings.getWins(i) + standings.getDraws(i) + standings.getLosses(i);
+			assertEquals(4, games);
+			total += games;
+		}
+		assertEquals(4*entrants.length, total);
+	}
+
+	//Test to assure that a tournament needs at least two entrants.
+	@Test (expected = IllegalArgumentException.class)
+	public void tournament1() throws Exception {
+		new Tournament(new Monster[] {entrants[0]}, 6);
+	}
+}
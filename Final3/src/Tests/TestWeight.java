@@ -0,0 +1,57 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Purse;
+import Items.Weapon;
+import Items.Weight;
+
+public class TestWeight {
+
+	//Test to assure that a weight in kilograms is converted exactly to hundredths of a kilogram.
+	@Test
+	public void fromKilograms1() throws Exception {
+		assertEquals(190, Weight.fromKilograms(1.9));
+		assertEquals(1, Weight.fromKilograms(0.01));
+	}
+
+	//Test to assure that a weight with more than two decimals is not accepted.
+	@Test (expected = ArithmeticException.class)
+	public void fromKilograms2() throws Exception {
+		new Weapon(1.234, 20);
+	}
+
+	//Test to assure that the weight of an item is also available in kilograms.
+	@Test
+	public void toBigDecimal() throws Exception {
+		assertEquals(new BigDecimal("1.90"), new Purse(1,30,20,18).getTotalWeight());
+	}
+
+	//Test to assure that the total weight of a backpack in hundredths adds up the weights of its contents.
+	@Test
+	public void totalWeightHundredths() throws Exception {
+		Backpack back = new Backpack(2,20,20);
+		new Purse(1,30,20,18).addToBackpack(back);
+		new Weapon(1.5, 20).addToBackpack(back);
+		assertEquals(540, back.getTotalWeightHundredths());
+		assertEquals(2000, back.getCarryingCapacityHundredths());
+	}
+
+	//Test to assure that the total weight of a purse follows its content, with every dukat weighing DUKAT_WEIGHT_HUNDREDTHS.
+	@Test
+	public void purseTotalWeight() throws Exception {
+		Purse purse = new Purse(1,30,20,18);
+		assertEquals(100 + 18 * Purse.DUKAT_WEIGHT_HUNDREDTHS, purse.getTotalWeightHundredths());
+		purse.addDukats(2);
+		assertEquals(100 + 20 * Purse.DUKAT_WEIGHT_HUNDREDTHS, purse.getTotalWeightHundredths());
+		purse.removeDukats(5);
+		assertEquals(100 + 15 * Purse.DUKAT_WEIGHT_HUNDREDTHS, purse.getTotalWeightHundredths());
+		purse.tear();
+		assertEquals(100, purse.getTotalWeightHundredths());
+	}
+}
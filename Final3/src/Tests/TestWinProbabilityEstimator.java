@@ -0,0 +1,63 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Weapon;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+import RPG3.WinEstimate;
+import RPG3.WinProbabilityEstimator;
+
+public class TestWinProbabilityEstimator {
+
+	Monster monster1;
+	Monster monster2;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+	}
+
+	//NECESSARY TESTS FOR ESTIMATING WIN PROBABILITIES
+
+	//Test to assure that the estimate reaches the requested precision and doesn't change the monsters.
+	@Test
+	public void estimate1() throws Exception {
+		WinEstimate estimate = new WinProbabilityEstimator(1).estimate(monster1, monster2, 0.02);
+		assertTrue(estimate.getHalfWidth() <= 0.02);
+		assertTrue(estimate.getLowerBound() <= estimate.getProbability());
+		assertTrue(estimate.getProbability() <= estimate.getUpperBound());
+		assertEquals(100, monster1.getHitpoints());
+		assertEquals(100, monster2.getHitpoints());
+	}
+
+	//Test to assure that a dead opponent is always beaten, and that the estimate stops early.
+	@Test
+	public void estimate2() throws Exception {
+		monster2.setHitpoints(0);
+		WinEstimate estimate = new WinProbabilityEstimator(2).estimate(monster1, monster2, 0.01);
+		assertEquals(1.0, estimate.getProbability(), 0);
+		assertTrue(estimate.getNbDuels() < 100000);
+	}
+
+	//Test to assure that no more duels are fought than the given maximum.
+	@Test
+	public void estimate3() throws Exception {
+		WinEstimate estimate = new WinProbabilityEstimator(3).estimate(monster1, monster2, 0.0001, WinProbabilityEstimator.Z_95, 1000);
+		assertEquals(1000, estimate.getNbDuels());
+	}
+
+	//Test to assure that two estimators with the same seed give the same estimate.
+	@Test
+	public void estimate4() throws Exception {
+		WinEstimate estimate1 = new WinProbabilityEstimator(4).estimate(monster1, monster2, 0.05);
+		WinEstimate estimate2 = new WinProbabilityEstimator(4).estimate(monster1, monster2, 0.05);
+		assertEquals(estimate1.getWins(), estimate2.getWins());
+		assertEquals(estimate1.getNbDuels(), estimate2.getNbDuels());
+	}
+}
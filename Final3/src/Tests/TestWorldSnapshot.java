@@ -0,0 +1,257 @@
+package Tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import Items.Backpack;
+import Items.Item;
+import Items.Purse;
+import Items.Weapon;
+import Items.WorldSnapshot;
+import RPG3.Monster;
+import RPG3.SplittableRandomSource;
+
+public class TestWorldSnapshot {
+
+	Monster monster1;
+	Monster monster2;
+	Backpack sack;
+	Purse purse;
+	Purse tornPurse;
+	Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		monster1 = new Monster("Destroyer o' Hope", 11, 100, new Weapon(1, 20), new Backpack(2,20,20), 5, new SplittableRandomSource(1));
+		monster2 = new Monster("Lonely little goblin", 17, 100, new Weapon(1, 20), new Backpack(2,10,10), 4, new SplittableRandomSource(2));
+		sack = new Backpack(1, 5, 40);
+		purse = new Purse(1, 30, 20, 18);
+		tornPurse = new Purse(1, 10, 20, 5);
+		tornPurse.tear();
+		purse.addToBackpack(sack);
+		tornPurse.addToBackpack(sack);
+		new Weapon(0.5, 3).addToBackpack(sack);
+		sack.addToBackpack((Backpack) monster1.getAnchors()[2]);
+		monster2.setHitpoints(42);
+		file = File.createTempFile("world", ".snapshot").toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		file.toFile().delete();
+	}
+
+	//NECESSARY TESTS FOR WRITING AND LOADING SNAPSHOTS
+
+	//Test to assure that monsters loaded from a snapshot have the stats and totals of the monsters written.
+	@Test
+	public void snapshot1() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1, monster2}, file);
+		Monster[] loaded = WorldSnapshot.read(file);
+		assertEquals(2, loaded.length);
+		for(int i=0;i<2;i++) {
+			Monster original = (i == 0) ? monster1 : monster2;
+			assertEquals(original.getName(), loaded[i].getName());
+			assertEquals(original.getHitpoints(), loaded[i].getHitpoints());
+			assertEquals(original.getMaxHitpoints(), loaded[i].getMaxHitpoints());
+			assertEquals(original.getDamage(), loaded[i].getDamage());
+			assertEquals(original.getStrength(), loaded[i].getStrength());
+			assertEquals(original.getAnchors().length, loaded[i].getAnchors().length);
+			assertEquals(original.getTotalWeightHundredths(), loaded[i].getTotalWeightHundredths());
+			assertEquals(original.getTotalValue(), loaded[i].getTotalValue());
+		}
+	}
+
+	//Test to assure that items keep their IDs and damage in a snapshot, and new items don't reuse those IDs.
+	@Test
+	public void snapshotIds() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Monster loaded = WorldSnapshot.read(file)[0];
+		Weapon weapon = (Weapon) monster1.getAnchors()[0];
+		Weapon loadedWeapon = (Weapon) loaded.getAnchors()[0];
+		assertEquals(weapon.getId(), loadedWeapon.getId());
+		assertEquals(weapon.getDamage(), loadedWeapon.getDamage());
+		assertEquals(monster1.getAnchors()[2].getId(), loaded.getAnchors()[2].getId());
+		Backpack loadedSack = (Backpack) ((Backpack) loaded.getAnchors()[2]).getLightestItem();
+		assertEquals(sack.getId(), loadedSack.getId());
+		for(int i=0;i<3;i++)
+			assertEquals(sack.getContents().get(i).getId(), loadedSack.getContents().get(i).getId());
+		for(int i=0;i<2000;i++)
+			assertTrue(loadedWeapon.getId() != new Weapon(1, 20).getId());
+	}
+
+	//Test to assure that items loaded twice from the same snapshot, with the same IDs, can be held by the same backpack.
+	@Test
+	public void snapshotTwice() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Backpack first = (Backpack) WorldSnapshot.read(file)[0].getAnchors()[2];
+		Backpack second = (Backpack) WorldSnapshot.read(file)[0].getAnchors()[2];
+		assertEquals(first.getId(), second.getId());
+		Backpack chest = new Backpack(1, 1, 1000);
+		((Monster) first.getDirectHolder()).drop(first);
+		((Monster) second.getDirectHolder()).drop(second);
+		first.addToBackpack(chest);
+		second.addToBackpack(chest);
+		assertEquals(2, chest.getContents().size());
+		assertEquals(2 * first.getTotalWeightHundredths(), chest.getTotalWeightHundredths() - chest.getWeightHundredths());
+	}
+
+	//Test to assure that nested backpacks, purse contents and torn purses survive a snapshot.
+	@Test
+	public void snapshot2() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Backpack back = (Backpack) WorldSnapshot.read(file)[0].getAnchors()[2];
+		assertEquals(1, back.getNbItems());
+		Backpack loadedSack = (Backpack) back.getLightestItem();
+		assertEquals(3, loadedSack.getNbItems());
+		int torn = 0;
+		for(Item item : loadedSack.getConstantContent()) {
+			assertEquals(loadedSack, item.getDirectHolder());
+			if(item instanceof Purse && ((Purse) item).isTorn())
+				torn++;
+			else if(item instanceof Purse)
+				assertEquals(18, ((Purse) item).getContent());
+		}
+		assertEquals(1, torn);
+	}
+
+	//Test to assure that a large world is written in parallel ranges and loaded back completely.
+	@Test
+	public void snapshot3() throws Exception {
+		Monster[] monsters = new Monster[3000];
+		SplittableRandomSource random = new SplittableRandomSource(3);
+		for(int i=0;i<monsters.length;i++)
+			monsters[i] = new Monster("Goblin", 7, 10 + i % 50, new Weapon(0, 1), new Backpack(0, 1, 10), 3, random.split());
+		WorldSnapshot.write(monsters, file);
+		Monster[] loaded = WorldSnapshot.read(file);
+		assertEquals(3000, loaded.length);
+		for(int i=0;i<monsters.length;i++) {
+			assertEquals(monsters[i].getHitpoints(), loaded[i].getHitpoints());
+			assertTrue(loaded[i].getAnchors()[0] instanceof Weapon);
+			assertTrue(loaded[i].getAnchors()[2] instanceof Backpack);
+		}
+	}
+
+	//Test to assure that a lazily loaded backpack answers its totals without loading its contents, and loads them on first access.
+	@Test
+	public void lazy1() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Monster loaded = WorldSnapshot.read(file, true)[0];
+		Backpack back = (Backpack) loaded.getAnchors()[2];
+		assertFalse(back.isContentLoaded());
+		assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+		assertEquals(monster1.getTotalValue(), loaded.getTotalValue());
+		assertEquals(1, back.getNbItems());
+		assertFalse(back.isContentLoaded());
+		Backpack loadedSack = (Backpack) back.getLightestItem();
+		assertTrue(back.isContentLoaded());
+		assertFalse(loadedSack.isContentLoaded());
+		assertEquals(3, loadedSack.getContents().size());
+		assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+		assertEquals(monster1.getTotalValue(), loaded.getTotalValue());
+	}
+
+	//Test to assure that changing an item inside a lazily loaded backpack updates the totals of the monster.
+	@Test
+	public void lazy2() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Monster loaded = WorldSnapshot.read(file, true)[0];
+		Backpack loadedSack = (Backpack) ((Backpack) loaded.getAnchors()[2]).getLightestItem();
+		Weapon extra = new Weapon(1, 7);
+		extra.addToBackpack(loadedSack);
+		assertEquals(monster1.getTotalValue() + 7, loaded.getTotalValue());
+		assertEquals(monster1.getTotalWeightHundredths() + 100, loaded.getTotalWeightHundredths());
+	}
+
+	//Test to assure that writing a snapshot over the file of a lazily loaded world doesn't change the contents still to be loaded.
+	@Test
+	public void lazy3() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Monster loaded = WorldSnapshot.read(file, true)[0];
+		WorldSnapshot.write(new Monster[] {monster2}, file);
+		Backpack loadedSack = (Backpack) ((Backpack) loaded.getAnchors()[2]).getLightestItem();
+		assertEquals(3, loadedSack.getContents().size());
+		assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+		assertEquals(monster2.getName(), WorldSnapshot.read(file)[0].getName());
+	}
+
+	//Test to assure that a backpack that fails to load its contents is left unchanged and loads them on a later access.
+	@Test
+	public void lazy4() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		Monster loaded = WorldSnapshot.read(file, true)[0];
+		Backpack back = (Backpack) loaded.getAnchors()[2];
+		long itemsOffset;
+		byte[] original;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(40);
+			channel.read(header, 0);
+			itemsOffset = header.getLong(32);
+			ByteBuffer items = ByteBuffer.allocate((int) (channel.size() - itemsOffset));
+			channel.read(items, itemsOffset);
+			original = items.array();
+			channel.write(ByteBuffer.allocate(original.length), itemsOffset);
+		}
+		try {
+			back.getContents();
+			fail();
+		}
+		catch (UncheckedIOException exc) {
+		}
+		assertFalse(back.isContentLoaded());
+		assertEquals(1, back.getNbItems());
+		assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(original), itemsOffset);
+		}
+		assertEquals(1, back.getContents().size());
+		assertTrue(back.isContentLoaded());
+		assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+	}
+
+	//Test to assure that threads reading a lazily loaded backpack at the same time load its contents only once.
+	@Test
+	public void lazy5() throws Exception {
+		WorldSnapshot.write(new Monster[] {monster1}, file);
+		for (int attempt = 0; attempt < 20; attempt++) {
+			Monster loaded = WorldSnapshot.read(file, true)[0];
+			final Backpack back = (Backpack) loaded.getAnchors()[2];
+			final CountDownLatch start = new CountDownLatch(1);
+			final Item[] seen = new Item[8];
+			Thread[] threads = new Thread[seen.length];
+			for (int i = 0; i < threads.length; i++) {
+				final int index = i;
+				threads[i] = new Thread(() -> {
+					try {
+						start.await();
+					}
+					catch (InterruptedException exc) {
+						return;
+					}
+					seen[index] = back.getLightestItem();
+				});
+				threads[i].start();
+			}
+			start.countDown();
+			for (Thread thread : threads)
+				thread.join();
+			for (Item item : seen)
+				assertSame(seen[0], item);
+			assertEquals(1, back.getContents().size());
+			assertSame(back, seen[0].getDirectHolder());
+			assertEquals(monster1.getTotalWeightHundredths(), loaded.getTotalWeightHundredths());
+			assertEquals(monster1.getTotalValue(), loaded.getTotalValue());
+		}
+	}
+}